@@ -1,7 +1,10 @@
 package am.hhovhann.travel.ai.flight.agent;
 
 import am.hhovhann.travel.ai.core.mcp.model.McpClient;
+import am.hhovhann.travel.ai.core.model.FlightRequest;
+import am.hhovhann.travel.ai.core.model.FlightResponse;
 import am.hhovhann.travel.ai.core.util.A2AMessageBuilder;
+import am.hhovhann.travel.ai.flight.service.FlightService;
 import io.a2a.server.agentexecution.AgentExecutor;
 import io.a2a.server.agentexecution.RequestContext;
 import io.a2a.server.events.EventQueue;
@@ -17,8 +20,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Configuration
 public class FlightAgentExecutorProducer {
@@ -26,12 +38,24 @@ public class FlightAgentExecutorProducer {
     @Value("${flight.mcp.server.url:http://localhost:8081}")
     private String flightMcpServerUrl;
 
+    // Bounds the wait for a tool result; McpClient's own timeout adapts below this
+    @Value("${mcp.client.request-timeout:10s}")
+    private Duration requestTimeout;
+
+    // Bounds a streamed search as a whole; each silence on the stream is bounded by McpClient
+    @Value("${mcp.client.stream-timeout:2m}")
+    private Duration streamTimeout;
+
     @Bean("flightAgentExecutor")
-    public AgentExecutor flightAgentExecutor(McpClient mcpClient) {
-        return new FlightA2AExecutor(mcpClient, flightMcpServerUrl);
+    public AgentExecutor flightAgentExecutor(McpClient mcpClient, FlightService flightService) {
+        return new FlightA2AExecutor(mcpClient, flightService, flightMcpServerUrl, requestTimeout, streamTimeout);
     }
 
-    private record FlightA2AExecutor(McpClient mcpClient, String mcpServerUrl) implements AgentExecutor {
+    private record FlightA2AExecutor(McpClient mcpClient, FlightService flightService, String mcpServerUrl,
+                                  Duration requestTimeout, Duration streamTimeout) implements AgentExecutor {
+
+        // Marks the end of a streamed search in the queue of partial results
+        private static final List<FlightResponse> SEARCH_DONE = new ArrayList<>(0);
 
         @Override
             public void execute(RequestContext context, EventQueue eventQueue) throws JSONRPCError {
@@ -46,7 +70,7 @@ public class FlightAgentExecutorProducer {
                     String userMessage = extractTextFromMessage(context.getMessage());
 
                     // Determine which MCP tool to call based on message content
-                    String mcpResult = routeToMcpServer(userMessage);
+                    String mcpResult = routeToMcpServer(updater, userMessage);
 
                     TextPart responsePart = new TextPart(mcpResult, null);
                     updater.addArtifact(List.of(responsePart), null, null, null);
@@ -73,11 +97,11 @@ public class FlightAgentExecutorProducer {
                 updater.cancel();
             }
 
-            private String routeToMcpServer(String userMessage) {
+            private String routeToMcpServer(TaskUpdater updater, String userMessage) {
                 try {
                     // Simple routing logic - in practice, you'd use AI to determine intent
                     if (userMessage.toLowerCase().contains("search") || userMessage.toLowerCase().contains("find")) {
-                        return callMcpTool("search_flights", parseFlightSearchParams(userMessage));
+                        return searchFlights(updater, parseFlightSearchRequest(userMessage));
                     } else if (userMessage.toLowerCase().contains("book")) {
                         return callMcpTool("book_flight", parseFlightBookingParams(userMessage));
                     } else {
@@ -88,6 +112,31 @@ public class FlightAgentExecutorProducer {
                 }
             }
 
+            // Partial results are published from this thread, so the transport thread never waits on the event queue
+            private String searchFlights(TaskUpdater updater, FlightRequest request) {
+                BlockingQueue<List<FlightResponse>> partials = new LinkedBlockingQueue<>();
+                CompletableFuture<List<FlightResponse>> search = flightService.searchFlights(request, partials::add)
+                        .orTimeout(streamTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                search.whenComplete((flights, error) -> partials.add(SEARCH_DONE));
+                try {
+                    for (List<FlightResponse> partial = partials.take(); partial != SEARCH_DONE; partial = partials.take()) {
+                        TextPart partialPart = new TextPart(String.format("Found %d flights so far: %s", partial.size(), partial), null);
+                        updater.addArtifact(List.of(partialPart), null, "partial", null);
+                    }
+                    List<FlightResponse> flights = search.join();
+                    return String.format("Found %d flights. Here are the options: %s", flights.size(), flights);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    search.cancel(true);
+                    return "Flight search was interrupted";
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof TimeoutException) {
+                        return "Flight search did not finish within " + streamTimeout.toSeconds() + "s";
+                    }
+                    return "Failed to search flights: " + e.getCause().getMessage();
+                }
+            }
+
             private String callMcpTool(String toolName, Map<String, Object> arguments) {
                 try {
                     return mcpClient.callTool(mcpServerUrl, toolName, arguments)
@@ -97,19 +146,28 @@ public class FlightAgentExecutorProducer {
                                 }
                                 return formatMcpResponse(response.result());
                             })
-                            .join(); // For simplicity - in production, handle async properly
+                            .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                            .join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof TimeoutException) {
+                        return "MCP server did not answer within " + requestTimeout.toSeconds() + "s";
+                    }
+                    return "Failed to call MCP server: " + e.getCause().getMessage();
                 } catch (Exception e) {
                     return "Failed to call MCP server: " + e.getMessage();
                 }
             }
 
-            private Map<String, Object> parseFlightSearchParams(String message) {
+            private FlightRequest parseFlightSearchRequest(String message) {
                 // Simple parsing - in practice, use AI to extract parameters
-                return Map.of(
-                        "from", "NYC", // Would parse from message
-                        "to", "LON",   // Would parse from message
-                        "departureDate", "2024-12-15",
-                        "passengers", 1
+                return new FlightRequest(
+                        "NYC", // Would parse from message
+                        "LON", // Would parse from message
+                        LocalDate.parse("2024-12-15"),
+                        null,
+                        1,
+                        null,
+                        null
                 );
             }
 
@@ -4,38 +4,64 @@ import am.hhovhann.travel.ai.core.model.FlightRequest;
 import am.hhovhann.travel.ai.core.model.FlightResponse;
 import am.hhovhann.travel.ai.core.mcp.model.McpClient;
 import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 public class FlightService {
+    private static final TypeReference<List<FlightResponse>> FLIGHT_LIST = new TypeReference<>() {
+    };
+
     private final McpClient mcpClient;
+    private final ObjectMapper objectMapper;
     private final String flightMcpServerUrl;
 
     public FlightService(McpClient mcpClient,
+                         ObjectMapper objectMapper,
                          @Value("${flight.mcp.server.url:http://localhost:8081}") String flightMcpServerUrl) {
         this.mcpClient = mcpClient;
+        this.objectMapper = objectMapper;
         this.flightMcpServerUrl = flightMcpServerUrl;
     }
 
     public CompletableFuture<List<FlightResponse>> searchFlights(FlightRequest request) {
-        return mcpClient.callTool(
-                flightMcpServerUrl,
-                "search_flights",
-                Map.of(
-                        "from", request.from(),
-                        "to", request.to(),
-                        "departureDate", request.departureDate().toString(),
-                        "returnDate", request.returnDate() != null ? request.returnDate().toString() : null,
-                        "passengers", request.passengers(),
-                        "cabinClass", request.cabinClass() != null ? request.cabinClass() : "economy",
-                        "preferences", request.preferences()
-                )
-        ).thenApply(this::parseFlightResults);
+        return mcpClient.callTool(flightMcpServerUrl, "search_flights", searchArguments(request))
+                .thenApply(this::parseFlightResults);
+    }
+
+    /**
+     * Like {@link #searchFlights(FlightRequest)}, but hands each provider's flights to {@code onPartial} as the
+     * server streams them, so work on the first results can start before the complete ranking arrives.
+     */
+    public CompletableFuture<List<FlightResponse>> searchFlights(FlightRequest request, Consumer<List<FlightResponse>> onPartial) {
+        return mcpClient.callToolStreaming(flightMcpServerUrl, "search_flights", searchArguments(request),
+                        update -> onPartial.accept(objectMapper.convertValue(update.partialResult().get("flights"), FLIGHT_LIST)))
+                .thenApply(this::parseFlightResults);
+    }
+
+    private static Map<String, Object> searchArguments(FlightRequest request) {
+        // One-way searches have no return date and preferences are optional; Map.of rejects null values
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("from", request.from());
+        arguments.put("to", request.to());
+        arguments.put("departureDate", request.departureDate().toString());
+        if (request.returnDate() != null) {
+            arguments.put("returnDate", request.returnDate().toString());
+        }
+        arguments.put("passengers", request.passengers());
+        arguments.put("cabinClass", request.cabinClass() != null ? request.cabinClass() : "economy");
+        if (request.preferences() != null) {
+            arguments.put("preferences", request.preferences());
+        }
+        return arguments;
     }
 
     public CompletableFuture<FlightResponse> bookFlight(String flightId, Map<String, Object> passengerDetails) {
@@ -60,16 +86,12 @@ public class FlightService {
         ).thenApply(this::parseFlightResults);
     }
 
-    @SuppressWarnings("unchecked")
     private List<FlightResponse> parseFlightResults(McpResponse response) {
         if (response.error() != null) {
             throw new RuntimeException("Flight search failed: " + response.error().message());
         }
 
-        List<Map<String, Object>> flights = (List<Map<String, Object>>) response.result().get("flights");
-        return flights.stream()
-                .map(this::mapToFlightResponse)
-                .toList();
+        return objectMapper.convertValue(response.result().get("flights"), FLIGHT_LIST);
     }
 
     private FlightResponse parseFlightBooking(McpResponse response) {
@@ -77,27 +99,6 @@ public class FlightService {
             throw new RuntimeException("Flight booking failed: " + response.error().message());
         }
 
-        Map<String, Object> booking = (Map<String, Object>) response.result().get("booking");
-        return mapToFlightResponse(booking);
-    }
-
-    private FlightResponse mapToFlightResponse(Map<String, Object> flightData) {
-        // Implementation to map from MCP response to FlightResponse
-        // This would typically include parsing the flight data structure
-        return new FlightResponse(
-                (String) flightData.get("flightNumber"),
-                (String) flightData.get("airline"),
-                (String) flightData.get("from"),
-                (String) flightData.get("to"),
-                null, // Parse departureTime from flightData
-                null, // Parse arrivalTime from flightData
-                null, // Parse price from flightData
-                (String) flightData.get("currency"),
-                (String) flightData.get("cabinClass"),
-                (Integer) flightData.get("availableSeats"),
-                (List<String>) flightData.get("amenities"),
-                (String) flightData.get("duration"),
-                (Integer) flightData.get("stops")
-        );
+        return objectMapper.convertValue(response.result().get("booking"), FlightResponse.class);
     }
 }
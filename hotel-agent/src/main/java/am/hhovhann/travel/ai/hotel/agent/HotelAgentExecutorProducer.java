@@ -1,7 +1,10 @@
 package am.hhovhann.travel.ai.hotel.agent;
 
 import am.hhovhann.travel.ai.core.mcp.model.McpClient;
+import am.hhovhann.travel.ai.core.model.HotelRequest;
+import am.hhovhann.travel.ai.core.model.HotelResponse;
 import am.hhovhann.travel.ai.core.util.A2AMessageBuilder;
+import am.hhovhann.travel.ai.hotel.service.HotelService;
 import io.a2a.server.agentexecution.AgentExecutor;
 import io.a2a.server.agentexecution.RequestContext;
 import io.a2a.server.events.EventQueue;
@@ -17,8 +20,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Configuration
 public class HotelAgentExecutorProducer {
@@ -26,12 +38,24 @@ public class HotelAgentExecutorProducer {
     @Value("${hotel.mcp.server.url:http://localhost:8083}")
     private String hotelMcpServerUrl;
 
+    // Bounds the wait for a tool result; McpClient's own timeout adapts below this
+    @Value("${mcp.client.request-timeout:10s}")
+    private Duration requestTimeout;
+
+    // Bounds a streamed search as a whole; each silence on the stream is bounded by McpClient
+    @Value("${mcp.client.stream-timeout:2m}")
+    private Duration streamTimeout;
+
     @Bean
-    public AgentExecutor hotelAgentExecutor(McpClient mcpClient) {
-        return new HotelA2AExecutor(mcpClient, hotelMcpServerUrl);
+    public AgentExecutor hotelAgentExecutor(McpClient mcpClient, HotelService hotelService) {
+        return new HotelA2AExecutor(mcpClient, hotelService, hotelMcpServerUrl, requestTimeout, streamTimeout);
     }
 
-    private record HotelA2AExecutor(McpClient mcpClient, String mcpServerUrl) implements AgentExecutor {
+    private record HotelA2AExecutor(McpClient mcpClient, HotelService hotelService, String mcpServerUrl,
+                                  Duration requestTimeout, Duration streamTimeout) implements AgentExecutor {
+
+        // Marks the end of a streamed search in the queue of partial results
+        private static final List<HotelResponse> SEARCH_DONE = new ArrayList<>(0);
 
         @Override
             public void execute(RequestContext context, EventQueue eventQueue) throws JSONRPCError {
@@ -46,7 +70,7 @@ public class HotelAgentExecutorProducer {
                     String userMessage = extractTextFromMessage(context.getMessage());
 
                     // Determine which MCP tool to call based on message content
-                    String mcpResult = routeToMcpServer(userMessage);
+                    String mcpResult = routeToMcpServer(updater, userMessage);
 
                     TextPart responsePart = new TextPart(mcpResult, null);
                     updater.addArtifact(List.of(responsePart), null, null, null);
@@ -73,11 +97,11 @@ public class HotelAgentExecutorProducer {
                 updater.cancel();
             }
 
-            private String routeToMcpServer(String userMessage) {
+            private String routeToMcpServer(TaskUpdater updater, String userMessage) {
                 try {
                     // Simple routing logic - in practice, you'd use AI to determine intent
                     if (userMessage.toLowerCase().contains("search") || userMessage.toLowerCase().contains("find")) {
-                        return callMcpTool("search_hotels", parseHotelSearchParams(userMessage));
+                        return searchHotels(updater, parseHotelSearchRequest(userMessage));
                     } else if (userMessage.toLowerCase().contains("book")) {
                         return callMcpTool("book_hotel", parseHotelBookingParams(userMessage));
                     } else {
@@ -88,6 +112,31 @@ public class HotelAgentExecutorProducer {
                 }
             }
 
+            // Partial results are published from this thread, so the transport thread never waits on the event queue
+            private String searchHotels(TaskUpdater updater, HotelRequest request) {
+                BlockingQueue<List<HotelResponse>> partials = new LinkedBlockingQueue<>();
+                CompletableFuture<List<HotelResponse>> search = hotelService.searchHotels(request, partials::add)
+                        .orTimeout(streamTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                search.whenComplete((hotels, error) -> partials.add(SEARCH_DONE));
+                try {
+                    for (List<HotelResponse> partial = partials.take(); partial != SEARCH_DONE; partial = partials.take()) {
+                        TextPart partialPart = new TextPart(String.format("Found %d hotels so far: %s", partial.size(), partial), null);
+                        updater.addArtifact(List.of(partialPart), null, "partial", null);
+                    }
+                    List<HotelResponse> hotels = search.join();
+                    return String.format("Found %d hotels. Here are the options: %s", hotels.size(), hotels);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    search.cancel(true);
+                    return "Hotel search was interrupted";
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof TimeoutException) {
+                        return "Hotel search did not finish within " + streamTimeout.toSeconds() + "s";
+                    }
+                    return "Failed to search hotels: " + e.getCause().getMessage();
+                }
+            }
+
             private String callMcpTool(String toolName, Map<String, Object> arguments) {
                 try {
                     return mcpClient.callTool(mcpServerUrl, toolName, arguments)
@@ -97,18 +146,26 @@ public class HotelAgentExecutorProducer {
                                 }
                                 return formatMcpResponse(response.result());
                             })
-                            .join(); // For simplicity - in production, handle async properly
+                            .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                            .join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof TimeoutException) {
+                        return "MCP server did not answer within " + requestTimeout.toSeconds() + "s";
+                    }
+                    return "Failed to call MCP server: " + e.getCause().getMessage();
                 } catch (Exception e) {
                     return "Failed to call MCP server: " + e.getMessage();
                 }
             }
 
-            private Map<String, Object> parseHotelSearchParams(String message) {
-                return Map.of(
-                        "destination", "Paris", // Would parse from message
-                        "checkIn", "2024-12-15",
-                        "checkOut", "2024-12-20",
-                        "guests", 2
+            private HotelRequest parseHotelSearchRequest(String message) {
+                return new HotelRequest(
+                        "Paris", // Would parse from message
+                        LocalDate.parse("2024-12-15"),
+                        LocalDate.parse("2024-12-20"),
+                        2,
+                        null,
+                        null
                 );
             }
 
@@ -4,49 +4,78 @@ import am.hhovhann.travel.ai.core.model.HotelRequest;
 import am.hhovhann.travel.ai.core.model.HotelResponse;
 import am.hhovhann.travel.ai.core.mcp.model.McpClient;
 import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 public class HotelService {
+    private static final TypeReference<List<HotelResponse>> HOTEL_LIST = new TypeReference<>() {
+    };
+
     private final McpClient mcpClient;
+    private final ObjectMapper objectMapper;
     private final String hotelMcpServerUrl;
 
     public HotelService(McpClient mcpClient,
+                        ObjectMapper objectMapper,
                         @Value("${hotel.mcp.server.url:http://localhost:8083}") String hotelMcpServerUrl) {
         this.mcpClient = mcpClient;
+        this.objectMapper = objectMapper;
         this.hotelMcpServerUrl = hotelMcpServerUrl;
     }
 
     public CompletableFuture<List<HotelResponse>> searchHotels(HotelRequest request) {
-        return mcpClient.callTool(
-                hotelMcpServerUrl,
-                "search_hotels",
-                Map.of(
-                        "destination", request.destination(),
-                        "checkIn", request.checkIn().toString(),
-                        "checkOut", request.checkOut().toString(),
-                        "guests", request.guests(),
-                        "rooms", request.rooms() != null ? request.rooms() : 1,
-                        "preferences", request.preferences() != null ? request.preferences() : ""
-                )
-        ).thenApply(this::parseHotelResults);
+        return mcpClient.callTool(hotelMcpServerUrl, "search_hotels", searchArguments(request))
+                .thenApply(this::parseHotelResults);
+    }
+
+    /**
+     * Like {@link #searchHotels(HotelRequest)}, but hands each provider's hotels to {@code onPartial} as the
+     * server streams them, so work on the first results can start before the complete ranking arrives.
+     */
+    public CompletableFuture<List<HotelResponse>> searchHotels(HotelRequest request, Consumer<List<HotelResponse>> onPartial) {
+        return mcpClient.callToolStreaming(hotelMcpServerUrl, "search_hotels", searchArguments(request),
+                        update -> onPartial.accept(objectMapper.convertValue(update.partialResult().get("hotels"), HOTEL_LIST)))
+                .thenApply(this::parseHotelResults);
+    }
+
+    private static Map<String, Object> searchArguments(HotelRequest request) {
+        return Map.of(
+                "destination", request.destination(),
+                "checkIn", request.checkIn().toString(),
+                "checkOut", request.checkOut().toString(),
+                "guests", request.guests(),
+                "rooms", request.rooms() != null ? request.rooms() : 1,
+                "preferences", request.preferences() != null ? request.preferences() : ""
+        );
     }
 
+    /**
+     * Books without dates; the server then holds no nights for the booking.
+     */
     public CompletableFuture<HotelResponse> bookHotel(String hotelId, Map<String, Object> guestDetails) {
-        return mcpClient.callTool(
-                hotelMcpServerUrl,
-                "book_hotel",
-                Map.of(
-                        "hotelId", hotelId,
-                        "guestDetails", guestDetails
-                )
-        ).thenApply(this::parseHotelBooking);
+        return bookHotel(hotelId, guestDetails, null, null);
+    }
+
+    public CompletableFuture<HotelResponse> bookHotel(String hotelId, Map<String, Object> guestDetails,
+                                                      String checkIn, String checkOut) {
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        arguments.put("hotelId", hotelId);
+        arguments.put("guestDetails", guestDetails);
+        if (checkIn != null && checkOut != null) {
+            arguments.put("checkIn", checkIn);
+            arguments.put("checkOut", checkOut);
+        }
+        return mcpClient.callTool(hotelMcpServerUrl, "book_hotel", arguments)
+                .thenApply(this::parseHotelBooking);
     }
 
     public CompletableFuture<List<HotelResponse>> getHotelRecommendations(String destination, String preferences) {
@@ -72,18 +101,15 @@ public class HotelService {
         ).thenApply(this::parseHotelResults);
     }
 
-    @SuppressWarnings("unchecked")
     private List<HotelResponse> parseHotelResults(McpResponse response) {
         if (response.error() != null) {
             throw new RuntimeException("Hotel search failed: " + response.error().message());
         }
 
-        List<Map<String, Object>> hotels = (List<Map<String, Object>>) response.result().get("hotels");
-        return hotels.stream()
-                .map(this::mapToHotelResponse)
-                .toList();
+        return objectMapper.convertValue(response.result().get("hotels"), HOTEL_LIST);
     }
 
+    @SuppressWarnings("unchecked")
     private HotelResponse parseHotelBooking(McpResponse response) {
         if (response.error() != null) {
             throw new RuntimeException("Hotel booking failed: " + response.error().message());
@@ -94,23 +120,6 @@ public class HotelService {
     }
 
     private HotelResponse mapToHotelResponse(Map<String, Object> hotelData) {
-        return new HotelResponse(
-                (String) hotelData.get("hotelId"),
-                (String) hotelData.get("name"),
-                (String) hotelData.get("address"),
-                (String) hotelData.get("city"),
-                (String) hotelData.get("country"),
-                (Integer) hotelData.get("starRating"),
-                new BigDecimal(hotelData.get("pricePerNight").toString()),
-                (String) hotelData.get("currency"),
-                (String) hotelData.get("roomType"),
-                (List<String>) hotelData.get("amenities"),
-                (Double) hotelData.get("rating"),
-                (Integer) hotelData.get("reviewCount"),
-                (String) hotelData.get("description"),
-                (Boolean) hotelData.getOrDefault("hasWifi", false),
-                (Boolean) hotelData.getOrDefault("hasParking", false),
-                (Boolean) hotelData.getOrDefault("hasBreakfast", false)
-        );
+        return objectMapper.convertValue(hotelData, HotelResponse.class);
     }
 }
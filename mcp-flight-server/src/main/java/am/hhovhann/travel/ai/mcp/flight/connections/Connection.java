@@ -0,0 +1,13 @@
+package am.hhovhann.travel.ai.mcp.flight.connections;
+
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A journey of one or more flights. {@code stops} counts connections plus the flights' own stops.
+ */
+public record Connection(List<FlightResponse> flights, BigDecimal totalPrice, String currency, int durationMinutes,
+                         int stops) {
+}
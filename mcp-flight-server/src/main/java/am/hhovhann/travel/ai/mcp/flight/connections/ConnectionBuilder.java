@@ -0,0 +1,257 @@
+package am.hhovhann.travel.ai.mcp.flight.connections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds direct, one-stop and two-stop journeys over a {@link LegNetwork} and keeps every journey not beaten
+ * on all of price, total duration and stops by another: the Pareto set.
+ * <p>
+ * The search goes in rounds, one leg per round. A connection must leave the minimum connection time of its
+ * airport after the inbound leg lands, plus {@code interlineMinutes} when the carriers differ, and at most
+ * {@code maxConnectionMinutes} after. A partial journey is kept only if no other one arriving on the same leg is
+ * at least as cheap, started at least as late and has no more stops; anything it could still become, the other
+ * could too. (Arriving earlier is not better: the connection window closes earlier too.) That holds only while
+ * the one leg left cannot need an airport the other has visited, so journeys have at most
+ * {@value #MAX_CONNECTIONS} connections. A partial journey is also dropped
+ * once a journey already found is better than anything it could still become, and legs only go to airports
+ * that can still reach the destination in the legs left.
+ * <p>
+ * Stops count connections plus the intermediate stops of each leg.
+ */
+public final class ConnectionBuilder {
+    public static final int MAX_CONNECTIONS = 2;
+
+    /**
+     * A journey: the schedule rows of its legs in order, its total fare in economy cents, departure and arrival
+     * in minutes from the start of the network's day, and its stops.
+     */
+    public record Journey(int[] rows, long fareMinor, int departure, int arrival, int stops) {
+        public int durationMinutes() {
+            return arrival - departure;
+        }
+    }
+
+    private static final class Label {
+        final int airport;
+        final int leg;
+        final long fare;
+        final int start;
+        final int arrival;
+        final int stops;
+        final int legs;
+        final Label previous;
+        boolean dominated;
+
+        Label(int airport, int leg, long fare, int start, int arrival, int stops, int legs, Label previous) {
+            this.airport = airport;
+            this.leg = leg;
+            this.fare = fare;
+            this.start = start;
+            this.arrival = arrival;
+            this.stops = stops;
+            this.legs = legs;
+            this.previous = previous;
+        }
+    }
+
+    private final LegNetwork network;
+    private final int[] minConnectionMinutes;
+    private final int interlineMinutes;
+    private final int maxConnectionMinutes;
+
+    /**
+     * @param minConnectionMinutes per airport index, the minimum connection time there
+     */
+    public ConnectionBuilder(LegNetwork network, int[] minConnectionMinutes, int interlineMinutes, int maxConnectionMinutes) {
+        if (minConnectionMinutes.length != network.airportCount()) {
+            throw new IllegalArgumentException("Expected a minimum connection time for each of "
+                    + network.airportCount() + " airports");
+        }
+        this.network = network;
+        this.minConnectionMinutes = minConnectionMinutes;
+        this.interlineMinutes = interlineMinutes;
+        this.maxConnectionMinutes = maxConnectionMinutes;
+    }
+
+    /**
+     * Pareto-optimal journeys from {@code origin} to {@code destination} departing on the network's day with at
+     * most {@code maxConnections} connections, over legs with at least {@code seats} seats left, cheapest first.
+     */
+    public List<Journey> search(int origin, int destination, int maxConnections, int seats) {
+        if (maxConnections < 0 || maxConnections > MAX_CONNECTIONS) {
+            throw new IllegalArgumentException("maxConnections must be between 0 and " + MAX_CONNECTIONS + ": " + maxConnections);
+        }
+        if (origin == destination || origin < 0 || destination < 0) {
+            return List.of();
+        }
+        int maxLegs = maxConnections + 1;
+        int[] legsToDestination = legsToDestination(destination, maxLegs);
+        if (legsToDestination[origin] > maxLegs) {
+            return List.of();
+        }
+
+        Map<Integer, List<Label>> bags = new HashMap<>();
+        List<Label> found = new ArrayList<>();
+        List<Label> current = new ArrayList<>();
+
+        // Round one: every leg out of the origin that leaves on the first day
+        for (int leg = network.firstOut(origin); leg < network.endOut(origin); leg++) {
+            if (network.departure(leg) >= LegNetwork.MINUTES_PER_DAY) {
+                break;
+            }
+            if (network.seats(leg) < seats) {
+                continue;
+            }
+            extend(null, origin, leg, 1, maxLegs, destination, legsToDestination, bags, found, current);
+        }
+
+        for (int round = 2; round <= maxLegs && !current.isEmpty(); round++) {
+            List<Label> next = new ArrayList<>();
+            for (Label label : current) {
+                if (label.dominated || isBeaten(found, label, minConnectionMinutes[label.airport])) {
+                    continue;
+                }
+                int airport = label.airport;
+                int earliest = label.arrival + minConnectionMinutes[airport];
+                int latest = label.arrival + maxConnectionMinutes;
+                int inboundCarrier = network.carrier(label.leg);
+                for (int leg = network.firstDepartingAt(airport, earliest); leg < network.endOut(airport); leg++) {
+                    int departure = network.departure(leg);
+                    if (departure > latest) {
+                        break;
+                    }
+                    if (network.seats(leg) < seats
+                            || network.carrier(leg) != inboundCarrier && departure < earliest + interlineMinutes) {
+                        continue;
+                    }
+                    extend(label, origin, leg, round, maxLegs, destination, legsToDestination, bags, found, next);
+                }
+            }
+            current = next;
+        }
+
+        List<Journey> journeys = new ArrayList<>(found.size());
+        for (Label label : found) {
+            journeys.add(journey(label));
+        }
+        journeys.sort(Comparator.comparingLong(Journey::fareMinor)
+                .thenComparingInt(Journey::durationMinutes)
+                .thenComparingInt(Journey::stops));
+        return journeys;
+    }
+
+    private void extend(Label from, int origin, int leg, int legs, int maxLegs, int destination, int[] legsToDestination,
+                        Map<Integer, List<Label>> bags, List<Label> found, List<Label> next) {
+        int airport = network.destination(leg);
+        if (airport == origin || legsToDestination[airport] > maxLegs - legs || visits(from, airport)) {
+            return;
+        }
+        Label label = from == null
+                ? new Label(airport, leg, network.fareMinor(leg), network.departure(leg), network.arrival(leg),
+                        network.stops(leg), 1, null)
+                : new Label(airport, leg, from.fare + network.fareMinor(leg), from.start, network.arrival(leg),
+                        from.stops + 1 + network.stops(leg), legs, from);
+
+        if (airport == destination) {
+            addFound(found, label);
+            return;
+        }
+        if (isBeaten(found, label, minConnectionMinutes[airport]) || !addToBag(bags, label)) {
+            return;
+        }
+        next.add(label);
+    }
+
+    private static boolean visits(Label label, int airport) {
+        for (Label at = label; at != null; at = at.previous) {
+            if (at.airport == airport) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A journey found is at least as good as anything this partial journey can still become
+    private static boolean isBeaten(List<Label> found, Label label, int connectionMinutes) {
+        int minDuration = label.arrival + connectionMinutes - label.start;
+        for (Label journey : found) {
+            if (journey.fare <= label.fare && journey.arrival - journey.start <= minDuration
+                    && journey.stops <= label.stops + 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addFound(List<Label> found, Label label) {
+        int duration = label.arrival - label.start;
+        for (Label journey : found) {
+            if (journey.fare <= label.fare && journey.arrival - journey.start <= duration && journey.stops <= label.stops) {
+                return;
+            }
+        }
+        found.removeIf(journey -> label.fare <= journey.fare && duration <= journey.arrival - journey.start
+                && label.stops <= journey.stops);
+        found.add(label);
+    }
+
+    // Labels arriving on the same leg, so with the same arrival, carrier and connection window
+    private static boolean addToBag(Map<Integer, List<Label>> bags, Label label) {
+        List<Label> bag = bags.computeIfAbsent(label.leg, leg -> new ArrayList<>(2));
+        for (Label other : bag) {
+            if (dominates(other, label)) {
+                return false;
+            }
+        }
+        bag.removeIf(other -> {
+            if (dominates(label, other)) {
+                other.dominated = true;
+                return true;
+            }
+            return false;
+        });
+        bag.add(label);
+        return true;
+    }
+
+    // For labels on the same leg: whatever b can still become, a can too, at no more cost, time or stops
+    private static boolean dominates(Label a, Label b) {
+        return a.fare <= b.fare && a.start >= b.start && a.stops <= b.stops;
+    }
+
+    // Fewest legs from each airport to the destination, up to maxLegs; more than maxLegs if out of reach
+    private int[] legsToDestination(int destination, int maxLegs) {
+        int[] legs = new int[network.airportCount()];
+        Arrays.fill(legs, maxLegs + 1);
+        legs[destination] = 0;
+        int[] frontier = {destination};
+        for (int distance = 1; distance <= maxLegs && frontier.length > 0; distance++) {
+            int[] reached = new int[network.airportCount()];
+            int count = 0;
+            for (int airport : frontier) {
+                for (int i = network.firstIn(airport); i < network.endIn(airport); i++) {
+                    int origin = network.inOrigin(i);
+                    if (legs[origin] > distance) {
+                        legs[origin] = distance;
+                        reached[count++] = origin;
+                    }
+                }
+            }
+            frontier = Arrays.copyOf(reached, count);
+        }
+        return legs;
+    }
+
+    private Journey journey(Label label) {
+        int[] rows = new int[label.legs];
+        for (Label at = label; at != null; at = at.previous) {
+            rows[at.legs - 1] = network.row(at.leg);
+        }
+        return new Journey(rows, label.fare, label.start, label.arrival, label.stops);
+    }
+}
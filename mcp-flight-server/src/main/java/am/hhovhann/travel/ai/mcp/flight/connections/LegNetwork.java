@@ -0,0 +1,183 @@
+package am.hhovhann.travel.ai.mcp.flight.connections;
+
+import am.hhovhann.travel.ai.mcp.flight.schedule.ScheduleFile;
+
+import java.util.Arrays;
+
+/**
+ * The legs that can make up a journey starting on one day: that day's legs and the next day's, for
+ * connections past midnight. Times are minutes from the start of the first day. Legs are grouped by origin
+ * and sorted by departure within each group, so the onward legs of a connection are one binary search away;
+ * they are also listed by destination, for working out which airports can still reach a destination.
+ * Everything is primitive arrays, about 45 bytes per leg. Immutable.
+ */
+public final class LegNetwork {
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int day;
+    private final int airportCount;
+    private final int firstDayLegs;
+
+    // Legs of origin a are firstOut[a] until firstOut[a + 1], by departure
+    private final int[] firstOut;
+    private final int[] departure;
+    private final int[] arrival;
+    private final int[] destination;
+    private final int[] fareMinor;
+    private final short[] carrier;
+    private final byte[] stops;
+    private final short[] seats;
+    private final int[] row;
+
+    // Origins of the legs into airport a are inOrigin[firstIn[a]] until inOrigin[firstIn[a + 1]]
+    private final int[] firstIn;
+    private final int[] inOrigin;
+
+    private LegNetwork(int day, int airportCount, int firstDayLegs, int[] firstOut, int[] departure, int[] arrival,
+                       int[] destination, int[] fareMinor, short[] carrier, byte[] stops, short[] seats, int[] row,
+                       int[] firstIn, int[] inOrigin) {
+        this.day = day;
+        this.airportCount = airportCount;
+        this.firstDayLegs = firstDayLegs;
+        this.firstOut = firstOut;
+        this.departure = departure;
+        this.arrival = arrival;
+        this.destination = destination;
+        this.fareMinor = fareMinor;
+        this.carrier = carrier;
+        this.stops = stops;
+        this.seats = seats;
+        this.row = row;
+        this.firstIn = firstIn;
+        this.inOrigin = inOrigin;
+    }
+
+    /**
+     * The network of journeys starting on epoch day {@code day}.
+     */
+    public static LegNetwork build(ScheduleFile schedule, int day) {
+        int airportCount = schedule.airportCount();
+        int[] rows = new int[1024];
+        int count = 0;
+        int firstDayLegs = 0;
+        for (int slot = 0; slot < schedule.routeDayCount(); slot++) {
+            int first = schedule.firstLeg(slot);
+            int legDay = schedule.day(first);
+            if (legDay != day && legDay != day + 1) {
+                continue;
+            }
+            for (int leg = first; leg < schedule.endLeg(slot); leg++) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, rows.length * 2);
+                }
+                rows[count++] = leg;
+            }
+            if (legDay == day) {
+                firstDayLegs += schedule.endLeg(slot) - first;
+            }
+        }
+
+        // Sort by (origin, departure) through a packed key; departures span two days, so fit in 12 bits
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            int leg = rows[i];
+            long minute = (schedule.day(leg) - day) * (long) MINUTES_PER_DAY + schedule.departureMinute(leg);
+            order[i] = ((long) schedule.origin(leg) << 44) | (minute << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] firstOut = new int[airportCount + 1];
+        int[] departure = new int[count];
+        int[] arrival = new int[count];
+        int[] destination = new int[count];
+        int[] fareMinor = new int[count];
+        short[] carrier = new short[count];
+        byte[] stops = new byte[count];
+        short[] seats = new short[count];
+        int[] row = new int[count];
+        int[] inDegree = new int[airportCount + 1];
+        for (int i = 0; i < count; i++) {
+            int leg = rows[(int) order[i]];
+            departure[i] = (int) ((order[i] >>> 32) & 0xFFF);
+            arrival[i] = departure[i] + schedule.durationMinutes(leg);
+            destination[i] = schedule.destination(leg);
+            fareMinor[i] = (int) schedule.fareMinor(leg);
+            carrier[i] = (short) schedule.carrier(leg);
+            stops[i] = (byte) schedule.stops(leg);
+            seats[i] = (short) Math.min(Short.MAX_VALUE, schedule.seats(leg));
+            row[i] = leg;
+            firstOut[schedule.origin(leg) + 1]++;
+            inDegree[destination[i] + 1]++;
+        }
+        for (int a = 0; a < airportCount; a++) {
+            firstOut[a + 1] += firstOut[a];
+            inDegree[a + 1] += inDegree[a];
+        }
+        int[] firstIn = inDegree.clone();
+        int[] next = Arrays.copyOf(inDegree, airportCount);
+        int[] inOrigin = new int[count];
+        for (int a = 0; a < airportCount; a++) {
+            for (int i = firstOut[a]; i < firstOut[a + 1]; i++) {
+                inOrigin[next[destination[i]]++] = a;
+            }
+        }
+        return new LegNetwork(day, airportCount, firstDayLegs, firstOut, departure, arrival, destination, fareMinor,
+                carrier, stops, seats, row, firstIn, inOrigin);
+    }
+
+    public int day() {
+        return day;
+    }
+
+    public int airportCount() {
+        return airportCount;
+    }
+
+    public int legCount() {
+        return departure.length;
+    }
+
+    /**
+     * Legs departing on the network's day, i.e. those a journey can start with.
+     */
+    public int firstDayLegCount() {
+        return firstDayLegs;
+    }
+
+    int firstOut(int airport) { return firstOut[airport]; }
+    int endOut(int airport) { return firstOut[airport + 1]; }
+    int departure(int leg) { return departure[leg]; }
+    int arrival(int leg) { return arrival[leg]; }
+    int destination(int leg) { return destination[leg]; }
+    int fareMinor(int leg) { return fareMinor[leg]; }
+    int carrier(int leg) { return carrier[leg]; }
+    int stops(int leg) { return stops[leg]; }
+    int seats(int leg) { return seats[leg]; }
+    int firstIn(int airport) { return firstIn[airport]; }
+    int endIn(int airport) { return firstIn[airport + 1]; }
+    int inOrigin(int index) { return inOrigin[index]; }
+
+    /**
+     * Row of the leg in the schedule file.
+     */
+    public int row(int leg) {
+        return row[leg];
+    }
+
+    /**
+     * First leg out of {@code airport} departing at or after {@code minute}.
+     */
+    int firstDepartingAt(int airport, int minute) {
+        int low = firstOut[airport];
+        int high = firstOut[airport + 1];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (departure[middle] < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -3,10 +3,15 @@ package am.hhovhann.travel.ai.mcp.flight.controller;
 import am.hhovhann.travel.ai.core.mcp.model.McpRequest;
 import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
 import am.hhovhann.travel.ai.core.mcp.model.McpError;
+import am.hhovhann.travel.ai.core.mcp.server.McpBatchDispatcher;
+import am.hhovhann.travel.ai.core.mcp.server.McpProgress;
 import am.hhovhann.travel.ai.mcp.flight.service.FlightMcpService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -14,48 +19,66 @@ import java.util.Map;
 @RequestMapping("/mcp")
 @CrossOrigin(origins = "*")
 public class FlightMcpController {
+    private static final Map<String, Object> STATUS_SUBSCRIPTIONS = Map.of(
+            "flightStatusSubscriptions", Map.of("transport", "sse", "endpoint", "/mcp/flight-status/stream"));
 
     private final FlightMcpService flightMcpService;
+    private final McpBatchDispatcher batchDispatcher;
 
     @Autowired
-    public FlightMcpController(FlightMcpService flightMcpService) {
+    public FlightMcpController(FlightMcpService flightMcpService, McpBatchDispatcher batchDispatcher) {
         this.flightMcpService = flightMcpService;
+        this.batchDispatcher = batchDispatcher;
     }
 
     @PostMapping
-    public ResponseEntity<McpResponse> handleMcpRequest(@RequestBody McpRequest request) {
+    public ResponseEntity<?> handleMcpRequest(@RequestBody JsonNode body) {
+        return batchDispatcher.dispatch(body, request -> handleRequest(request, McpProgress.NONE));
+    }
+
+    /**
+     * Streamable HTTP: chosen when the client accepts {@code text/event-stream}; searches called with a
+     * progress token send each provider's results before the final response.
+     */
+    @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter handleMcpStream(@RequestBody JsonNode body) {
+        return batchDispatcher.stream(body, this::handleRequest);
+    }
+
+    private McpResponse handleRequest(McpRequest request, McpProgress progress) {
         try {
             Map<String, Object> result = switch (request.method()) {
-                case "tools/call" -> handleToolCall(request);
+                case "tools/call" -> handleToolCall(request, progress);
                 case "initialize" -> handleInitialize(request);
                 case "tools/list" -> handleToolsList(request);
                 default -> throw new IllegalArgumentException("Unknown method: " + request.method());
             };
 
-            McpResponse response = new McpResponse(
+            return new McpResponse(
                     "2.0",
                     request.id(),
                     result,
                     null
             );
-
-            return ResponseEntity.ok(response);
         } catch (Exception e) {
             McpError error = new McpError(-32603, e.getMessage(), null);
-            McpResponse errorResponse = new McpResponse("2.0", request.id(), null, error);
-            return ResponseEntity.badRequest().body(errorResponse);
+            return new McpResponse("2.0", request.id(), null, error);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private Map<String, Object> handleToolCall(McpRequest request) {
+    private Map<String, Object> handleToolCall(McpRequest request, McpProgress progress) {
         Map<String, Object> params = request.params();
         String toolName = (String) params.get("name");
         Map<String, Object> arguments = (Map<String, Object>) params.get("arguments");
 
         return switch (toolName) {
-            case "search_flights" -> flightMcpService.searchFlights(arguments);
+            case "search_flights" -> flightMcpService.searchFlights(arguments, progress);
+            case "search_fare_calendar" -> flightMcpService.searchFareCalendar(arguments);
+            case "search_itineraries" -> flightMcpService.searchItineraries(arguments);
+            case "search_connections" -> flightMcpService.searchConnections(arguments);
             case "book_flight" -> flightMcpService.bookFlight(arguments);
+            case "hold_seats" -> flightMcpService.holdSeats(arguments);
             case "get_recommendations" -> flightMcpService.getRecommendations(arguments);
             case "get_flight_status" -> flightMcpService.getFlightStatus(arguments);
             default -> throw new IllegalArgumentException("Unknown tool: " + toolName);
@@ -68,7 +91,8 @@ public class FlightMcpController {
                 "capabilities", Map.of(
                         "tools", true,
                         "resources", false,
-                        "prompts", false
+                        "prompts", false,
+                        "experimental", STATUS_SUBSCRIPTIONS
                 ),
                 "serverInfo", Map.of(
                         "name", "Flight MCP Server",
@@ -90,7 +114,8 @@ public class FlightMcpController {
                 "capabilities", Map.of(
                         "tools", true,
                         "resources", false,
-                        "prompts", false
+                        "prompts", false,
+                        "experimental", STATUS_SUBSCRIPTIONS
                 )
         ));
     }
@@ -0,0 +1,42 @@
+package am.hhovhann.travel.ai.mcp.flight.controller;
+
+import am.hhovhann.travel.ai.mcp.flight.service.FlightMcpService;
+import am.hhovhann.travel.ai.mcp.flight.status.FlightStatusWatcher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent event stream of a flight's status, the push alternative to polling {@code get_flight_status}.
+ */
+@RestController
+@RequestMapping("/mcp")
+@CrossOrigin(origins = "*")
+public class FlightStatusStreamController {
+
+    private final FlightMcpService flightMcpService;
+    private final FlightStatusWatcher watcher;
+
+    public FlightStatusStreamController(FlightMcpService flightMcpService, FlightStatusWatcher watcher) {
+        this.flightMcpService = flightMcpService;
+        this.watcher = watcher;
+    }
+
+    @GetMapping(path = "/flight-status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestParam String flightNumber, @RequestParam String airline) {
+        if (!flightMcpService.hasStatusProvider(airline)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(watcher.subscribe(flightNumber, airline));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
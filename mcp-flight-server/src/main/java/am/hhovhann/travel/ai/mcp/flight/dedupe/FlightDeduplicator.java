@@ -0,0 +1,196 @@
+package am.hhovhann.travel.ai.mcp.flight.dedupe;
+
+import am.hhovhann.travel.ai.core.model.FlightOffer;
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+import am.hhovhann.travel.ai.core.util.Prices;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Merges offers for the same physical flight while provider results arrive. A flight is identified by its
+ * operating carrier and flight number (the marketing ones when no codeshare is declared), departure time and
+ * route, hashed to a {@code long} in an open-addressing table. The cheapest offer is kept and the others are
+ * attached to it as {@link FlightResponse#otherOffers()}; prices compare as {@link FlightResponse#normalizedPrice()}
+ * and equal ones go to the provider added first.
+ * <p>
+ * One instance per search, fed by one thread.
+ */
+public final class FlightDeduplicator {
+    private static final long EMPTY = 0;
+    private static final Comparator<Offer> CHEAPEST_FIRST =
+            Comparator.comparingLong(Offer::key).thenComparingLong(Offer::rank);
+
+    private record Offer(FlightResponse flight, long key, long rank) {
+    }
+
+    private static final class Entry {
+        Offer best;
+        List<Offer> others;
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private long[] fingerprints = new long[64];
+    private int[] slots = new int[64];
+    private int fingerprinted;
+    private int merged;
+
+    /**
+     * @param providerRank the provider's position in search order, deciding ties and the order of the result
+     */
+    public void add(int providerRank, List<FlightResponse> flights) {
+        for (int i = 0; i < flights.size(); i++) {
+            add(((long) providerRank << 32) | i, flights.get(i));
+        }
+    }
+
+    private void add(long rank, FlightResponse flight) {
+        long fingerprint = fingerprint(flight);
+        if (fingerprint == EMPTY) {
+            entries.add(entry(new Offer(flight, Prices.minorUnits(flight.normalizedPrice()), rank)));
+            return;
+        }
+        int mask = fingerprints.length - 1;
+        for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+            if (fingerprints[slot] == EMPTY) {
+                fingerprints[slot] = fingerprint;
+                slots[slot] = entries.size();
+                entries.add(entry(new Offer(flight, Prices.minorUnits(flight.normalizedPrice()), rank)));
+                if (++fingerprinted * 2 > fingerprints.length) {
+                    grow();
+                }
+                return;
+            }
+            Entry entry = entries.get(slots[slot]);
+            if (fingerprints[slot] == fingerprint && sameFlight(entry.best.flight(), flight)) {
+                merge(entry, flight, rank);
+                return;
+            }
+        }
+    }
+
+    private void merge(Entry entry, FlightResponse flight, long rank) {
+        merged++;
+        if (entry.others == null) {
+            entry.others = new ArrayList<>(2);
+        }
+        Offer offer = new Offer(flight, Prices.minorUnits(flight.normalizedPrice()), rank);
+        if (CHEAPEST_FIRST.compare(offer, entry.best) < 0) {
+            entry.others.add(entry.best);
+            entry.best = offer;
+        } else {
+            entry.others.add(offer);
+        }
+    }
+
+    /**
+     * The kept flights in provider order, each carrying the offers merged into it.
+     */
+    public List<FlightResponse> flights() {
+        List<Entry> ordered = new ArrayList<>(entries);
+        ordered.sort(Comparator.comparingLong(entry -> entry.best.rank()));
+        List<FlightResponse> flights = new ArrayList<>(ordered.size());
+        for (Entry entry : ordered) {
+            if (entry.others == null) {
+                flights.add(entry.best.flight());
+                continue;
+            }
+            entry.others.sort(CHEAPEST_FIRST);
+            flights.add(entry.best.flight().withOtherOffers(entry.others.stream().map(other -> FlightOffer.of(other.flight())).toList()));
+        }
+        return flights;
+    }
+
+    /**
+     * Number of offers merged into another flight.
+     */
+    public int merged() {
+        return merged;
+    }
+
+    private static Entry entry(Offer offer) {
+        Entry entry = new Entry();
+        entry.best = offer;
+        return entry;
+    }
+
+    private void grow() {
+        long[] oldFingerprints = fingerprints;
+        int[] oldSlots = slots;
+        fingerprints = new long[oldFingerprints.length * 2];
+        slots = new int[oldFingerprints.length * 2];
+        int mask = fingerprints.length - 1;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            if (oldFingerprints[i] != EMPTY) {
+                int slot = (int) oldFingerprints[i] & mask;
+                while (fingerprints[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                fingerprints[slot] = oldFingerprints[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+
+    // EMPTY for flights missing a part of the key; those are never merged
+    private static long fingerprint(FlightResponse flight) {
+        String carrier = carrier(flight);
+        String number = number(flight);
+        LocalDateTime departure = flight.departureTime();
+        if (carrier == null || number == null || departure == null || flight.from() == null || flight.to() == null) {
+            return EMPTY;
+        }
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(hash, carrier);
+        hash = hash(hash, number);
+        hash = hash(hash, flight.from());
+        hash = hash(hash, flight.to());
+        hash = (hash ^ departure.toEpochSecond(ZoneOffset.UTC) / 60) * 0x100000001b3L;
+        // Murmur3 finalizer, so the low bits used for the slot depend on every field
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    // FNV-1a over the upper-cased characters, skipping whitespace, then a separator
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                hash = (hash ^ Character.toUpperCase(c)) * 0x100000001b3L;
+            }
+        }
+        return (hash ^ 0x1f) * 0x100000001b3L;
+    }
+
+    private static boolean sameFlight(FlightResponse a, FlightResponse b) {
+        return normalized(carrier(a)).equals(normalized(carrier(b)))
+                && normalized(number(a)).equals(normalized(number(b)))
+                && a.departureTime().equals(b.departureTime())
+                && normalized(a.from()).equals(normalized(b.from()))
+                && normalized(a.to()).equals(normalized(b.to()));
+    }
+
+    private static String carrier(FlightResponse flight) {
+        return flight.operatingCarrier() != null ? flight.operatingCarrier() : flight.airline();
+    }
+
+    private static String number(FlightResponse flight) {
+        return flight.operatingFlightNumber() != null ? flight.operatingFlightNumber() : flight.flightNumber();
+    }
+
+    private static String normalized(String value) {
+        StringBuilder normalized = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,200 @@
+package am.hhovhann.travel.ai.mcp.flight.fares;
+
+import am.hhovhann.travel.ai.core.fx.FxRates;
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import am.hhovhann.travel.ai.core.util.Prices;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lowest known fare per route, cabin and departure day, for the next {@code flight.fare-calendar.horizon-days}
+ * days. Every search records its cheapest flight, and a loaded schedule records the cheapest leg of each of its
+ * route-days, so asking for a week of fares is a read of seven array slots per route rather than seven
+ * searches. A fare is trusted for {@code flight.fare-calendar.ttl} after it was last seen. Fares are kept in
+ * the {@link FxRates} base currency and converted when recorded.
+ * <p>
+ * A search that heard from every provider replaces the day's fare; one that did not can only lower it or,
+ * seeing the same fare again, renew it.
+ * At most {@code flight.fare-calendar.max-routes} route and cabin pairs are kept.
+ */
+@Component
+public class FareCalendar implements MetricsSource {
+
+    /**
+     * The lowest fare seen for a day, in minor units of {@code currency}, the base currency.
+     */
+    public record DayFare(LocalDate date, long fareMinor, String currency) {
+    }
+
+    private record RouteKey(String from, String to, String cabinClass) {
+    }
+
+    private static final int NO_DAY = -1;
+
+    // One slot per day of the window, indexed by epoch day modulo the horizon
+    private static final class RouteFares {
+        final int[] day;
+        final int[] fareMinor;
+        final int[] observedMinute;
+
+        RouteFares(int horizon) {
+            day = new int[horizon];
+            fareMinor = new int[horizon];
+            observedMinute = new int[horizon];
+            Arrays.fill(day, NO_DAY);
+        }
+    }
+
+    private final int horizonDays;
+    private final int ttlMinutes;
+    private final int maxRoutes;
+    private final FxRates fxRates;
+    private final ConcurrentHashMap<RouteKey, RouteFares> routes = new ConcurrentHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder routesRejected = new LongAdder();
+    private final LongAdder unconvertible = new LongAdder();
+
+    public FareCalendar(@Value("${flight.fare-calendar.horizon-days:180}") int horizonDays,
+                        @Value("${flight.fare-calendar.ttl:1h}") Duration ttl,
+                        @Value("${flight.fare-calendar.max-routes:50000}") int maxRoutes,
+                        FxRates fxRates) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("flight.fare-calendar.horizon-days must be positive: " + horizonDays);
+        }
+        this.horizonDays = horizonDays;
+        this.ttlMinutes = (int) Math.max(1, ttl.toMinutes());
+        this.maxRoutes = maxRoutes;
+        this.fxRates = fxRates;
+    }
+
+    /**
+     * Records the cheapest fare a search found, in minor units of {@code currency}. {@code complete} says whether
+     * every provider answered.
+     */
+    public void record(String from, String to, String cabinClass, LocalDate date, long fareMinor, String currency,
+                       boolean complete) {
+        long epochDay = date.toEpochDay();
+        long today = LocalDate.now().toEpochDay();
+        if (epochDay < today || epochDay >= today + horizonDays || fareMinor < 0) {
+            return;
+        }
+        BigDecimal fare = fxRates.current().toBase(BigDecimal.valueOf(fareMinor, 2), currency);
+        if (fare == null) {
+            unconvertible.increment();
+            return;
+        }
+        long baseMinor = Prices.minorUnits(fare);
+        if (baseMinor > Integer.MAX_VALUE) {
+            return;
+        }
+        RouteFares fares = route(new RouteKey(normalizeAirport(from), normalizeAirport(to), normalizeCabin(cabinClass)));
+        if (fares == null) {
+            return;
+        }
+        int slot = slot(epochDay);
+        int now = nowMinute();
+        synchronized (fares) {
+            boolean known = fares.day[slot] == epochDay && now - fares.observedMinute[slot] < ttlMinutes;
+            if (!complete && known && fares.fareMinor[slot] < baseMinor) {
+                return;
+            }
+            fares.day[slot] = (int) epochDay;
+            fares.fareMinor[slot] = (int) baseMinor;
+            fares.observedMinute[slot] = now;
+        }
+        recorded.increment();
+    }
+
+    /**
+     * The known fares for each day in {@code [first, last]}; {@code null} entries are days with no fare seen
+     * within the TTL.
+     */
+    public DayFare[] lookup(String from, String to, String cabinClass, LocalDate first, LocalDate last) {
+        int days = (int) (last.toEpochDay() - first.toEpochDay() + 1);
+        DayFare[] result = new DayFare[Math.max(0, days)];
+        RouteFares fares = routes.get(new RouteKey(normalizeAirport(from), normalizeAirport(to), normalizeCabin(cabinClass)));
+        if (fares == null) {
+            misses.add(result.length);
+            return result;
+        }
+        int now = nowMinute();
+        String currency = fxRates.current().base();
+        synchronized (fares) {
+            for (int i = 0; i < result.length; i++) {
+                long epochDay = first.toEpochDay() + i;
+                int slot = slot(epochDay);
+                if (fares.day[slot] == epochDay && now - fares.observedMinute[slot] < ttlMinutes) {
+                    result[i] = new DayFare(first.plusDays(i), fares.fareMinor[slot], currency);
+                }
+            }
+        }
+        for (DayFare fare : result) {
+            (fare == null ? misses : hits).increment();
+        }
+        return result;
+    }
+
+    private RouteFares route(RouteKey key) {
+        RouteFares fares = routes.get(key);
+        if (fares != null) {
+            return fares;
+        }
+        if (routes.size() >= maxRoutes) {
+            routesRejected.increment();
+            return null;
+        }
+        return routes.computeIfAbsent(key, k -> new RouteFares(horizonDays));
+    }
+
+    private int slot(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) horizonDays);
+    }
+
+    private static int nowMinute() {
+        return (int) (System.currentTimeMillis() / 60_000);
+    }
+
+    private static String normalizeAirport(String code) {
+        return code == null ? "" : code.trim().toUpperCase();
+    }
+
+    private static String normalizeCabin(String cabinClass) {
+        return cabinClass == null || cabinClass.isBlank() ? "economy" : cabinClass.trim().toLowerCase();
+    }
+
+    public int horizonDays() {
+        return horizonDays;
+    }
+
+    public Duration ttl() {
+        return Duration.ofMinutes(ttlMinutes);
+    }
+
+    @Override
+    public String metricsName() {
+        return "fareCalendar";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "routes", routes.size(),
+                "recorded", recorded.sum(),
+                "dayHits", hits.sum(),
+                "dayMisses", misses.sum(),
+                "routesRejected", routesRejected.sum(),
+                "unconvertible", unconvertible.sum()
+        );
+    }
+}
@@ -0,0 +1,167 @@
+package am.hhovhann.travel.ai.mcp.flight.inventory;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Makes {@code book_flight} safe to retry. The first call with an idempotency key books; every later call with
+ * the same key and arguments within {@code flight.inventory.idempotency-ttl} gets that booking back, including
+ * calls that arrive while the first is still running. Reusing a key with different arguments is an error.
+ * A booking that fails is not remembered, so its key can be retried.
+ * <p>
+ * Keys are held in memory, so a restart forgets them. At most {@code flight.inventory.idempotency-max-entries}
+ * are kept; past that the oldest are forgotten before their TTL.
+ */
+@Component
+public class IdempotentBookings implements MetricsSource {
+
+    private record Entry(String fingerprint, CompletableFuture<Map<String, Object>> booking, long expiresAt) {
+    }
+
+    // One insertion of a key; a key that failed or expired and was taken again is queued once per insertion
+    private record Slot(String key, Entry entry) {
+    }
+
+    // Sorted keys at every level, so equal arguments always serialize the same way
+    private static final ObjectMapper CANONICAL = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entries in insertion order; every entry lives equally long, so the oldest expire first
+    private final ConcurrentLinkedQueue<Slot> order = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public IdempotentBookings(@Value("${flight.inventory.idempotency-ttl:24h}") Duration ttl,
+                              @Value("${flight.inventory.idempotency-max-entries:100000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * SHA-256 of the arguments as JSON with map keys sorted at every level, in hex.
+     */
+    public static String fingerprint(Map<String, Object> arguments) {
+        try {
+            byte[] json = CANONICAL.writeValueAsBytes(arguments);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Booking arguments cannot be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Runs {@code booking} once per {@code key}. {@code fingerprint} identifies the request's arguments, see
+     * {@link #fingerprint(Map)}.
+     */
+    public Map<String, Object> execute(String key, String fingerprint, Supplier<Map<String, Object>> booking) {
+        purgeExpired();
+        while (true) {
+            long now = System.nanoTime();
+            Entry mine = new Entry(fingerprint, new CompletableFuture<>(), now + ttlNanos);
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                order.add(new Slot(key, mine));
+                evictOverflow();
+                return run(key, mine, booking);
+            }
+            if (now - existing.expiresAt() > 0) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.fingerprint().equals(fingerprint)) {
+                conflicts.increment();
+                throw new IllegalArgumentException("Idempotency key " + key + " was already used for a different booking");
+            }
+            try {
+                Map<String, Object> result = existing.booking().join();
+                replayed.increment();
+                return result;
+            } catch (CompletionException | CancellationException e) {
+                // The first attempt failed and gave the key up; try again as the first
+            }
+        }
+    }
+
+    private Map<String, Object> run(String key, Entry entry, Supplier<Map<String, Object>> booking) {
+        try {
+            Map<String, Object> result = booking.get();
+            executed.increment();
+            entry.booking().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.booking().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        Slot oldest;
+        while ((oldest = order.peek()) != null) {
+            // A slot whose entry is no longer mapped is stale and dropped whatever its age
+            if (entries.get(oldest.key()) == oldest.entry() && now - oldest.entry().expiresAt() <= 0) {
+                return;
+            }
+            if (order.remove(oldest)) {
+                entries.remove(oldest.key(), oldest.entry());
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxEntries) {
+            Slot oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            // Only the entry this slot was queued for; a newer entry under the same key has its own slot
+            if (entries.remove(oldest.key(), oldest.entry())) {
+                evicted.increment();
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "bookingIdempotency";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "keys", entries.size(),
+                "executed", executed.sum(),
+                "replayed", replayed.sum(),
+                "conflicts", conflicts.sum(),
+                "evicted", evicted.sum()
+        );
+    }
+}
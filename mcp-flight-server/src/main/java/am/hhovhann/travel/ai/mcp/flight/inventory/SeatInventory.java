@@ -0,0 +1,221 @@
+package am.hhovhann.travel.ai.mcp.flight.inventory;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seats left per flight and cabin. A flight id names one departure, so providers put the date in it. A flight's
+ * count starts at the availability its provider reports the first time it shows up in a search or booking.
+ * From then on, bookings and holds take seats with a compare-and-set loop on that flight's own counter.
+ * Concurrent bookings of one flight therefore never oversell it, bookings of different flights never contend,
+ * and nothing takes a lock.
+ * <p>
+ * A hold takes seats for {@code flight.inventory.hold-ttl}; booking with the hold keeps them, otherwise they go
+ * back to the flight when the hold expires. Flights that departed more than {@code flight.inventory.retention}
+ * ago are forgotten.
+ */
+@Component
+public class SeatInventory implements MetricsSource, AutoCloseable {
+
+    public record Hold(String holdId, String flightId, String cabinClass, int seats, Instant expiresAt) {
+    }
+
+    private record SeatKey(String flightId, String cabinClass) {
+    }
+
+    private record Seats(AtomicInteger available, LocalDateTime departure) {
+    }
+
+    private static final class HoldEntry {
+        final Hold hold;
+        volatile ScheduledFuture<?> expiry;
+
+        HoldEntry(Hold hold) {
+            this.hold = hold;
+        }
+    }
+
+    private final Duration holdTtl;
+    private final Duration retention;
+    private final ConcurrentHashMap<SeatKey, Seats> seats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, HoldEntry> holds = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder soldOut = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+    private final LongAdder holdsExpired = new LongAdder();
+
+    public SeatInventory(@Value("${flight.inventory.hold-ttl:10m}") Duration holdTtl,
+                         @Value("${flight.inventory.retention:1d}") Duration retention,
+                         @Value("${flight.inventory.sweep-interval:1m}") Duration sweepInterval) {
+        this.holdTtl = holdTtl;
+        this.retention = retention;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("seat-inventory").daemon().factory());
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.scheduler.scheduleWithFixedDelay(this::forgetDeparted,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts counting seats of the flights not seen before and returns the flights with the seats actually left.
+     */
+    public List<FlightResponse> track(List<FlightResponse> flights) {
+        List<FlightResponse> tracked = new ArrayList<>(flights.size());
+        for (FlightResponse flight : flights) {
+            tracked.add(track(flight));
+        }
+        return tracked;
+    }
+
+    public FlightResponse track(FlightResponse flight) {
+        if (flight.flightId() == null || flight.availableSeats() == null) {
+            return flight;
+        }
+        SeatKey key = key(flight.flightId(), flight.cabinClass());
+        Seats current = seats.get(key);
+        if (current == null) {
+            current = seats.computeIfAbsent(key,
+                    k -> new Seats(new AtomicInteger(Math.max(0, flight.availableSeats())), flight.departureTime()));
+        }
+        int available = current.available().get();
+        return available == flight.availableSeats() ? flight : flight.withAvailableSeats(available);
+    }
+
+    public OptionalInt available(String flightId, String cabinClass) {
+        Seats current = seats.get(key(flightId, cabinClass));
+        return current == null ? OptionalInt.empty() : OptionalInt.of(current.available().get());
+    }
+
+    /**
+     * Takes {@code count} seats if that many are left. Throws {@link IllegalArgumentException} for a flight
+     * that is not {@link #track tracked}.
+     */
+    public boolean tryReserve(String flightId, String cabinClass, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Seat count must be positive: " + count);
+        }
+        Seats current = seats.get(key(flightId, cabinClass));
+        if (current == null) {
+            throw new IllegalArgumentException("Flight " + flightId + " (" + normalizeCabin(cabinClass)
+                    + ") is not in the seat inventory");
+        }
+        AtomicInteger available = current.available();
+        while (true) {
+            int left = available.get();
+            if (left < count) {
+                soldOut.increment();
+                return false;
+            }
+            if (available.compareAndSet(left, left - count)) {
+                reserved.add(count);
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    public void release(String flightId, String cabinClass, int count) {
+        Seats current = seats.get(key(flightId, cabinClass));
+        if (current != null) {
+            current.available().addAndGet(count);
+            reserved.add(-count);
+        }
+    }
+
+    /**
+     * Takes {@code count} seats until the hold is claimed or expires. Throws {@link IllegalStateException}
+     * when not enough seats are left.
+     */
+    public Hold hold(String flightId, String cabinClass, int count) {
+        String cabin = normalizeCabin(cabinClass);
+        if (!tryReserve(flightId, cabin, count)) {
+            throw new IllegalStateException("Not enough " + cabin + " seats left on " + flightId);
+        }
+        Hold hold = new Hold("HOLD-" + UUID.randomUUID(), flightId, cabin, count, Instant.now().plus(holdTtl));
+        HoldEntry entry = new HoldEntry(hold);
+        // In the map before the expiry is scheduled, so the expiry always finds it
+        holds.put(hold.holdId(), entry);
+        entry.expiry = scheduler.schedule(() -> expire(entry), holdTtl.toMillis(), TimeUnit.MILLISECONDS);
+        return hold;
+    }
+
+    /**
+     * Turns a hold into a booking: the hold ends but its seats stay taken. Empty when the hold expired, was
+     * already claimed or is for another flight or cabin.
+     */
+    public Optional<Hold> claim(String holdId, String flightId, String cabinClass) {
+        HoldEntry entry = holds.get(holdId);
+        if (entry == null || !entry.hold.flightId().equals(flightId)
+                || !entry.hold.cabinClass().equals(normalizeCabin(cabinClass))
+                || !holds.remove(holdId, entry)) {
+            return Optional.empty();
+        }
+        ScheduledFuture<?> expiry = entry.expiry;
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        return Optional.of(entry.hold);
+    }
+
+    private void expire(HoldEntry entry) {
+        Hold hold = entry.hold;
+        if (holds.remove(hold.holdId(), entry)) {
+            release(hold.flightId(), hold.cabinClass(), hold.seats());
+            holdsExpired.increment();
+        }
+    }
+
+    private void forgetDeparted() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        seats.values().removeIf(flight -> flight.departure() != null && flight.departure().isBefore(cutoff));
+    }
+
+    private static SeatKey key(String flightId, String cabinClass) {
+        return new SeatKey(flightId, normalizeCabin(cabinClass));
+    }
+
+    private static String normalizeCabin(String cabinClass) {
+        return cabinClass == null || cabinClass.isBlank() ? "economy" : cabinClass.trim().toLowerCase();
+    }
+
+    @Override
+    public String metricsName() {
+        return "seatInventory";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "trackedFlights", seats.size(),
+                "activeHolds", holds.size(),
+                "seatsReserved", reserved.sum(),
+                "soldOut", soldOut.sum(),
+                "casRetries", casRetries.sum(),
+                "holdsExpired", holdsExpired.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,13 +1,16 @@
 package am.hhovhann.travel.ai.mcp.flight.provider;
 
+import am.hhovhann.travel.ai.core.model.FlightResponse;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 
@@ -20,28 +23,28 @@ public class AeroGoProvider implements FlightProvider {
     }
 
     @Override
-    public List<Map<String, Object>> searchFlights(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
-        List<Map<String, Object>> flights = new ArrayList<>();
+    public List<FlightResponse> searchFlightOffers(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
+        List<FlightResponse> flights = new ArrayList<>();
+        LocalDate date = LocalDate.parse(departureDate);
 
         for (int i = 1; i <= 4; i++) {
-            Map<String, Object> flight = new HashMap<>();
-            flight.put("flightId", "AERO" + i + ":" + from + "-" + to);
-            flight.put("flightNumber", "AG" + (200 + i));
-            flight.put("airline", "AeroGo");
-            flight.put("from", from);
-            flight.put("to", to);
-            flight.put("departureTime", departureDate + "T" + String.format("%02d:30:00", 9 + i * 2));
-            flight.put("arrivalTime", departureDate + "T" + String.format("%02d:45:00", 11 + i * 2));
-            flight.put("price", 275.50 + (i * 45));
-            flight.put("currency", "USD");
-            flight.put("cabinClass", cabinClass);
-            flight.put("availableSeats", 180 - (i * 15));
-            flight.put("amenities", List.of("WiFi", "Power Outlets", "Snacks"));
-            flight.put("duration", "2h 15m");
-            flight.put("stops", i > 2 ? 1 : 0);
-            flight.put("provider", "AeroGo");
-
-            flights.add(flight);
+            flights.add(new FlightResponse(
+                    "AERO" + i + ":" + from + "-" + to + ":" + date,
+                    "AG" + (200 + i),
+                    "AeroGo",
+                    from,
+                    to,
+                    date.atTime(9 + i * 2, 30),
+                    date.atTime(11 + i * 2, 45),
+                    BigDecimal.valueOf(275.50 + (i * 45)),
+                    "USD",
+                    cabinClass,
+                    180 - (i * 15),
+                    List.of("WiFi", "Power Outlets", "Snacks"),
+                    "2h 15m",
+                    i > 2 ? 1 : 0,
+                    "AeroGo"
+            ));
         }
         return flights;
     }
@@ -98,12 +101,17 @@ public class AeroGoProvider implements FlightProvider {
     }
 
     @Override
-    public boolean canHandleFlight(String flightId) {
-        return flightId != null && flightId.startsWith("AERO");
+    public Set<String> flightIdPrefixes() {
+        return Set.of("AERO");
     }
 
     @Override
-    public boolean canHandleAirline(String airline) {
-        return "AeroGo".equalsIgnoreCase(airline) || "AG".equalsIgnoreCase(airline);
+    public Set<String> airlineCodes() {
+        return Set.of("AeroGo", "AG");
+    }
+
+    @Override
+    public String airlineCode(String airline) {
+        return "AG";
     }
 }
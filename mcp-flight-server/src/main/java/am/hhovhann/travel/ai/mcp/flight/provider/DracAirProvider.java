@@ -1,13 +1,16 @@
 package am.hhovhann.travel.ai.mcp.flight.provider;
 
+import am.hhovhann.travel.ai.core.model.FlightResponse;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -19,28 +22,28 @@ public class DracAirProvider implements FlightProvider {
     }
 
     @Override
-    public List<Map<String, Object>> searchFlights(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
-        List<Map<String, Object>> flights = new ArrayList<>();
+    public List<FlightResponse> searchFlightOffers(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
+        List<FlightResponse> flights = new ArrayList<>();
+        LocalDate date = LocalDate.parse(departureDate);
 
         for (int i = 1; i <= 2; i++) {
-            Map<String, Object> flight = new HashMap<>();
-            flight.put("flightId", "DRAC" + i + ":" + from + "-" + to);
-            flight.put("flightNumber", "DR" + (300 + i));
-            flight.put("airline", "DracAir");
-            flight.put("from", from);
-            flight.put("to", to);
-            flight.put("departureTime", departureDate + "T" + String.format("%02d:15:00", 7 + i * 3));
-            flight.put("arrivalTime", departureDate + "T" + String.format("%02d:30:00", 9 + i * 3));
-            flight.put("price", 450.00 + (i * 75));
-            flight.put("currency", "USD");
-            flight.put("cabinClass", cabinClass);
-            flight.put("availableSeats", 120 - (i * 20));
-            flight.put("amenities", List.of("Premium WiFi", "Gourmet Meals", "Luxury Seats", "Priority Boarding"));
-            flight.put("duration", "2h 15m");
-            flight.put("stops", 0);
-            flight.put("provider", "DracAir");
-
-            flights.add(flight);
+            flights.add(new FlightResponse(
+                    "DRAC" + i + ":" + from + "-" + to + ":" + date,
+                    "DR" + (300 + i),
+                    "DracAir",
+                    from,
+                    to,
+                    date.atTime(7 + i * 3, 15),
+                    date.atTime(9 + i * 3, 30),
+                    BigDecimal.valueOf(450.00 + (i * 75)),
+                    "USD",
+                    cabinClass,
+                    120 - (i * 20),
+                    List.of("Premium WiFi", "Gourmet Meals", "Luxury Seats", "Priority Boarding"),
+                    "2h 15m",
+                    0,
+                    "DracAir"
+            ));
         }
         return flights;
     }
@@ -98,12 +101,17 @@ public class DracAirProvider implements FlightProvider {
     }
 
     @Override
-    public boolean canHandleFlight(String flightId) {
-        return flightId != null && flightId.startsWith("DRAC");
+    public Set<String> flightIdPrefixes() {
+        return Set.of("DRAC");
     }
 
     @Override
-    public boolean canHandleAirline(String airline) {
-        return "DracAir".equalsIgnoreCase(airline) || "DR".equalsIgnoreCase(airline);
+    public Set<String> airlineCodes() {
+        return Set.of("DracAir", "DR");
+    }
+
+    @Override
+    public String airlineCode(String airline) {
+        return "DR";
     }
 }
@@ -1,14 +1,112 @@
 package am.hhovhann.travel.ai.mcp.flight.provider;
 
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+import am.hhovhann.travel.ai.mcp.flight.connections.Connection;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public interface FlightProvider {
     String getName();
-    List<Map<String, Object>> searchFlights(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences);
+
+    List<FlightResponse> searchFlightOffers(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences);
+
+    /**
+     * Map-shaped view of {@link #searchFlightOffers}, kept for callers that still expect untyped results.
+     */
+    @Deprecated
+    default List<Map<String, Object>> searchFlights(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
+        return searchFlightOffers(from, to, departureDate, returnDate, passengers, cabinClass, preferences).stream()
+                .map(FlightProvider::toMap)
+                .toList();
+    }
+
+    /**
+     * Journeys with up to {@code maxConnections} connections between its own flights, for providers that know
+     * their whole network. Providers that only answer point-to-point searches return none.
+     */
+    default List<Connection> searchConnections(String from, String to, String departureDate, Integer passengers,
+                                               String cabinClass, int maxConnections) {
+        return List.of();
+    }
+
+    /**
+     * The flight with this id, for booking a flight this instance has not searched, e.g. after a restart. The
+     * default repeats the search that ids of the form {@code <prefix><n>:<from>-<to>:<date>} come from.
+     */
+    default Optional<FlightResponse> findFlight(String flightId, String cabinClass) {
+        String[] parts = flightId == null ? new String[0] : flightId.split(":");
+        if (parts.length != 3 || !canHandleFlight(flightId)) {
+            return Optional.empty();
+        }
+        int dash = parts[1].indexOf('-');
+        if (dash < 0) {
+            return Optional.empty();
+        }
+        try {
+            LocalDate.parse(parts[2]);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+        return searchFlightOffers(parts[1].substring(0, dash), parts[1].substring(dash + 1), parts[2], null, 1, cabinClass, "")
+                .stream()
+                .filter(flight -> flightId.equals(flight.flightId()))
+                .findFirst();
+    }
+
     Map<String, Object> bookFlight(String flightId, Map<String, Object> passengerDetails);
     List<Map<String, Object>> getRecommendations(String destination, String preferences);
     Map<String, Object> getFlightStatus(String flightNumber, String airline);
-    boolean canHandleFlight(String flightId);
-    boolean canHandleAirline(String airline);
+
+    /**
+     * Prefixes of the flight ids this provider issues. Bookings are routed by these at startup, so no two
+     * providers may declare the same prefix or one starting another's.
+     */
+    Set<String> flightIdPrefixes();
+
+    /**
+     * Airline names and codes this provider reports status for, matched ignoring case.
+     */
+    Set<String> airlineCodes();
+
+    /**
+     * The code of the airline that {@code airline}, one of {@link #airlineCodes()}, names, so an airline's name
+     * and code map to the same value. The default takes every entry to be a code of its own.
+     */
+    default String airlineCode(String airline) {
+        return airline.trim().toUpperCase();
+    }
+
+    default boolean canHandleFlight(String flightId) {
+        return flightId != null && flightIdPrefixes().stream().anyMatch(flightId::startsWith);
+    }
+
+    default boolean canHandleAirline(String airline) {
+        return airline != null && airlineCodes().stream().anyMatch(airline::equalsIgnoreCase);
+    }
+
+    private static Map<String, Object> toMap(FlightResponse flight) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("flightId", flight.flightId());
+        map.put("flightNumber", flight.flightNumber());
+        map.put("airline", flight.airline());
+        map.put("from", flight.from());
+        map.put("to", flight.to());
+        map.put("departureTime", flight.departureTime());
+        map.put("arrivalTime", flight.arrivalTime());
+        map.put("price", flight.price());
+        map.put("currency", flight.currency());
+        map.put("cabinClass", flight.cabinClass());
+        map.put("availableSeats", flight.availableSeats());
+        map.put("amenities", flight.amenities());
+        map.put("duration", flight.duration());
+        map.put("stops", flight.stops());
+        map.put("provider", flight.provider());
+        return map;
+    }
 }
@@ -1,13 +1,16 @@
 package am.hhovhann.travel.ai.mcp.flight.provider;
 
+import am.hhovhann.travel.ai.core.model.FlightResponse;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -19,30 +22,30 @@ public class JoyairProvider implements FlightProvider {
     }
 
     @Override
-    public List<Map<String, Object>> searchFlights(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
+    public List<FlightResponse> searchFlightOffers(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
         // Mock implementation - in real scenario, this would call Joyair API
-        List<Map<String, Object>> flights = new ArrayList<>();
+        List<FlightResponse> flights = new ArrayList<>();
+        LocalDate date = LocalDate.parse(departureDate);
 
         // Generate mock flight data
         for (int i = 1; i <= 3; i++) {
-            Map<String, Object> flight = new HashMap<>();
-            flight.put("flightId", "JOY" + i + ":" + from + "-" + to);
-            flight.put("flightNumber", "JY" + (100 + i));
-            flight.put("airline", "Joyair");
-            flight.put("from", from);
-            flight.put("to", to);
-            flight.put("departureTime", departureDate + "T" + String.format("%02d:00:00", 8 + i * 2));
-            flight.put("arrivalTime", departureDate + "T" + String.format("%02d:00:00", 10 + i * 2));
-            flight.put("price", 299.99 + (i * 50));
-            flight.put("currency", "USD");
-            flight.put("cabinClass", cabinClass);
-            flight.put("availableSeats", 150 - (i * 10));
-            flight.put("amenities", List.of("WiFi", "Entertainment", "Meals"));
-            flight.put("duration", "2h 30m");
-            flight.put("stops", 0);
-            flight.put("provider", "Joyair");
-
-            flights.add(flight);
+            flights.add(new FlightResponse(
+                    "JOY" + i + ":" + from + "-" + to + ":" + date,
+                    "JY" + (100 + i),
+                    "Joyair",
+                    from,
+                    to,
+                    date.atTime(8 + i * 2, 0),
+                    date.atTime(10 + i * 2, 0),
+                    BigDecimal.valueOf(299.99 + (i * 50)),
+                    "USD",
+                    cabinClass,
+                    150 - (i * 10),
+                    List.of("WiFi", "Entertainment", "Meals"),
+                    "2h 30m",
+                    0,
+                    "Joyair"
+            ));
         }
         return flights;
     }
@@ -99,12 +102,17 @@ public class JoyairProvider implements FlightProvider {
     }
 
     @Override
-    public boolean canHandleFlight(String flightId) {
-        return flightId != null && flightId.startsWith("JOY");
+    public Set<String> flightIdPrefixes() {
+        return Set.of("JOY");
     }
 
     @Override
-    public boolean canHandleAirline(String airline) {
-        return "Joyair".equalsIgnoreCase(airline) || "JY".equalsIgnoreCase(airline);
+    public Set<String> airlineCodes() {
+        return Set.of("Joyair", "JY");
+    }
+
+    @Override
+    public String airlineCode(String airline) {
+        return "JY";
     }
 }
@@ -0,0 +1,400 @@
+package am.hhovhann.travel.ai.mcp.flight.provider;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+import am.hhovhann.travel.ai.mcp.flight.connections.Connection;
+import am.hhovhann.travel.ai.mcp.flight.connections.ConnectionBuilder;
+import am.hhovhann.travel.ai.mcp.flight.connections.LegNetwork;
+import am.hhovhann.travel.ai.mcp.flight.fares.FareCalendar;
+import am.hhovhann.travel.ai.mcp.flight.schedule.ScheduleFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves flights from a memory-mapped {@link ScheduleFile}, enabled by setting {@code flight.schedule.file}.
+ * A search is one index lookup plus a read of the matching legs' columns; only the returned flights are
+ * materialized. Flight ids are {@code SCHED<leg>:<from>-<to>}, where {@code leg} is the row in the file.
+ * <p>
+ * On load, and again every half of the fare calendar's TTL so the entries never lapse, the cheapest economy
+ * leg of every route-day within the calendar's horizon goes into the {@link FareCalendar}.
+ * <p>
+ * Connections are built by a {@link ConnectionBuilder} over the legs of the departure day and the next; the
+ * networks of the last {@code flight.connections.cached-days} days asked for are kept. A connection needs
+ * {@code flight.connections.min-connection}, or the airport's entry in
+ * {@code flight.connections.airport-min-connection} ({@code CODE=duration}), plus
+ * {@code flight.connections.interline} between different carriers, and may take at most
+ * {@code flight.connections.max-connection}.
+ */
+@Component
+@ConditionalOnProperty(name = "flight.schedule.file")
+public class ScheduleFileFlightProvider implements FlightProvider, MetricsSource, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleFileFlightProvider.class);
+    private static final String ID_PREFIX = "SCHED";
+
+    private final ScheduleFile schedule;
+    private final String name;
+    private final Set<String> carrierCodes;
+    private final int[] minConnectionMinutes;
+    private final int interlineMinutes;
+    private final int maxConnectionMinutes;
+    // Guarded by itself; a network is built outside the lock and waited for through its future
+    private final Map<Integer, CompletableFuture<LegNetwork>> networks;
+    private final FareCalendar fareCalendar;
+    private final ScheduledExecutorService fareSeeder;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder legsRead = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder connectionSearches = new LongAdder();
+    private final LongAdder connectionNanos = new LongAdder();
+    private final LongAdder networksBuilt = new LongAdder();
+
+    public ScheduleFileFlightProvider(@Value("${flight.schedule.file}") Path file,
+                                      @Value("${flight.schedule.name:Schedule}") String name,
+                                      FareCalendar fareCalendar,
+                                      @Value("${flight.connections.min-connection:45m}") Duration minConnection,
+                                      @Value("${flight.connections.airport-min-connection:}") List<String> airportMinConnection,
+                                      @Value("${flight.connections.interline:30m}") Duration interline,
+                                      @Value("${flight.connections.max-connection:6h}") Duration maxConnection,
+                                      @Value("${flight.connections.cached-days:3}") int cachedDays) {
+        long start = System.nanoTime();
+        try {
+            this.schedule = ScheduleFile.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open flight schedule " + file, e);
+        }
+        this.name = name;
+        Set<String> carrierCodes = new HashSet<>();
+        for (int i = 0; i < schedule.carrierCount(); i++) {
+            carrierCodes.add(schedule.carrierCode(i));
+        }
+        this.carrierCodes = Set.copyOf(carrierCodes);
+        this.minConnectionMinutes = minConnectionMinutes(minConnection, airportMinConnection);
+        this.interlineMinutes = (int) interline.toMinutes();
+        this.maxConnectionMinutes = (int) maxConnection.toMinutes();
+        this.networks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<LegNetwork>> eldest) {
+                return size() > cachedDays;
+            }
+        };
+        LOGGER.info("Loaded flight schedule {}: {} legs, {} route-days, {} airports in {} ms", file,
+                schedule.legCount(), schedule.routeDayCount(), schedule.airportCount(), (System.nanoTime() - start) / 1_000_000);
+        this.fareCalendar = fareCalendar;
+        recordFares();
+        long seedMillis = fareCalendar.ttl().toMillis() / 2;
+        this.fareSeeder = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("schedule-fare-seed").daemon().factory());
+        fareSeeder.scheduleWithFixedDelay(() -> {
+            try {
+                recordFares();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to record schedule fares", e);
+            }
+        }, seedMillis, seedMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void recordFares() {
+        long today = LocalDate.now().toEpochDay();
+        int recorded = 0;
+        for (int slot = 0; slot < schedule.routeDayCount(); slot++) {
+            int first = schedule.firstLeg(slot);
+            int day = schedule.day(first);
+            if (day < today || day >= today + fareCalendar.horizonDays()) {
+                continue;
+            }
+            long cheapest = Long.MAX_VALUE;
+            for (int leg = first; leg < schedule.endLeg(slot); leg++) {
+                cheapest = Math.min(cheapest, schedule.fareMinor(leg));
+            }
+            // Only this provider's fares, so they can lower what searches found but not replace it
+            fareCalendar.record(schedule.airport(schedule.origin(first)), schedule.airport(schedule.destination(first)),
+                    "economy", LocalDate.ofEpochDay(day), cheapest, "USD", false);
+            recorded++;
+        }
+        LOGGER.info("Recorded {} route-day fares from {} in the fare calendar", recorded, schedule.path());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public List<FlightResponse> searchFlightOffers(String from, String to, String departureDate, String returnDate, Integer passengers, String cabinClass, String preferences) {
+        long start = System.nanoTime();
+        int slot = schedule.find(schedule.airportIndex(from), schedule.airportIndex(to),
+                (int) LocalDate.parse(departureDate).toEpochDay());
+        if (slot < 0) {
+            record(start, 0);
+            return List.of();
+        }
+
+        int seatsNeeded = passengers == null ? 1 : passengers;
+        double fareMultiplier = fareMultiplier(cabinClass);
+        List<FlightResponse> flights = new ArrayList<>(schedule.endLeg(slot) - schedule.firstLeg(slot));
+        for (int leg = schedule.firstLeg(slot); leg < schedule.endLeg(slot); leg++) {
+            if (schedule.seats(leg) >= seatsNeeded) {
+                flights.add(toFlight(leg, cabinClass, fareMultiplier));
+            }
+        }
+        record(start, schedule.endLeg(slot) - schedule.firstLeg(slot));
+        return flights;
+    }
+
+    @Override
+    public List<Connection> searchConnections(String from, String to, String departureDate, Integer passengers,
+                                              String cabinClass, int maxConnections) {
+        int origin = schedule.airportIndex(from);
+        int destination = schedule.airportIndex(to);
+        if (origin < 0 || destination < 0) {
+            return List.of();
+        }
+        LegNetwork network = network((int) LocalDate.parse(departureDate).toEpochDay());
+        long start = System.nanoTime();
+        List<ConnectionBuilder.Journey> journeys = new ConnectionBuilder(network, minConnectionMinutes, interlineMinutes,
+                maxConnectionMinutes).search(origin, destination, maxConnections, passengers == null ? 1 : passengers);
+        connectionSearches.increment();
+        connectionNanos.add(System.nanoTime() - start);
+
+        double fareMultiplier = fareMultiplier(cabinClass);
+        List<Connection> connections = new ArrayList<>(journeys.size());
+        for (ConnectionBuilder.Journey journey : journeys) {
+            List<FlightResponse> flights = new ArrayList<>(journey.rows().length);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int leg : journey.rows()) {
+                FlightResponse flight = toFlight(leg, cabinClass, fareMultiplier);
+                flights.add(flight);
+                total = total.add(flight.price());
+            }
+            connections.add(new Connection(flights, total, "USD", journey.durationMinutes(), journey.stops()));
+        }
+        return connections;
+    }
+
+    // Searches for other days never wait on a build; searches for the same day wait for the one build
+    private LegNetwork network(int day) {
+        CompletableFuture<LegNetwork> created = new CompletableFuture<>();
+        CompletableFuture<LegNetwork> network;
+        synchronized (networks) {
+            network = networks.computeIfAbsent(day, key -> created);
+        }
+        if (network == created) {
+            try {
+                long start = System.nanoTime();
+                LegNetwork built = LegNetwork.build(schedule, day);
+                networksBuilt.increment();
+                LOGGER.debug("Built connection network for {}: {} legs in {} ms", LocalDate.ofEpochDay(day),
+                        built.legCount(), (System.nanoTime() - start) / 1_000_000);
+                created.complete(built);
+                return built;
+            } catch (RuntimeException e) {
+                synchronized (networks) {
+                    networks.remove(day, created);
+                }
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return network.join();
+    }
+
+    private int[] minConnectionMinutes(Duration defaultMinConnection, List<String> overrides) {
+        int[] minutes = new int[schedule.airportCount()];
+        Arrays.fill(minutes, (int) defaultMinConnection.toMinutes());
+        for (String entry : overrides) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected AIRPORT=duration in flight.connections.airport-min-connection but got: " + entry);
+            }
+            int airport = schedule.airportIndex(entry.substring(0, separator).trim());
+            if (airport >= 0) {
+                minutes[airport] = (int) DurationStyle.detectAndParse(entry.substring(separator + 1).trim()).toMinutes();
+            }
+        }
+        return minutes;
+    }
+
+    private FlightResponse toFlight(int leg, String cabinClass, double fareMultiplier) {
+        String from = schedule.airport(schedule.origin(leg));
+        String to = schedule.airport(schedule.destination(leg));
+        String carrier = schedule.carrierCode(schedule.carrier(leg));
+        int durationMinutes = schedule.durationMinutes(leg);
+        LocalDateTime departure = LocalDate.ofEpochDay(schedule.day(leg)).atStartOfDay()
+                .plusMinutes(schedule.departureMinute(leg));
+        long fareMinor = Math.round(schedule.fareMinor(leg) * fareMultiplier);
+
+        return new FlightResponse(
+                ID_PREFIX + leg + ":" + from + "-" + to,
+                carrier + schedule.flightNumber(leg),
+                carrier,
+                from,
+                to,
+                departure,
+                departure.plusMinutes(durationMinutes),
+                BigDecimal.valueOf(fareMinor, 2),
+                "USD",
+                cabinClass,
+                schedule.seats(leg),
+                List.of(),
+                durationMinutes / 60 + "h " + durationMinutes % 60 + "m",
+                schedule.stops(leg),
+                name
+        );
+    }
+
+    private static double fareMultiplier(String cabinClass) {
+        if (cabinClass == null) {
+            return 1.0;
+        }
+        return switch (cabinClass.toLowerCase()) {
+            case "premium_economy", "premium" -> 1.6;
+            case "business" -> 3.0;
+            case "first" -> 5.0;
+            default -> 1.0;
+        };
+    }
+
+    private void record(long start, int legs) {
+        searches.increment();
+        legsRead.add(legs);
+        searchNanos.add(System.nanoTime() - start);
+    }
+
+    @Override
+    public Optional<FlightResponse> findFlight(String flightId, String cabinClass) {
+        int leg = legOf(flightId);
+        return leg < 0 ? Optional.empty() : Optional.of(toFlight(leg, cabinClass, fareMultiplier(cabinClass)));
+    }
+
+    @Override
+    public Map<String, Object> bookFlight(String flightId, Map<String, Object> passengerDetails) {
+        int leg = legOf(flightId);
+        if (leg < 0) {
+            throw new RuntimeException("Cannot handle flight: " + flightId);
+        }
+
+        String carrier = schedule.carrierCode(schedule.carrier(leg));
+        return Map.of(
+                "bookingId", ID_PREFIX + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase(),
+                "flightId", flightId,
+                "status", "confirmed",
+                "passengerDetails", passengerDetails,
+                "confirmationNumber", carrier + System.currentTimeMillis() % 10000,
+                "provider", name
+        );
+    }
+
+    @Override
+    public List<Map<String, Object>> getRecommendations(String destination, String preferences) {
+        // A schedule has no popularity or seasonality data to recommend from
+        return List.of();
+    }
+
+    @Override
+    public Map<String, Object> getFlightStatus(String flightNumber, String airline) {
+        if (!canHandleAirline(airline)) {
+            return Map.of("status", "unknown");
+        }
+
+        return Map.of(
+                "flightNumber", flightNumber,
+                "airline", airline,
+                "status", "Scheduled",
+                "provider", name
+        );
+    }
+
+    @Override
+    public Set<String> flightIdPrefixes() {
+        return Set.of(ID_PREFIX);
+    }
+
+    @Override
+    public Set<String> airlineCodes() {
+        return carrierCodes;
+    }
+
+    @Override
+    public boolean canHandleFlight(String flightId) {
+        return legOf(flightId) >= 0;
+    }
+
+    @Override
+    public boolean canHandleAirline(String airline) {
+        return schedule.carrierIndex(airline) >= 0;
+    }
+
+    private int legOf(String flightId) {
+        if (flightId == null || !flightId.startsWith(ID_PREFIX)) {
+            return -1;
+        }
+        int end = flightId.indexOf(':');
+        try {
+            int leg = Integer.parseInt(flightId, ID_PREFIX.length(), end < 0 ? flightId.length() : end, 10);
+            return leg < schedule.legCount() ? leg : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "flightSchedule";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long searchCount = searches.sum();
+        long connectionCount = connectionSearches.sum();
+        return Map.ofEntries(
+                Map.entry("file", schedule.path().toString()),
+                Map.entry("legs", schedule.legCount()),
+                Map.entry("routeDays", schedule.routeDayCount()),
+                Map.entry("airports", schedule.airportCount()),
+                Map.entry("carriers", schedule.carrierCount()),
+                Map.entry("mappedBytes", schedule.sizeBytes()),
+                Map.entry("searches", searchCount),
+                Map.entry("legsRead", legsRead.sum()),
+                Map.entry("averageSearchMicros", searchCount == 0 ? 0.0 : searchNanos.sum() / 1_000.0 / searchCount),
+                Map.entry("connectionSearches", connectionCount),
+                Map.entry("averageConnectionSearchMicros",
+                        connectionCount == 0 ? 0.0 : connectionNanos.sum() / 1_000.0 / connectionCount),
+                Map.entry("connectionNetworksBuilt", networksBuilt.sum())
+        );
+    }
+
+    @Override
+    public void close() {
+        fareSeeder.shutdownNow();
+    }
+}
@@ -0,0 +1,269 @@
+package am.hhovhann.travel.ai.mcp.flight.schedule;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only, memory-mapped airline schedule: one row per flight leg, stored column by column so a search
+ * only touches the columns it reads and no per-leg object is ever created.
+ * <p>
+ * Legs must be sorted by (origin, destination, day). Opening the file scans the three key columns once to
+ * build a sorted array of distinct {@code (origin, destination, day)} keys with the index of each key's first
+ * leg; finding the legs of a route on a date is then one binary search over primitive arrays.
+ *
+ * <pre>
+ * file    := header airports carriers pad columns
+ * header  := magic:int version:int legCount:int airportCount:int carrierCount:int (reserved to 32 bytes)
+ * airports:= airportCount x 3 ASCII bytes     carriers := carrierCount x 2 ASCII bytes
+ * columns := origin:short[] destination:short[] day:int[] departureMinute:short[] durationMinutes:short[]
+ *            carrier:short[] flightNumber:short[] fareMinor:int[] seats:short[] stops:byte[]
+ * </pre>
+ * Every column starts on an 8-byte boundary; all values are little-endian. {@code day} is the epoch day,
+ * {@code fareMinor} the economy fare in cents.
+ */
+public final class ScheduleFile {
+    static final int MAGIC = 0x44484353; // "SCHD"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int MAX_AIRPORTS = Short.MAX_VALUE;
+    static final int MAX_CARRIERS = Short.MAX_VALUE;
+
+    /**
+     * Byte offsets of the sections of a file with the given counts, shared by the reader and the generator.
+     */
+    record Layout(int legCount, int airportCount, int carrierCount) {
+        static final int BYTES_PER_LEG = 2 + 2 + 4 + 2 + 2 + 2 + 2 + 4 + 2 + 1;
+
+        Layout {
+            if (legCount < 0 || airportCount < 0 || airportCount > MAX_AIRPORTS
+                    || carrierCount < 0 || carrierCount > MAX_CARRIERS) {
+                throw new IllegalArgumentException("Invalid schedule dimensions: legs=" + legCount
+                        + ", airports=" + airportCount + ", carriers=" + carrierCount);
+            }
+            if (totalBytes() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Schedule of " + legCount + " legs exceeds the 2 GiB mapping limit");
+            }
+        }
+
+        long airports() { return HEADER_BYTES; }
+        long carriers() { return airports() + 3L * airportCount; }
+        long origin() { return align(carriers() + 2L * carrierCount); }
+        long destination() { return align(origin() + 2L * legCount); }
+        long day() { return align(destination() + 2L * legCount); }
+        long departureMinute() { return align(day() + 4L * legCount); }
+        long durationMinutes() { return align(departureMinute() + 2L * legCount); }
+        long carrier() { return align(durationMinutes() + 2L * legCount); }
+        long flightNumber() { return align(carrier() + 2L * legCount); }
+        long fareMinor() { return align(flightNumber() + 2L * legCount); }
+        long seats() { return align(fareMinor() + 4L * legCount); }
+        long stops() { return align(seats() + 2L * legCount); }
+        long totalBytes() { return stops() + legCount; }
+
+        private static long align(long offset) {
+            return (offset + 7) & ~7L;
+        }
+    }
+
+    private final Path path;
+    private final long sizeBytes;
+    private final String[] airports;
+    private final String[] carriers;
+    private final Map<String, Integer> airportIndexes;
+    private final Map<String, Integer> carrierIndexes;
+
+    private final ShortBuffer origin;
+    private final ShortBuffer destination;
+    private final IntBuffer day;
+    private final ShortBuffer departureMinute;
+    private final ShortBuffer durationMinutes;
+    private final ShortBuffer carrier;
+    private final ShortBuffer flightNumber;
+    private final IntBuffer fareMinor;
+    private final ShortBuffer seats;
+    private final ByteBuffer stops;
+
+    // keys[k] is the k-th distinct (origin, destination, day); its legs are firstLeg[k] until firstLeg[k + 1]
+    private final long[] keys;
+    private final int[] firstLeg;
+
+    private ScheduleFile(Path path, MappedByteBuffer mapped) {
+        this.path = path;
+        this.sizeBytes = mapped.capacity();
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (sizeBytes < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a schedule file: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Unsupported schedule file version " + buffer.getInt(4) + ": " + path);
+        }
+        Layout layout = new Layout(buffer.getInt(8), buffer.getInt(12), buffer.getInt(16));
+        if (layout.totalBytes() > sizeBytes) {
+            throw new IllegalStateException("Schedule file is truncated: " + path);
+        }
+        int legCount = layout.legCount();
+
+        this.airports = readCodes(buffer, layout.airports(), layout.airportCount(), 3);
+        this.carriers = readCodes(buffer, layout.carriers(), layout.carrierCount(), 2);
+        this.airportIndexes = indexOf(airports);
+        this.carrierIndexes = indexOf(carriers);
+
+        this.origin = slice(buffer, layout.origin(), 2L * legCount).asShortBuffer();
+        this.destination = slice(buffer, layout.destination(), 2L * legCount).asShortBuffer();
+        this.day = slice(buffer, layout.day(), 4L * legCount).asIntBuffer();
+        this.departureMinute = slice(buffer, layout.departureMinute(), 2L * legCount).asShortBuffer();
+        this.durationMinutes = slice(buffer, layout.durationMinutes(), 2L * legCount).asShortBuffer();
+        this.carrier = slice(buffer, layout.carrier(), 2L * legCount).asShortBuffer();
+        this.flightNumber = slice(buffer, layout.flightNumber(), 2L * legCount).asShortBuffer();
+        this.fareMinor = slice(buffer, layout.fareMinor(), 4L * legCount).asIntBuffer();
+        this.seats = slice(buffer, layout.seats(), 2L * legCount).asShortBuffer();
+        this.stops = slice(buffer, layout.stops(), legCount);
+
+        long[] keys = new long[Math.max(16, legCount / 4)];
+        int[] firstLeg = new int[keys.length + 1];
+        int keyCount = 0;
+        long previous = -1;
+        for (int leg = 0; leg < legCount; leg++) {
+            long key = key(origin.get(leg), destination.get(leg), day.get(leg));
+            if (key == previous) {
+                continue;
+            }
+            if (key < previous) {
+                throw new IllegalStateException("Schedule file is not sorted by origin, destination and day at leg "
+                        + leg + ": " + path);
+            }
+            if (keyCount == keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                firstLeg = Arrays.copyOf(firstLeg, keys.length + 1);
+            }
+            keys[keyCount] = key;
+            firstLeg[keyCount++] = leg;
+            previous = key;
+        }
+        this.keys = Arrays.copyOf(keys, keyCount);
+        this.firstLeg = Arrays.copyOf(firstLeg, keyCount + 1);
+        this.firstLeg[keyCount] = legCount;
+    }
+
+    public static ScheduleFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Schedule file exceeds the 2 GiB mapping limit: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new ScheduleFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    static long key(int origin, int destination, int day) {
+        return ((long) origin << 48) | ((long) destination << 32) | (day & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the slot of the legs from {@code origin} to {@code destination} on {@code day}, or -1 if
+     * there are none. The legs are {@link #firstLeg(int)} inclusive to {@link #endLeg(int)} exclusive.
+     */
+    public int find(int origin, int destination, int day) {
+        if (origin < 0 || destination < 0) {
+            return -1;
+        }
+        int slot = Arrays.binarySearch(keys, key(origin, destination, day));
+        return slot >= 0 ? slot : -1;
+    }
+
+    public int firstLeg(int slot) {
+        return firstLeg[slot];
+    }
+
+    public int endLeg(int slot) {
+        return firstLeg[slot + 1];
+    }
+
+    public int airportIndex(String code) {
+        return code == null ? -1 : airportIndexes.getOrDefault(code.toUpperCase(), -1);
+    }
+
+    public int carrierIndex(String code) {
+        return code == null ? -1 : carrierIndexes.getOrDefault(code.toUpperCase(), -1);
+    }
+
+    public String airport(int index) {
+        return airports[index];
+    }
+
+    public String carrierCode(int index) {
+        return carriers[index];
+    }
+
+    public int origin(int leg) { return origin.get(leg); }
+    public int destination(int leg) { return destination.get(leg); }
+    public int day(int leg) { return day.get(leg); }
+    public int departureMinute(int leg) { return departureMinute.get(leg); }
+    public int durationMinutes(int leg) { return durationMinutes.get(leg); }
+    public int carrier(int leg) { return carrier.get(leg); }
+    public int flightNumber(int leg) { return flightNumber.get(leg) & 0xFFFF; }
+    public long fareMinor(int leg) { return fareMinor.get(leg) & 0xFFFFFFFFL; }
+    public int seats(int leg) { return seats.get(leg) & 0xFFFF; }
+    public int stops(int leg) { return stops.get(leg); }
+
+    public int legCount() {
+        return firstLeg[keys.length];
+    }
+
+    /**
+     * Distinct (origin, destination, day) combinations in the file.
+     */
+    public int routeDayCount() {
+        return keys.length;
+    }
+
+    public int airportCount() {
+        return airports.length;
+    }
+
+    public int carrierCount() {
+        return carriers.length;
+    }
+
+    public long sizeBytes() {
+        return sizeBytes;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, long length) {
+        return buffer.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String[] readCodes(ByteBuffer buffer, long offset, int count, int width) {
+        String[] codes = new String[count];
+        byte[] code = new byte[width];
+        for (int i = 0; i < count; i++) {
+            buffer.get((int) offset + i * width, code);
+            codes[i] = new String(code, StandardCharsets.US_ASCII);
+        }
+        return codes;
+    }
+
+    private static Map<String, Integer> indexOf(String[] codes) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < codes.length; i++) {
+            indexes.putIfAbsent(codes[i], i);
+        }
+        return Map.copyOf(indexes);
+    }
+}
@@ -1,23 +1,210 @@
 package am.hhovhann.travel.ai.mcp.flight.service;
 
+import am.hhovhann.travel.ai.core.concurrent.DeadlineFanOut;
+import am.hhovhann.travel.ai.core.fx.FxRates;
+import am.hhovhann.travel.ai.core.mcp.server.McpProgress;
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+import am.hhovhann.travel.ai.core.search.SearchSnapshot;
+import am.hhovhann.travel.ai.core.search.SearchSnapshots;
+import am.hhovhann.travel.ai.core.util.KBestJoin;
+import am.hhovhann.travel.ai.core.util.PrefixRouter;
+import am.hhovhann.travel.ai.core.util.Prices;
+import am.hhovhann.travel.ai.mcp.flight.connections.Connection;
+import am.hhovhann.travel.ai.mcp.flight.connections.ConnectionBuilder;
+import am.hhovhann.travel.ai.mcp.flight.dedupe.FlightDeduplicator;
+import am.hhovhann.travel.ai.mcp.flight.fares.FareCalendar;
+import am.hhovhann.travel.ai.mcp.flight.inventory.IdempotentBookings;
+import am.hhovhann.travel.ai.mcp.flight.inventory.SeatInventory;
 import am.hhovhann.travel.ai.mcp.flight.provider.FlightProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 @Service
 public class FlightMcpService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightMcpService.class);
+    private static final Comparator<FlightResponse> BY_PRICE =
+            Comparator.comparingLong(flight -> Prices.minorUnits(flight.normalizedPrice()));
 
     private final List<FlightProvider> flightProviders;
+    private final DeadlineFanOut fanOut;
+    private final String searchMode;
+    private final Duration searchDeadline;
+    private final Duration providerTimeout;
+    private final Map<String, Duration> providerTimeouts;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final SearchSnapshots snapshots;
+    private final SeatInventory inventory;
+    private final IdempotentBookings idempotentBookings;
+    private final FareCalendar fareCalendar;
+    private final FxRates fxRates;
+    private final int maxFareCalendarDays;
+    private final int maxItineraryLegs;
+    private final int itineraryCandidates;
+    private final int maxItineraries;
+    private final int itineraryMaxExplored;
+    private final Duration minConnection;
+    private final int maxConnections;
+    private final PrefixRouter<FlightProvider> flightRoutes;
+    private final PrefixRouter<FlightProvider> airlineRoutes;
 
+    /**
+     * {@code flight.search.mode} is {@code sequential} (default) or {@code parallel}. In parallel mode every
+     * provider is queried at once; a provider gets {@code flight.search.provider-timeout} unless
+     * {@code flight.search.provider-timeouts} lists its own ({@code Name=duration}), and the search as a whole
+     * returns after at most {@code flight.search.deadline} with whatever arrived in time.
+     * <p>
+     * Flights are ranked by their price converted with {@link FxRates}; flights in a currency it has no rate for
+     * come last.
+     * <p>
+     * Pages hold {@code flight.search.default-limit} flights unless the {@code limit} argument asks for another
+     * size, capped at {@code flight.search.max-limit}.
+     * <p>
+     * Every search records its cheapest flight in the {@link FareCalendar}; {@code search_fare_calendar}
+     * covers at most {@code flight.fare-calendar.max-days} days either side of its date.
+     * <p>
+     * {@code search_itineraries} joins the {@code flight.itinerary.candidates-per-leg} cheapest flights of
+     * each of at most {@code flight.itinerary.max-legs} legs, looking at no more than
+     * {@code flight.itinerary.max-explored} combinations for at most {@code flight.itinerary.max-results}
+     * itineraries. A flight must leave at least {@code flight.itinerary.min-connection} after the previous
+     * one lands.
+     * <p>
+     * {@code search_connections} builds journeys of up to {@code flight.connections.max-stops} connections
+     * from the providers that know their whole network.
+     */
     @Autowired
-    public FlightMcpService(List<FlightProvider> flightProviders) {
+    public FlightMcpService(List<FlightProvider> flightProviders,
+                            DeadlineFanOut fanOut,
+                            @Value("${flight.search.mode:sequential}") String searchMode,
+                            @Value("${flight.search.deadline:5s}") Duration searchDeadline,
+                            @Value("${flight.search.provider-timeout:3s}") Duration providerTimeout,
+                            @Value("${flight.search.provider-timeouts:}") List<String> providerTimeouts,
+                            @Value("${flight.search.default-limit:20}") int defaultLimit,
+                            @Value("${flight.search.max-limit:100}") int maxLimit,
+                            SearchSnapshots snapshots,
+                            SeatInventory inventory,
+                            IdempotentBookings idempotentBookings,
+                            FareCalendar fareCalendar,
+                            FxRates fxRates,
+                            @Value("${flight.fare-calendar.max-days:7}") int maxFareCalendarDays,
+                            @Value("${flight.itinerary.max-legs:6}") int maxItineraryLegs,
+                            @Value("${flight.itinerary.candidates-per-leg:50}") int itineraryCandidates,
+                            @Value("${flight.itinerary.max-results:50}") int maxItineraries,
+                            @Value("${flight.itinerary.max-explored:10000}") int itineraryMaxExplored,
+                            @Value("${flight.itinerary.min-connection:90m}") Duration minConnection,
+                            @Value("${flight.connections.max-stops:2}") int maxConnections) {
+        if (!searchMode.equals("sequential") && !searchMode.equals("parallel")) {
+            throw new IllegalArgumentException("Unknown flight.search.mode: " + searchMode);
+        }
+        if (maxConnections < 0 || maxConnections > ConnectionBuilder.MAX_CONNECTIONS) {
+            throw new IllegalArgumentException("flight.connections.max-stops must be between 0 and "
+                    + ConnectionBuilder.MAX_CONNECTIONS + ": " + maxConnections);
+        }
         this.flightProviders = flightProviders;
+        this.fanOut = fanOut;
+        this.searchMode = searchMode;
+        this.searchDeadline = searchDeadline;
+        this.providerTimeout = providerTimeout;
+        this.providerTimeouts = parseProviderTimeouts(providerTimeouts);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.snapshots = snapshots;
+        this.inventory = inventory;
+        this.idempotentBookings = idempotentBookings;
+        this.fareCalendar = fareCalendar;
+        this.fxRates = fxRates;
+        this.maxFareCalendarDays = maxFareCalendarDays;
+        this.maxItineraryLegs = maxItineraryLegs;
+        this.itineraryCandidates = itineraryCandidates;
+        this.maxItineraries = maxItineraries;
+        this.itineraryMaxExplored = itineraryMaxExplored;
+        this.minConnection = minConnection;
+        this.maxConnections = maxConnections;
+        this.flightRoutes = flightRoutes(flightProviders);
+        this.airlineRoutes = airlineRoutes(flightProviders);
+    }
+
+    // Built once so bookings and status lookups never probe providers one by one
+    private static PrefixRouter<FlightProvider> flightRoutes(List<FlightProvider> providers) {
+        PrefixRouter.Builder<FlightProvider> routes = PrefixRouter.builder("flight id prefix");
+        for (FlightProvider provider : providers) {
+            for (String prefix : provider.flightIdPrefixes()) {
+                routes.add(prefix, provider, provider.getName());
+            }
+        }
+        return routes.build();
+    }
+
+    // Carrier codes come from data, e.g. a schedule file, so two providers may claim the same one;
+    // status for such a code goes to the first provider and the overlap is logged
+    private static PrefixRouter<FlightProvider> airlineRoutes(List<FlightProvider> providers) {
+        PrefixRouter.Builder<FlightProvider> routes = PrefixRouter.<FlightProvider>builder("airline code")
+                .ignoreCase()
+                .exactKeys();
+        Map<String, FlightProvider> owners = new HashMap<>();
+        for (FlightProvider provider : providers) {
+            for (String code : provider.airlineCodes()) {
+                FlightProvider owner = owners.putIfAbsent(code.toUpperCase(), provider);
+                if (owner == null) {
+                    routes.add(code, provider, provider.getName());
+                } else if (owner != provider) {
+                    LOGGER.warn("Airline code {} is declared by {} and {}; flight status for it comes from {}",
+                            code, owner.getName(), provider.getName(), owner.getName());
+                }
+            }
+        }
+        return routes.build();
     }
 
     public Map<String, Object> searchFlights(Map<String, Object> arguments) {
+        return searchFlights(arguments, McpProgress.NONE);
+    }
+
+    /**
+     * Like {@link #searchFlights(Map)}, but reports each provider's cheapest flights to {@code progress}
+     * as soon as that provider answers.
+     * <p>
+     * Results are paged: {@code limit} flights per page, cheapest first, and a {@code nextCursor} while more
+     * remain. Passing it back as {@code cursor} returns the next page from the search's snapshot without
+     * asking the providers again.
+     */
+    public Map<String, Object> searchFlights(Map<String, Object> arguments, McpProgress progress) {
+        int limit = Math.max(1, Math.min(maxLimit, ((Number) arguments.getOrDefault("limit", defaultLimit)).intValue()));
+        SearchSnapshots.Page<FlightResponse> page = snapshots.page("search_flights", arguments, limit,
+                () -> search(arguments, limit, progress));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("flights", page.items());
+        result.put("total", page.items().size());
+        result.put("totalResults", page.totalResults());
+        if (page.nextCursor() != null) {
+            result.put("nextCursor", page.nextCursor());
+        }
+        result.putAll(page.attributes());
+        return result;
+    }
+
+    private SearchSnapshot<FlightResponse> search(Map<String, Object> arguments, int limit, McpProgress progress) {
         String from = (String) arguments.get("from");
         String to = (String) arguments.get("to");
         String departureDate = (String) arguments.get("departureDate");
@@ -26,35 +213,459 @@ public class FlightMcpService {
         String cabinClass = (String) arguments.getOrDefault("cabinClass", "economy");
         String preferences = (String) arguments.getOrDefault("preferences", "");
 
+        SearchSnapshot<FlightResponse> snapshot = new SearchSnapshot<>(
+                flight -> Prices.minorUnits(flight.normalizedPrice()), FlightResponse::flightId);
+        // Offers for the same flight are merged as each provider answers
+        FlightDeduplicator deduplicator = new FlightDeduplicator();
+        if (searchMode.equals("parallel")) {
+            Map<String, Callable<List<FlightResponse>>> searches = new LinkedHashMap<>();
+            Map<String, Integer> ranks = new HashMap<>();
+            for (FlightProvider provider : flightProviders) {
+                ranks.put(provider.getName(), ranks.size());
+                searches.put(provider.getName(),
+                        () -> inventory.track(normalize(provider.searchFlightOffers(from, to, departureDate, returnDate, passengers, cabinClass, preferences))));
+            }
+            int[] answered = new int[1];
+            DeadlineFanOut.Outcome<String, List<FlightResponse>> outcome = fanOut.run(searches,
+                    name -> providerTimeouts.getOrDefault(name, providerTimeout), searchDeadline, (name, flights) -> {
+                        deduplicator.add(ranks.get(name), flights);
+                        reportProvider(progress, ++answered[0], name, flights, limit);
+                    });
+
+            snapshot.add(deduplicator.flights(), false);
+            describe(snapshot, deduplicator, outcome.partial(), outcome.timedOut(), outcome.failed().keySet());
+            recordFare(from, to, cabinClass, departureDate, snapshot, !outcome.partial());
+            return snapshot;
+        }
+
         // Aggregate results from all providers
-        List<Map<String, Object>> allFlights = flightProviders.stream()
-                .flatMap(provider -> provider.searchFlights(from, to, departureDate, returnDate, passengers, cabinClass, preferences).stream())
-                .sorted((f1, f2) -> Double.compare(
-                        ((Number) f1.get("price")).doubleValue(),
-                        ((Number) f2.get("price")).doubleValue()
-                ))
-                .limit(20)
+        int answered = 0;
+        for (FlightProvider provider : flightProviders) {
+            List<FlightResponse> flights = inventory.track(
+                    normalize(provider.searchFlightOffers(from, to, departureDate, returnDate, passengers, cabinClass, preferences)));
+            deduplicator.add(answered, flights);
+            reportProvider(progress, ++answered, provider.getName(), flights, limit);
+        }
+        snapshot.add(deduplicator.flights(), false);
+        describe(snapshot, deduplicator, false, List.of(), Set.of());
+        recordFare(from, to, cabinClass, departureDate, snapshot, true);
+        return snapshot;
+    }
+
+    // One rate table for the whole list, so a reload mid-list cannot rank part of it on other rates
+    private List<FlightResponse> normalize(List<FlightResponse> flights) {
+        FxRates.Table rates = fxRates.current();
+        List<FlightResponse> normalized = new ArrayList<>(flights.size());
+        for (FlightResponse flight : flights) {
+            normalized.add(flight.withNormalizedPrice(rates.toBase(flight.price(), flight.currency()), rates.base()));
+        }
+        return normalized;
+    }
+
+    private void recordFare(String from, String to, String cabinClass, String departureDate,
+                            SearchSnapshot<FlightResponse> snapshot, boolean complete) {
+        LocalDate date = parseDate(departureDate);
+        if (date == null || snapshot.size() == 0) {
+            return;
+        }
+        FlightResponse cheapest = snapshot.page(0, 1).get(0);
+        if (cheapest.normalizedPrice() != null) {
+            fareCalendar.record(from, to, cabinClass, date, snapshot.key(cheapest), cheapest.normalizedCurrency(), complete);
+        }
+    }
+
+    /**
+     * Lowest fare for each day from {@code days} days before {@code date} to {@code days} days after it,
+     * skipping days already past. Days the {@link FareCalendar} knows are read from it; the others are
+     * searched concurrently, once each, and recorded for the next query.
+     */
+    public Map<String, Object> searchFareCalendar(Map<String, Object> arguments) {
+        String from = (String) arguments.get("from");
+        String to = (String) arguments.get("to");
+        String cabinClass = (String) arguments.getOrDefault("cabinClass", "economy");
+        Integer passengers = (Integer) arguments.getOrDefault("passengers", 1);
+        int days = Math.max(0, Math.min(maxFareCalendarDays, ((Number) arguments.getOrDefault("days", 3)).intValue()));
+        LocalDate date = parseDate((String) arguments.get("date"));
+        if (date == null) {
+            throw new IllegalArgumentException("date (YYYY-MM-DD) is required");
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate first = date.minusDays(days).isBefore(today) ? today : date.minusDays(days);
+        LocalDate last = date.plusDays(days);
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("All days around " + date + " are in the past");
+        }
+
+        FareCalendar.DayFare[] fares = fareCalendar.lookup(from, to, cabinClass, first, last);
+        Map<LocalDate, Callable<SearchSnapshot<FlightResponse>>> searches = new LinkedHashMap<>();
+        for (int i = 0; i < fares.length; i++) {
+            if (fares[i] == null) {
+                Map<String, Object> dayArguments = new HashMap<>();
+                dayArguments.put("from", from);
+                dayArguments.put("to", to);
+                dayArguments.put("departureDate", first.plusDays(i).toString());
+                dayArguments.put("passengers", passengers);
+                dayArguments.put("cabinClass", cabinClass);
+                searches.put(first.plusDays(i), () -> search(dayArguments, 1, McpProgress.NONE));
+            }
+        }
+        List<LocalDate> timedOutDays = List.of();
+        if (!searches.isEmpty()) {
+            timedOutDays = fanOut.run(searches, day -> searchDeadline, searchDeadline).timedOut();
+            fares = fareCalendar.lookup(from, to, cabinClass, first, last);
+        }
+
+        List<Map<String, Object>> calendar = new ArrayList<>(fares.length);
+        FareCalendar.DayFare cheapest = null;
+        for (int i = 0; i < fares.length; i++) {
+            FareCalendar.DayFare fare = fares[i];
+            Map<String, Object> day = new LinkedHashMap<>();
+            day.put("date", first.plusDays(i).toString());
+            day.put("lowestFare", fare == null ? null : BigDecimal.valueOf(fare.fareMinor(), 2));
+            day.put("currency", fare == null ? null : fare.currency());
+            calendar.add(day);
+            if (fare != null && (cheapest == null || fare.fareMinor() < cheapest.fareMinor())) {
+                cheapest = fare;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("cabinClass", cabinClass);
+        result.put("days", calendar);
+        if (cheapest != null) {
+            result.put("cheapestDate", cheapest.date().toString());
+            result.put("cheapestFare", BigDecimal.valueOf(cheapest.fareMinor(), 2));
+            result.put("currency", cheapest.currency());
+        }
+        result.put("searchedDays", searches.size());
+        result.put("timedOutDays", timedOutDays.stream().map(LocalDate::toString).toList());
+        return result;
+    }
+
+    /**
+     * Cheapest combined itineraries: a round trip from {@code from}, {@code to}, {@code departureDate} and
+     * {@code returnDate}, or a multi-city trip from {@code legs}. All legs are searched at once, then their
+     * price-sorted flights are joined cheapest total first, so only the combinations that can make the
+     * result are ever priced.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> searchItineraries(Map<String, Object> arguments) {
+        Integer passengers = (Integer) arguments.getOrDefault("passengers", 1);
+        String cabinClass = (String) arguments.getOrDefault("cabinClass", "economy");
+        int limit = Math.max(1, Math.min(maxItineraries, ((Number) arguments.getOrDefault("limit", 10)).intValue()));
+
+        List<Map<String, Object>> legs = new ArrayList<>();
+        if (arguments.get("legs") instanceof List<?> requested) {
+            for (Object leg : requested) {
+                Map<String, Object> fields = (Map<String, Object>) leg;
+                legs.add(legArguments((String) fields.get("from"), (String) fields.get("to"),
+                        (String) fields.get("departureDate"), passengers, cabinClass));
+            }
+        } else {
+            String from = (String) arguments.get("from");
+            String to = (String) arguments.get("to");
+            legs.add(legArguments(from, to, (String) arguments.get("departureDate"), passengers, cabinClass));
+            if (arguments.get("returnDate") != null) {
+                legs.add(legArguments(to, from, (String) arguments.get("returnDate"), passengers, cabinClass));
+            }
+        }
+        if (legs.isEmpty() || legs.size() > maxItineraryLegs) {
+            throw new IllegalArgumentException("An itinerary needs between 1 and " + maxItineraryLegs + " legs");
+        }
+
+        Map<Integer, Callable<SearchSnapshot<FlightResponse>>> searches = new LinkedHashMap<>();
+        for (int i = 0; i < legs.size(); i++) {
+            Map<String, Object> leg = legs.get(i);
+            searches.put(i, () -> search(leg, itineraryCandidates, McpProgress.NONE));
+        }
+        DeadlineFanOut.Outcome<Integer, SearchSnapshot<FlightResponse>> outcome =
+                fanOut.run(searches, leg -> searchDeadline, searchDeadline);
+
+        // Cheapest candidates per leg; flights without a price cannot be totalled
+        List<List<FlightResponse>> candidates = new ArrayList<>(legs.size());
+        long[][] prices = new long[legs.size()][];
+        for (int i = 0; i < legs.size(); i++) {
+            SearchSnapshot<FlightResponse> snapshot = outcome.results().get(i);
+            List<FlightResponse> flights = snapshot == null ? List.of() : snapshot.page(0, itineraryCandidates).stream()
+                    .filter(flight -> flight.normalizedPrice() != null)
+                    .toList();
+            candidates.add(flights);
+            prices[i] = flights.stream().mapToLong(flight -> Prices.minorUnits(flight.normalizedPrice())).toArray();
+        }
+
+        List<Map<String, Object>> itineraries = new ArrayList<>();
+        for (int[] combination : KBestJoin.best(prices, limit, combination -> connects(candidates, combination), itineraryMaxExplored)) {
+            List<FlightResponse> flights = new ArrayList<>(combination.length);
+            long total = 0;
+            for (int leg = 0; leg < combination.length; leg++) {
+                flights.add(candidates.get(leg).get(combination[leg]));
+                total += prices[leg][combination[leg]];
+            }
+            Map<String, Object> itinerary = new LinkedHashMap<>();
+            itinerary.put("flights", flights);
+            itinerary.put("totalPrice", BigDecimal.valueOf(total, 2));
+            itinerary.put("currency", flights.get(0).normalizedCurrency());
+            itineraries.add(itinerary);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("itineraries", itineraries);
+        result.put("total", itineraries.size());
+        result.put("legs", legs.stream().map(leg -> Map.of(
+                "from", leg.get("from"), "to", leg.get("to"), "departureDate", leg.get("departureDate"))).toList());
+        result.put("flightsPerLeg", candidates.stream().map(List::size).toList());
+        result.put("partial", outcome.partial());
+        return result;
+    }
+
+    /**
+     * Direct and connecting journeys between two airports on a date, keeping only those no other journey beats
+     * on price, duration and stops at once, cheapest first. Providers are asked in parallel under the search
+     * deadline, and prices are compared after conversion with {@link FxRates}; journeys in a currency it has no
+     * rate for come last.
+     */
+    public Map<String, Object> searchConnections(Map<String, Object> arguments) {
+        String from = (String) arguments.get("from");
+        String to = (String) arguments.get("to");
+        String departureDate = (String) arguments.get("departureDate");
+        Integer passengers = (Integer) arguments.getOrDefault("passengers", 1);
+        String cabinClass = (String) arguments.getOrDefault("cabinClass", "economy");
+        int maxStops = Math.max(0, Math.min(maxConnections, ((Number) arguments.getOrDefault("maxStops", maxConnections)).intValue()));
+        if (parseDate(departureDate) == null) {
+            throw new IllegalArgumentException("departureDate (YYYY-MM-DD) is required");
+        }
+
+        Map<String, Callable<List<Connection>>> searches = new LinkedHashMap<>();
+        for (FlightProvider provider : flightProviders) {
+            searches.put(provider.getName(),
+                    () -> provider.searchConnections(from, to, departureDate, passengers, cabinClass, maxStops));
+        }
+        DeadlineFanOut.Outcome<String, List<Connection>> outcome = fanOut.run(searches,
+                name -> providerTimeouts.getOrDefault(name, providerTimeout), searchDeadline);
+
+        // One rate table for every provider's journeys, so they are all ranked on the same rates
+        FxRates.Table rates = fxRates.current();
+        List<PricedConnection> found = new ArrayList<>();
+        for (List<Connection> connections : outcome.results().values()) {
+            for (Connection connection : connections) {
+                found.add(new PricedConnection(connection, rates.toBase(connection.totalPrice(), connection.currency())));
+            }
+        }
+        // Each provider's journeys are a Pareto set of their own; merge them into one
+        List<PricedConnection> connections = found.stream()
+                .filter(connection -> found.stream().noneMatch(other -> beats(other, connection)))
+                .sorted(Comparator.comparing(PricedConnection::normalizedPrice, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparingInt(priced -> priced.connection().durationMinutes())
+                        .thenComparingInt(priced -> priced.connection().stops()))
                 .toList();
 
-        return Map.of(
-                "flights", allFlights,
-                "total", allFlights.size(),
-                "providers", flightProviders.stream().map(FlightProvider::getName).toList()
-        );
+        List<Map<String, Object>> journeys = new ArrayList<>(connections.size());
+        for (PricedConnection priced : connections) {
+            Connection connection = priced.connection();
+            Map<String, Object> journey = new LinkedHashMap<>();
+            journey.put("flights", connection.flights());
+            journey.put("totalPrice", connection.totalPrice());
+            journey.put("currency", connection.currency());
+            journey.put("normalizedPrice", priced.normalizedPrice());
+            journey.put("normalizedCurrency", rates.base());
+            journey.put("durationMinutes", connection.durationMinutes());
+            journey.put("duration", connection.durationMinutes() / 60 + "h " + connection.durationMinutes() % 60 + "m");
+            journey.put("stops", connection.stops());
+            journeys.add(journey);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("connections", journeys);
+        result.put("total", journeys.size());
+        result.put("from", from);
+        result.put("to", to);
+        result.put("departureDate", departureDate);
+        result.put("maxStops", maxStops);
+        result.put("partial", outcome.partial());
+        result.put("timedOutProviders", outcome.timedOut());
+        if (!outcome.failed().isEmpty()) {
+            result.put("failedProviders", List.copyOf(outcome.failed().keySet()));
+        }
+        return result;
+    }
+
+    private record PricedConnection(Connection connection, BigDecimal normalizedPrice) {
     }
 
+    // A journey whose price could not be converted cannot be compared, so it is kept and ranked last
+    private static boolean beats(PricedConnection a, PricedConnection b) {
+        if (a.normalizedPrice() == null || b.normalizedPrice() == null) {
+            return false;
+        }
+        int price = a.normalizedPrice().compareTo(b.normalizedPrice());
+        int durationA = a.connection().durationMinutes();
+        int durationB = b.connection().durationMinutes();
+        int stopsA = a.connection().stops();
+        int stopsB = b.connection().stops();
+        return price <= 0 && durationA <= durationB && stopsA <= stopsB
+                && (price < 0 || durationA < durationB || stopsA < stopsB);
+    }
+
+    private static Map<String, Object> legArguments(String from, String to, String departureDate,
+                                                    Integer passengers, String cabinClass) {
+        if (from == null || to == null || departureDate == null) {
+            throw new IllegalArgumentException("Every leg needs from, to and departureDate");
+        }
+        Map<String, Object> leg = new HashMap<>();
+        leg.put("from", from);
+        leg.put("to", to);
+        leg.put("departureDate", departureDate);
+        leg.put("passengers", passengers);
+        leg.put("cabinClass", cabinClass);
+        return leg;
+    }
+
+    // Each flight must leave at least minConnection after the previous one lands
+    private boolean connects(List<List<FlightResponse>> candidates, int[] combination) {
+        for (int leg = 1; leg < combination.length; leg++) {
+            LocalDateTime landed = candidates.get(leg - 1).get(combination[leg - 1]).arrivalTime();
+            LocalDateTime departs = candidates.get(leg).get(combination[leg]).departureTime();
+            if (landed != null && departs != null && departs.isBefore(landed.plus(minConnection))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void reportProvider(McpProgress progress, int answered, String provider, List<FlightResponse> flights, int limit) {
+        if (progress == McpProgress.NONE) {
+            return;
+        }
+        // Flights past the page size cannot make it into the first page
+        List<FlightResponse> cheapest = flights.stream().sorted(BY_PRICE).limit(limit).toList();
+        Map<String, Object> partial = new LinkedHashMap<>();
+        partial.put("provider", provider);
+        partial.put("flights", cheapest);
+        partial.put("total", cheapest.size());
+        progress.report(answered, flightProviders.size(), provider + " answered with " + flights.size() + " flights", partial);
+    }
+
+    private void describe(SearchSnapshot<FlightResponse> snapshot, FlightDeduplicator deduplicator, boolean partial,
+                          List<String> timedOutProviders, Collection<String> failedProviders) {
+        Map<String, Object> attributes = snapshot.attributes();
+        attributes.put("providers", flightProviders.stream().map(FlightProvider::getName).toList());
+        attributes.put("mergedOffers", deduplicator.merged());
+        attributes.put("partial", partial);
+        attributes.put("timedOutProviders", timedOutProviders);
+        if (!failedProviders.isEmpty()) {
+            attributes.put("failedProviders", List.copyOf(failedProviders));
+        }
+    }
+
+    private static Map<String, Duration> parseProviderTimeouts(List<String> entries) {
+        Map<String, Duration> timeouts = new HashMap<>();
+        for (String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected Provider=timeout in flight.search.provider-timeouts but got: " + entry);
+            }
+            timeouts.put(entry.substring(0, separator).trim(), DurationStyle.detectAndParse(entry.substring(separator + 1).trim()));
+        }
+        return Map.copyOf(timeouts);
+    }
+
+    /**
+     * Books {@code seats} seats (default 1) of a flight's cabin, taking them from the seat inventory
+     * first so concurrent bookings cannot oversell it. With a {@code holdId} from {@code hold_seats} the held
+     * seats are used. With an {@code idempotencyKey}, repeating the call returns the first booking instead of
+     * booking again.
+     */
     public Map<String, Object> bookFlight(Map<String, Object> arguments) {
         String flightId = (String) arguments.get("flightId");
         Map<String, Object> passengerDetails = (Map<String, Object>) arguments.get("passengerDetails");
+        String cabinClass = (String) arguments.getOrDefault("cabinClass", "economy");
+        int seats = ((Number) arguments.getOrDefault("seats", 1)).intValue();
+        String holdId = (String) arguments.get("holdId");
 
-        // Find the appropriate provider for the flight
-        for (FlightProvider provider : flightProviders) {
-            if (provider.canHandleFlight(flightId)) {
-                return provider.bookFlight(flightId, passengerDetails);
+        FlightProvider provider = flightRoutes.route(flightId)
+                .orElseThrow(() -> new RuntimeException("No provider found for flight: " + flightId));
+        String idempotencyKey = (String) arguments.get("idempotencyKey");
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return reserveAndBook(provider, flightId, passengerDetails, cabinClass, seats, holdId);
+        }
+        Map<String, Object> booking = new HashMap<>(arguments);
+        booking.remove("idempotencyKey");
+        return idempotentBookings.execute(idempotencyKey, IdempotentBookings.fingerprint(booking),
+                () -> reserveAndBook(provider, flightId, passengerDetails, cabinClass, seats, holdId));
+    }
+
+    private Map<String, Object> reserveAndBook(FlightProvider provider, String flightId, Map<String, Object> passengerDetails,
+                                               String cabinClass, int seats, String holdId) {
+        track(provider, flightId, cabinClass);
+        if (holdId != null) {
+            Optional<SeatInventory.Hold> hold = inventory.claim(holdId, flightId, cabinClass);
+            if (hold.isEmpty()) {
+                throw new IllegalStateException("Hold " + holdId + " has expired or is not for this flight and cabin");
             }
+            seats = hold.get().seats();
+        } else if (!inventory.tryReserve(flightId, cabinClass, seats)) {
+            throw new IllegalStateException("Not enough " + cabinClass + " seats left on " + flightId);
         }
 
-        throw new RuntimeException("No provider found for flight: " + flightId);
+        Map<String, Object> booking;
+        try {
+            booking = provider.bookFlight(flightId, passengerDetails);
+        } catch (RuntimeException e) {
+            inventory.release(flightId, cabinClass, seats);
+            throw e;
+        }
+        Map<String, Object> result = new LinkedHashMap<>(booking);
+        result.put("cabinClass", cabinClass);
+        result.put("seats", seats);
+        inventory.available(flightId, cabinClass).ifPresent(left -> result.put("remainingSeats", left));
+        return result;
+    }
+
+    // A flight not searched on this instance, e.g. after a restart, starts from the seats its provider reports
+    private void track(FlightProvider provider, String flightId, String cabinClass) {
+        if (inventory.available(flightId, cabinClass).isEmpty()) {
+            inventory.track(provider.findFlight(flightId, cabinClass)
+                    .orElseThrow(() -> new IllegalArgumentException("Flight not found: " + flightId)));
+        }
+    }
+
+    /**
+     * Takes seats of a flight for {@code flight.inventory.hold-ttl}, to be booked with the returned
+     * {@code holdId}.
+     */
+    public Map<String, Object> holdSeats(Map<String, Object> arguments) {
+        String flightId = (String) arguments.get("flightId");
+        String cabinClass = (String) arguments.getOrDefault("cabinClass", "economy");
+        int seats = ((Number) arguments.getOrDefault("seats", 1)).intValue();
+
+        FlightProvider provider = flightRoutes.route(flightId)
+                .orElseThrow(() -> new RuntimeException("No provider found for flight: " + flightId));
+        track(provider, flightId, cabinClass);
+        SeatInventory.Hold hold = inventory.hold(flightId, cabinClass, seats);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("holdId", hold.holdId());
+        result.put("flightId", hold.flightId());
+        result.put("cabinClass", hold.cabinClass());
+        result.put("seats", hold.seats());
+        result.put("expiresAt", hold.expiresAt().toString());
+        inventory.available(flightId, cabinClass).ifPresent(left -> result.put("remainingSeats", left));
+        return result;
     }
 
     public Map<String, Object> getRecommendations(Map<String, Object> arguments) {
@@ -75,23 +686,33 @@ public class FlightMcpService {
         String flightNumber = (String) arguments.get("flightNumber");
         String airline = (String) arguments.get("airline");
 
-        for (FlightProvider provider : flightProviders) {
-            if (provider.canHandleAirline(airline)) {
-                return provider.getFlightStatus(flightNumber, airline);
-            }
-        }
+        return airlineRoutes.exact(airline)
+                .map(provider -> provider.getFlightStatus(flightNumber, airline))
+                .orElseGet(() -> Map.of(
+                        "status", "unknown",
+                        "message", "Flight status not available"
+                ));
+    }
 
-        return Map.of(
-                "status", "unknown",
-                "message", "Flight status not available"
-        );
+    public boolean hasStatusProvider(String airline) {
+        return airlineRoutes.exact(airline).isPresent();
+    }
+
+    /**
+     * The code of the airline that {@code airline} names, e.g. {@code AG} for {@code AeroGo}; airlines without a
+     * status provider keep the name as given.
+     */
+    public String airlineCode(String airline) {
+        return airlineRoutes.exact(airline)
+                .map(provider -> provider.airlineCode(airline))
+                .orElse(airline.trim().toUpperCase());
     }
 
     public List<Map<String, Object>> getAvailableTools() {
         return List.of(
                 Map.of(
                         "name", "search_flights",
-                        "description", "Search for flights based on origin, destination, dates, and preferences",
+                        "description", "Search for flights based on origin, destination, dates, and preferences. With a progress token, each provider's flights are sent as progress notifications as they arrive",
                         "inputSchema", Map.of(
                                 "type", "object",
                                 "properties", Map.of(
@@ -101,11 +722,64 @@ public class FlightMcpService {
                                         "returnDate", Map.of("type", "string", "description", "Return date (YYYY-MM-DD), optional"),
                                         "passengers", Map.of("type", "integer", "description", "Number of passengers"),
                                         "cabinClass", Map.of("type", "string", "description", "Cabin class (economy, business, first)"),
-                                        "preferences", Map.of("type", "string", "description", "Additional preferences")
+                                        "preferences", Map.of("type", "string", "description", "Additional preferences"),
+                                        "limit", Map.of("type", "integer", "description", "Flights per page, cheapest first (default " + defaultLimit + ", at most " + maxLimit + ")"),
+                                        "cursor", Map.of("type", "string", "description", "nextCursor of the previous page, to get the page after it; repeat the other arguments unchanged")
                                 ),
                                 "required", List.of("from", "to", "departureDate", "passengers")
                         )
                 ),
+                Map.of(
+                        "name", "search_fare_calendar",
+                        "description", "Lowest fare per day for a route over the days around a date, to find the cheapest day to fly. Answered from recorded fares where possible, so it is much cheaper than one search_flights call per day",
+                        "inputSchema", Map.of(
+                                "type", "object",
+                                "properties", Map.of(
+                                        "from", Map.of("type", "string", "description", "Origin airport code or city"),
+                                        "to", Map.of("type", "string", "description", "Destination airport code or city"),
+                                        "date", Map.of("type", "string", "description", "Preferred departure date (YYYY-MM-DD)"),
+                                        "days", Map.of("type", "integer", "description", "Days before and after the date to include (default 3, at most " + maxFareCalendarDays + ")"),
+                                        "passengers", Map.of("type", "integer", "description", "Number of passengers (default 1)"),
+                                        "cabinClass", Map.of("type", "string", "description", "Cabin class (economy, business, first)")
+                                ),
+                                "required", List.of("from", "to", "date")
+                        )
+                ),
+                Map.of(
+                        "name", "search_itineraries",
+                        "description", "Search a round trip or multi-city trip in one call and get the cheapest combined itineraries, each with one flight per leg and a total price",
+                        "inputSchema", Map.of(
+                                "type", "object",
+                                "properties", Map.of(
+                                        "from", Map.of("type", "string", "description", "Round trip: origin airport code or city"),
+                                        "to", Map.of("type", "string", "description", "Round trip: destination airport code or city"),
+                                        "departureDate", Map.of("type", "string", "description", "Round trip: outbound date (YYYY-MM-DD)"),
+                                        "returnDate", Map.of("type", "string", "description", "Round trip: return date (YYYY-MM-DD)"),
+                                        "legs", Map.of("type", "array", "description", "Multi-city: legs in travel order, each with from, to and departureDate; replaces the round-trip fields",
+                                                "items", Map.of("type", "object")),
+                                        "passengers", Map.of("type", "integer", "description", "Number of passengers (default 1)"),
+                                        "cabinClass", Map.of("type", "string", "description", "Cabin class (economy, business, first)"),
+                                        "limit", Map.of("type", "integer", "description", "Itineraries to return, cheapest first (default 10, at most " + maxItineraries + ")")
+                                ),
+                                "required", List.of()
+                        )
+                ),
+                Map.of(
+                        "name", "search_connections",
+                        "description", "Find direct and connecting journeys between two airports on a date, built from the providers' flight networks with minimum connection times. Returns every journey not beaten on price, duration and stops at once",
+                        "inputSchema", Map.of(
+                                "type", "object",
+                                "properties", Map.of(
+                                        "from", Map.of("type", "string", "description", "Origin airport code"),
+                                        "to", Map.of("type", "string", "description", "Destination airport code"),
+                                        "departureDate", Map.of("type", "string", "description", "Departure date (YYYY-MM-DD)"),
+                                        "maxStops", Map.of("type", "integer", "description", "Most connections allowed (default and at most " + maxConnections + ")"),
+                                        "passengers", Map.of("type", "integer", "description", "Number of passengers (default 1)"),
+                                        "cabinClass", Map.of("type", "string", "description", "Cabin class (economy, business, first)")
+                                ),
+                                "required", List.of("from", "to", "departureDate")
+                        )
+                ),
                 Map.of(
                         "name", "book_flight",
                         "description", "Book a specific flight",
@@ -113,11 +787,28 @@ public class FlightMcpService {
                                 "type", "object",
                                 "properties", Map.of(
                                         "flightId", Map.of("type", "string", "description", "Flight identifier"),
-                                        "passengerDetails", Map.of("type", "object", "description", "Passenger information")
+                                        "passengerDetails", Map.of("type", "object", "description", "Passenger information"),
+                                        "cabinClass", Map.of("type", "string", "description", "Cabin class searched for (default economy)"),
+                                        "seats", Map.of("type", "integer", "description", "Number of seats (default 1)"),
+                                        "holdId", Map.of("type", "string", "description", "Hold from hold_seats whose seats to book"),
+                                        "idempotencyKey", Map.of("type", "string", "description", "Client-chosen key; retrying with the same key returns the original booking instead of booking again")
                                 ),
                                 "required", List.of("flightId", "passengerDetails")
                         )
                 ),
+                Map.of(
+                        "name", "hold_seats",
+                        "description", "Hold seats on a searched flight for a few minutes while the booking is completed",
+                        "inputSchema", Map.of(
+                                "type", "object",
+                                "properties", Map.of(
+                                        "flightId", Map.of("type", "string", "description", "Flight identifier"),
+                                        "cabinClass", Map.of("type", "string", "description", "Cabin class searched for (default economy)"),
+                                        "seats", Map.of("type", "integer", "description", "Number of seats (default 1)")
+                                ),
+                                "required", List.of("flightId")
+                        )
+                ),
                 Map.of(
                         "name", "get_recommendations",
                         "description", "Get flight recommendations for a destination",
@@ -132,7 +823,7 @@ public class FlightMcpService {
                 ),
                 Map.of(
                         "name", "get_flight_status",
-                        "description", "Get real-time flight status information",
+                        "description", "Get real-time flight status information. To follow a flight, subscribe to status updates at GET /mcp/flight-status/stream instead of calling this repeatedly",
                         "inputSchema", Map.of(
                                 "type", "object",
                                 "properties", Map.of(
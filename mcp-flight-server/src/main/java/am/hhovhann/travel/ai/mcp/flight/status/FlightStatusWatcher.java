@@ -0,0 +1,307 @@
+package am.hhovhann.travel.ai.mcp.flight.status;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import am.hhovhann.travel.ai.mcp.flight.service.FlightMcpService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes flight status changes to subscribers over server-sent events.
+ * <p>
+ * Each watched flight has one polling schedule shared by all of its subscribers, so N watchers of a flight
+ * cost one upstream status check per interval. The interval adapts to the reported departure time:
+ * {@code interval-far} more than {@code near-window} before departure, {@code interval-near} within it and
+ * {@code interval-imminent} within {@code imminent-window} or after departure. A flight stops being polled
+ * when its last subscriber leaves or it reaches a final status.
+ * <p>
+ * The first event for a subscriber is a {@code snapshot} of the full status; later {@code status} events
+ * carry only the fields that changed.
+ */
+@Component
+public class FlightStatusWatcher implements MetricsSource, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightStatusWatcher.class);
+    private static final Set<String> FINAL_STATUSES = Set.of("landed", "arrived", "cancelled", "canceled", "diverted");
+
+    private record FlightKey(String airline, String flightNumber) {
+    }
+
+    private static final class Watch {
+        final FlightKey key;
+        final String airline;
+        final String flightNumber;
+        final Set<SseEmitter> subscribers = new CopyOnWriteArraySet<>();
+        // Guarded by this
+        Map<String, Object> lastStatus;
+        ScheduledFuture<?> nextPoll;
+        boolean closed;
+
+        Watch(FlightKey key, String airline, String flightNumber) {
+            this.key = key;
+            this.airline = airline;
+            this.flightNumber = flightNumber;
+        }
+    }
+
+    private final FlightMcpService flightMcpService;
+    private final Duration intervalFar;
+    private final Duration intervalNear;
+    private final Duration intervalImminent;
+    private final Duration nearWindow;
+    private final Duration imminentWindow;
+    private final Duration emitterTimeout;
+    private final int maxFlights;
+
+    private final ConcurrentHashMap<FlightKey, Watch> watches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("flight-status-scheduler").daemon().factory());
+    private final ExecutorService pollers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("flight-status-poll-", 0).factory());
+
+    private final LongAdder upstreamPolls = new LongAdder();
+    private final LongAdder pollFailures = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public FlightStatusWatcher(FlightMcpService flightMcpService,
+                               @Value("${flight.status.watch.interval-far:5m}") Duration intervalFar,
+                               @Value("${flight.status.watch.interval-near:1m}") Duration intervalNear,
+                               @Value("${flight.status.watch.interval-imminent:15s}") Duration intervalImminent,
+                               @Value("${flight.status.watch.near-window:6h}") Duration nearWindow,
+                               @Value("${flight.status.watch.imminent-window:1h}") Duration imminentWindow,
+                               @Value("${flight.status.watch.emitter-timeout:1h}") Duration emitterTimeout,
+                               @Value("${flight.status.watch.max-flights:10000}") int maxFlights) {
+        this.flightMcpService = flightMcpService;
+        this.intervalFar = intervalFar;
+        this.intervalNear = intervalNear;
+        this.intervalImminent = intervalImminent;
+        this.nearWindow = nearWindow;
+        this.imminentWindow = imminentWindow;
+        this.emitterTimeout = emitterTimeout;
+        this.maxFlights = maxFlights;
+    }
+
+    /**
+     * Subscribes to a flight's status. Throws {@link IllegalStateException} when {@code max-flights} different
+     * flights are already watched.
+     */
+    public SseEmitter subscribe(String flightNumber, String airline) {
+        // By code, so subscribers naming the airline differently, e.g. AeroGo and AG, share one watch
+        String airlineCode = flightMcpService.airlineCode(airline.trim());
+        FlightKey key = new FlightKey(airlineCode, flightNumber.trim().toUpperCase());
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        while (true) {
+            boolean[] created = new boolean[1];
+            Watch watch = watches.computeIfAbsent(key, k -> {
+                if (watches.size() >= maxFlights) {
+                    rejected.increment();
+                    throw new IllegalStateException("Too many watched flights");
+                }
+                created[0] = true;
+                return new Watch(k, airlineCode, flightNumber.trim());
+            });
+            // Joining and reading the last status under the watch's lock, so a first poll cannot also
+            // broadcast its snapshot to this subscriber
+            synchronized (watch) {
+                if (watch.closed) {
+                    // The last subscriber left after the lookup; a fresh watch replaces this one
+                    continue;
+                }
+                watch.subscribers.add(emitter);
+                if (watch.lastStatus != null) {
+                    send(emitter, "snapshot", event(watch, "status", watch.lastStatus));
+                }
+            }
+
+            emitter.onCompletion(() -> unsubscribe(watch, emitter));
+            emitter.onTimeout(() -> unsubscribe(watch, emitter));
+            emitter.onError(error -> unsubscribe(watch, emitter));
+            if (created[0]) {
+                schedule(watch, Duration.ZERO);
+            }
+            return emitter;
+        }
+    }
+
+    private void unsubscribe(Watch watch, SseEmitter emitter) {
+        synchronized (watch) {
+            watch.subscribers.remove(emitter);
+            if (watch.subscribers.isEmpty() && !watch.closed) {
+                stop(watch);
+                watches.remove(watch.key, watch);
+            }
+        }
+    }
+
+    private void schedule(Watch watch, Duration delay) {
+        synchronized (watch) {
+            if (!watch.closed) {
+                watch.nextPoll = scheduler.schedule(() -> pollers.execute(() -> poll(watch)),
+                        delay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void poll(Watch watch) {
+        Map<String, Object> status;
+        try {
+            upstreamPolls.increment();
+            status = flightMcpService.getFlightStatus(Map.of("flightNumber", watch.flightNumber, "airline", watch.airline));
+        } catch (RuntimeException e) {
+            pollFailures.increment();
+            LOGGER.debug("Status check for {} {} failed", watch.airline, watch.flightNumber, e);
+            Map<String, Object> last;
+            synchronized (watch) {
+                last = watch.lastStatus;
+            }
+            schedule(watch, last == null ? intervalImminent : interval(last));
+            return;
+        }
+
+        boolean finished = isFinal(status);
+        synchronized (watch) {
+            if (watch.closed) {
+                return;
+            }
+            if (watch.lastStatus == null) {
+                broadcast(watch, "snapshot", event(watch, "status", status));
+            } else {
+                Map<String, Object> changes = changes(watch.lastStatus, status);
+                if (!changes.isEmpty()) {
+                    broadcast(watch, "status", event(watch, "changes", changes));
+                }
+            }
+            watch.lastStatus = status;
+        }
+
+        if (finished) {
+            if (watches.remove(watch.key, watch)) {
+                stop(watch);
+            }
+            watch.subscribers.forEach(SseEmitter::complete);
+        } else {
+            schedule(watch, interval(status));
+        }
+    }
+
+    private Duration interval(Map<String, Object> status) {
+        LocalDateTime departure = departureTime(status);
+        if (departure == null) {
+            return intervalNear;
+        }
+        Duration untilDeparture = Duration.between(LocalDateTime.now(), departure);
+        if (untilDeparture.compareTo(imminentWindow) <= 0) {
+            return intervalImminent;
+        }
+        return untilDeparture.compareTo(nearWindow) <= 0 ? intervalNear : intervalFar;
+    }
+
+    private static LocalDateTime departureTime(Map<String, Object> status) {
+        if (!(status.get("departureTime") instanceof String departure)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(departure);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isFinal(Map<String, Object> status) {
+        return status.get("status") instanceof String value
+                && (FINAL_STATUSES.contains(value.toLowerCase()) || "unknown".equalsIgnoreCase(value));
+    }
+
+    private static Map<String, Object> changes(Map<String, Object> previous, Map<String, Object> current) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        current.forEach((field, value) -> {
+            if (!Objects.equals(previous.get(field), value)) {
+                changes.put(field, value);
+            }
+        });
+        return changes;
+    }
+
+    private static Map<String, Object> event(Watch watch, String field, Map<String, Object> status) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("flightNumber", watch.flightNumber);
+        event.put("airline", watch.airline);
+        event.put(field, status);
+        event.put("checkedAt", LocalDateTime.now().toString());
+        return event;
+    }
+
+    private void broadcast(Watch watch, String name, Map<String, Object> event) {
+        for (SseEmitter subscriber : watch.subscribers) {
+            send(subscriber, name, event);
+        }
+    }
+
+    private void send(SseEmitter emitter, String name, Map<String, Object> event) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(event, MediaType.APPLICATION_JSON));
+            eventsSent.increment();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; completing triggers unsubscribe
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static void stop(Watch watch) {
+        synchronized (watch) {
+            watch.closed = true;
+            if (watch.nextPoll != null) {
+                watch.nextPoll.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "flightStatusWatch";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        int subscribers = 0;
+        for (Watch watch : watches.values()) {
+            subscribers += watch.subscribers.size();
+        }
+        return Map.of(
+                "watchedFlights", watches.size(),
+                "subscribers", subscribers,
+                "upstreamPolls", upstreamPolls.sum(),
+                "pollFailures", pollFailures.sum(),
+                "eventsSent", eventsSent.sum(),
+                "rejected", rejected.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        pollers.shutdownNow();
+        watches.values().forEach(watch -> watch.subscribers.forEach(SseEmitter::complete));
+        watches.clear();
+    }
+}
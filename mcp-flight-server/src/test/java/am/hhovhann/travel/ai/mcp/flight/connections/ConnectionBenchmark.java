@@ -0,0 +1,93 @@
+package am.hhovhann.travel.ai.mcp.flight.connections;
+
+import am.hhovhann.travel.ai.mcp.flight.schedule.ScheduleFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures {@link ConnectionBuilder} over a {@link ScheduleFile}, e.g. one written by
+ * {@code ScheduleFileGenerator}: builds the network of the schedule's first day, then searches random airport
+ * pairs and reports latency percentiles and Pareto set sizes. Run {@code main} from the test classpath with
+ * {@code <schedule> [queries=2000] [maxConnections=2] [minConnectionMinutes=45] [seed=7]}.
+ * A generated schedule with {@code legsPerRouteDay=4} and the other defaults has about 36,000 legs a day.
+ */
+public final class ConnectionBenchmark {
+    private static final int INTERLINE_MINUTES = 30;
+    private static final int MAX_CONNECTION_MINUTES = 6 * 60;
+
+    private ConnectionBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ConnectionBenchmark <schedule> [queries] [maxConnections] [minConnectionMinutes] [seed]");
+            System.exit(1);
+        }
+        ScheduleFile schedule = ScheduleFile.open(Path.of(args[0]));
+        int queries = intArg(args, 1, 2000);
+        int maxConnections = intArg(args, 2, 2);
+        int minConnection = intArg(args, 3, 45);
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 7;
+        if (schedule.legCount() == 0) {
+            System.out.println("The schedule has no legs");
+            return;
+        }
+
+        long start = System.nanoTime();
+        LegNetwork network = LegNetwork.build(schedule, schedule.day(0));
+        System.out.printf("Built network: %,d legs departing on the first day, %,d with the next, %d airports in %d ms%n",
+                network.firstDayLegCount(), network.legCount(), network.airportCount(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        int[] minConnectionMinutes = new int[network.airportCount()];
+        Arrays.fill(minConnectionMinutes, minConnection);
+        ConnectionBuilder builder = new ConnectionBuilder(network, minConnectionMinutes, INTERLINE_MINUTES, MAX_CONNECTION_MINUTES);
+
+        Random random = new Random(seed);
+        int[] origins = new int[queries];
+        int[] destinations = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            origins[i] = random.nextInt(network.airportCount());
+            do {
+                destinations[i] = random.nextInt(network.airportCount());
+            } while (destinations[i] == origins[i]);
+        }
+
+        for (int round = 1; round <= 3; round++) {
+            long[] nanos = new long[queries];
+            long journeys = 0;
+            int answered = 0;
+            int direct = 0;
+            for (int i = 0; i < queries; i++) {
+                long began = System.nanoTime();
+                List<ConnectionBuilder.Journey> found = builder.search(origins[i], destinations[i], maxConnections, 1);
+                nanos[i] = System.nanoTime() - began;
+                journeys += found.size();
+                if (!found.isEmpty()) {
+                    answered++;
+                }
+                if (found.stream().anyMatch(journey -> journey.rows().length == 1)) {
+                    direct++;
+                }
+            }
+            Arrays.sort(nanos);
+            System.out.printf("Round %d: %,d city pairs, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms; "
+                            + "%d%% connected (%d%% direct), %.1f journeys per Pareto set%n",
+                    round, queries, millis(nanos, 0.50), millis(nanos, 0.90), millis(nanos, 0.99),
+                    nanos[queries - 1] / 1e6, 100 * answered / queries, 100 * direct / queries,
+                    answered == 0 ? 0.0 : (double) journeys / answered);
+        }
+    }
+
+    private static double millis(long[] sortedNanos, double percentile) {
+        return sortedNanos[Math.min(sortedNanos.length - 1, (int) (sortedNanos.length * percentile))] / 1e6;
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,174 @@
+package am.hhovhann.travel.ai.mcp.flight.connections;
+
+import am.hhovhann.travel.ai.mcp.flight.schedule.ScheduleFile;
+import am.hhovhann.travel.ai.mcp.flight.schedule.ScheduleFileGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionBuilderTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+    private static final int INTERLINE_MINUTES = 30;
+    private static final int MAX_CONNECTION_MINUTES = 6 * 60;
+
+    @TempDir
+    Path directory;
+
+    private record Score(long fare, int duration, int stops) {
+    }
+
+    @Test
+    void paretoSetsMatchBruteForce() throws IOException {
+        Path file = directory.resolve("schedule.bin");
+        ScheduleFileGenerator.generate(file, 25, 6, 3, 3, FIRST_DAY, new Random(11));
+        ScheduleFile schedule = ScheduleFile.open(file);
+        int day = (int) FIRST_DAY.toEpochDay() + 1;
+        LegNetwork network = LegNetwork.build(schedule, day);
+
+        Random random = new Random(5);
+        int[] minConnection = new int[network.airportCount()];
+        for (int airport = 0; airport < minConnection.length; airport++) {
+            minConnection[airport] = 30 + random.nextInt(61);
+        }
+        ConnectionBuilder builder = new ConnectionBuilder(network, minConnection, INTERLINE_MINUTES, MAX_CONNECTION_MINUTES);
+
+        int[] withStops = new int[ConnectionBuilder.MAX_CONNECTIONS + 1];
+        for (int query = 0; query < 300; query++) {
+            int origin = random.nextInt(network.airportCount());
+            int destination = random.nextInt(network.airportCount());
+            int maxConnections = random.nextInt(ConnectionBuilder.MAX_CONNECTIONS + 1);
+            int seats = random.nextBoolean() ? 1 : 100;
+
+            Set<Score> found = new HashSet<>();
+            for (ConnectionBuilder.Journey journey : builder.search(origin, destination, maxConnections, seats)) {
+                Score score = new Score(journey.fareMinor(), journey.durationMinutes(), journey.stops());
+                assertEquals(score, score(schedule, day, journey.rows()), "journey fields match its legs");
+                found.add(score);
+                withStops[journey.rows().length - 1]++;
+            }
+            Set<Score> expected = origin == destination ? Set.of()
+                    : pareto(journeys(schedule, day, minConnection, origin, destination, maxConnections, seats));
+            assertEquals(expected, found, "query " + query + ": " + origin + " to " + destination
+                    + " with at most " + maxConnections + " connections and " + seats + " seats");
+        }
+        // The queries reach every journey length the builder supports
+        for (int count : withStops) {
+            assertTrue(count > 0, "every number of connections is covered");
+        }
+    }
+
+    @Test
+    void moreConnectionsThanThePruningSupportsAreRefused() throws IOException {
+        Path file = directory.resolve("schedule.bin");
+        ScheduleFileGenerator.generate(file, 5, 2, 2, 1, FIRST_DAY, new Random(3));
+        LegNetwork network = LegNetwork.build(ScheduleFile.open(file), (int) FIRST_DAY.toEpochDay());
+        ConnectionBuilder builder = new ConnectionBuilder(network, new int[network.airportCount()], 0, MAX_CONNECTION_MINUTES);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.search(0, 1, ConnectionBuilder.MAX_CONNECTIONS + 1, 1));
+    }
+
+    // Every journey allowed by the connection rules, enumerated over the schedule file itself
+    private static List<Score> journeys(ScheduleFile schedule, int day, int[] minConnection, int origin, int destination,
+                                        int maxConnections, int seats) {
+        List<Score> journeys = new ArrayList<>();
+        for (int leg = 0; leg < schedule.legCount(); leg++) {
+            if (schedule.origin(leg) == origin && schedule.day(leg) == day && schedule.seats(leg) >= seats) {
+                List<Integer> legs = new ArrayList<>(List.of(leg));
+                extend(schedule, day, minConnection, origin, destination, maxConnections + 1, seats, legs, journeys);
+            }
+        }
+        return journeys;
+    }
+
+    private static void extend(ScheduleFile schedule, int day, int[] minConnection, int origin, int destination,
+                               int maxLegs, int seats, List<Integer> legs, List<Score> journeys) {
+        int last = legs.get(legs.size() - 1);
+        int airport = schedule.destination(last);
+        if (airport == destination) {
+            journeys.add(score(schedule, day, legs.stream().mapToInt(Integer::intValue).toArray()));
+            return;
+        }
+        if (legs.size() == maxLegs) {
+            return;
+        }
+        int arrival = departure(schedule, day, last) + schedule.durationMinutes(last);
+        for (int leg = 0; leg < schedule.legCount(); leg++) {
+            if (schedule.origin(leg) != airport || schedule.seats(leg) < seats) {
+                continue;
+            }
+            int next = schedule.destination(leg);
+            if (next == origin || visits(schedule, legs, next)) {
+                continue;
+            }
+            int dayOffset = schedule.day(leg) - day;
+            if (dayOffset < 0 || dayOffset > 1) {
+                continue;
+            }
+            int departure = departure(schedule, day, leg);
+            int earliest = arrival + minConnection[airport]
+                    + (schedule.carrier(leg) == schedule.carrier(last) ? 0 : INTERLINE_MINUTES);
+            if (departure < earliest || departure > arrival + MAX_CONNECTION_MINUTES) {
+                continue;
+            }
+            legs.add(leg);
+            extend(schedule, day, minConnection, origin, destination, maxLegs, seats, legs, journeys);
+            legs.remove(legs.size() - 1);
+        }
+    }
+
+    private static boolean visits(ScheduleFile schedule, List<Integer> legs, int airport) {
+        for (int leg : legs) {
+            if (schedule.destination(leg) == airport) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int departure(ScheduleFile schedule, int day, int leg) {
+        return (schedule.day(leg) - day) * 24 * 60 + schedule.departureMinute(leg);
+    }
+
+    private static Score score(ScheduleFile schedule, int day, int[] legs) {
+        long fare = 0;
+        int stops = legs.length - 1;
+        for (int leg : legs) {
+            fare += schedule.fareMinor(leg);
+            stops += schedule.stops(leg);
+        }
+        int last = legs[legs.length - 1];
+        int duration = departure(schedule, day, last) + schedule.durationMinutes(last) - departure(schedule, day, legs[0]);
+        return new Score(fare, duration, stops);
+    }
+
+    private static Set<Score> pareto(List<Score> journeys) {
+        Set<Score> pareto = new HashSet<>();
+        for (Score journey : journeys) {
+            boolean beaten = false;
+            for (Score other : journeys) {
+                if (other.fare() <= journey.fare() && other.duration() <= journey.duration() && other.stops() <= journey.stops()
+                        && (other.fare() < journey.fare() || other.duration() < journey.duration() || other.stops() < journey.stops())) {
+                    beaten = true;
+                    break;
+                }
+            }
+            if (!beaten) {
+                pareto.add(journey);
+            }
+        }
+        return pareto;
+    }
+}
@@ -0,0 +1,116 @@
+package am.hhovhann.travel.ai.mcp.flight.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotentBookingsTest {
+
+    private final IdempotentBookings bookings = new IdempotentBookings(Duration.ofHours(1), 1_000);
+
+    @Test
+    void replayingAKeyReturnsTheFirstBooking() {
+        AtomicInteger booked = new AtomicInteger();
+
+        Map<String, Object> first = bookings.execute("key", "fingerprint", () -> Map.of("booking", booked.incrementAndGet()));
+        Map<String, Object> replay = bookings.execute("key", "fingerprint", () -> Map.of("booking", booked.incrementAndGet()));
+
+        assertEquals(first, replay);
+        assertEquals(1, booked.get());
+    }
+
+    @Test
+    void concurrentCallsWithOneKeyBookOnce() throws Exception {
+        AtomicInteger booked = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                results.add(threads.submit(() -> {
+                    start.await();
+                    return bookings.execute("key", "fingerprint", () -> Map.of("booking", booked.incrementAndGet()));
+                }));
+            }
+            start.countDown();
+        }
+
+        assertEquals(1, booked.get());
+        for (Future<Map<String, Object>> result : results) {
+            assertEquals(Map.of("booking", 1), result.get());
+        }
+    }
+
+    @Test
+    void reusingAKeyForAnotherBookingFails() {
+        bookings.execute("key", "fingerprint", () -> Map.of("booking", 1));
+
+        assertThrows(IllegalArgumentException.class, () -> bookings.execute("key", "other", () -> Map.of("booking", 2)));
+    }
+
+    @Test
+    void aFailedBookingCanBeRetried() {
+        assertThrows(IllegalStateException.class, () -> bookings.execute("key", "fingerprint", () -> {
+            throw new IllegalStateException("Sold out");
+        }));
+
+        assertEquals(Map.of("booking", 2), bookings.execute("key", "fingerprint", () -> Map.of("booking", 2)));
+    }
+
+    @Test
+    void fingerprintIgnoresMapOrderAtEveryLevel() {
+        Map<String, Object> passenger = new HashMap<>();
+        passenger.put("name", "Ani");
+        passenger.put("email", "ani@example.com");
+        Map<String, Object> samePassenger = new LinkedHashMap<>();
+        samePassenger.put("email", "ani@example.com");
+        samePassenger.put("name", "Ani");
+
+        String fingerprint = IdempotentBookings.fingerprint(Map.of("flightId", "AERO1", "passengerDetails", passenger));
+
+        assertEquals(fingerprint, IdempotentBookings.fingerprint(Map.of("passengerDetails", samePassenger, "flightId", "AERO1")));
+        assertNotEquals(fingerprint, IdempotentBookings.fingerprint(Map.of("flightId", "AERO2", "passengerDetails", passenger)));
+    }
+
+    @Test
+    void oldestKeysAreForgottenPastTheBound() {
+        IdempotentBookings bounded = new IdempotentBookings(Duration.ofHours(1), 2);
+        for (int i = 0; i < 3; i++) {
+            int booking = i;
+            bounded.execute("key-" + i, "fingerprint", () -> Map.of("booking", booking));
+        }
+
+        assertEquals(Map.of("booking", 99), bounded.execute("key-0", "fingerprint", () -> Map.of("booking", 99)));
+        assertEquals(Map.of("booking", 2), bounded.execute("key-2", "fingerprint", () -> Map.of("booking", 99)));
+    }
+
+    @Test
+    void aRetriedKeyIsNotEvictedInPlaceOfItsFailedAttempt() {
+        IdempotentBookings bounded = new IdempotentBookings(Duration.ofHours(1), 3);
+        bounded.execute("first", "fingerprint", () -> Map.of("booking", 1));
+        assertThrows(IllegalStateException.class, () -> bounded.execute("key", "fingerprint", () -> {
+            throw new IllegalStateException("Sold out");
+        }));
+        bounded.execute("other", "fingerprint", () -> Map.of("booking", 2));
+        bounded.execute("key", "fingerprint", () -> Map.of("booking", 3));
+        bounded.execute("third", "fingerprint", () -> Map.of("booking", 4));
+        bounded.execute("fourth", "fingerprint", () -> Map.of("booking", 5));
+
+        // "other" is older than the retried "key", whose failed attempt is the one that came before it
+        assertEquals(Map.of("booking", 3), bounded.execute("key", "fingerprint", () -> Map.of("booking", 99)));
+        assertEquals(Map.of("booking", 99), bounded.execute("other", "fingerprint", () -> Map.of("booking", 99)));
+    }
+}
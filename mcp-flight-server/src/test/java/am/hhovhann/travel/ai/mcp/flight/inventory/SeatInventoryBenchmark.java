@@ -0,0 +1,129 @@
+package am.hhovhann.travel.ai.mcp.flight.inventory;
+
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Books one flight from thousands of virtual threads at once and checks that no seat was sold twice, that
+ * retries with an idempotency key got the original booking back, and that holds do not leak seats.
+ * Run {@code main} from the test classpath with {@code [bookings=20000] [seats=5000] [retryEvery=5] [rounds=3]}.
+ * Every {@code retryEvery}-th booking repeats an earlier booking's idempotency key, as a client retrying after
+ * a lost response would.
+ */
+public final class SeatInventoryBenchmark {
+    private static final String FLIGHT_ID = "BENCH-001";
+    private static final String CABIN = "economy";
+
+    private SeatInventoryBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int bookings = intArg(args, 0, 20_000);
+        int seats = intArg(args, 1, 5_000);
+        int retryEvery = Math.max(2, intArg(args, 2, 5));
+        int rounds = intArg(args, 3, 3);
+
+        for (int round = 1; round <= rounds; round++) {
+            run(round, bookings, seats, retryEvery);
+        }
+    }
+
+    private static void run(int round, int bookings, int seats, int retryEvery) throws InterruptedException {
+        try (SeatInventory inventory = new SeatInventory(Duration.ofMillis(200), Duration.ofDays(1), Duration.ofMinutes(1))) {
+            IdempotentBookings idempotent = new IdempotentBookings(Duration.ofHours(1), bookings);
+            inventory.track(flight(seats));
+
+            AtomicInteger references = new AtomicInteger();
+            LongAdder booked = new LongAdder();
+            LongAdder rejected = new LongAdder();
+            LongAdder replayed = new LongAdder();
+            Map<String, String> firstReference = new ConcurrentHashMap<>();
+            Set<String> issued = ConcurrentHashMap.newKeySet();
+
+            CountDownLatch start = new CountDownLatch(1);
+            long elapsed;
+            try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < bookings; i++) {
+                    // Retries reuse the key of the booking retryEvery positions earlier
+                    String key = "key-" + (i % retryEvery == retryEvery - 1 ? i - 1 : i);
+                    threads.execute(() -> {
+                        try {
+                            start.await();
+                            Map<String, Object> booking = idempotent.execute(key, "booking", () -> {
+                                if (!inventory.tryReserve(FLIGHT_ID, CABIN, 1)) {
+                                    throw new IllegalStateException("Sold out");
+                                }
+                                String reference = "BK" + references.incrementAndGet();
+                                issued.add(reference);
+                                return Map.of("bookingReference", reference);
+                            });
+                            String reference = (String) booking.get("bookingReference");
+                            if (firstReference.putIfAbsent(key, reference) == null) {
+                                booked.increment();
+                            } else {
+                                replayed.increment();
+                            }
+                        } catch (IllegalStateException e) {
+                            rejected.increment();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                }
+                long begin = System.nanoTime();
+                start.countDown();
+                threads.shutdown();
+                threads.awaitTermination(1, TimeUnit.MINUTES);
+                elapsed = System.nanoTime() - begin;
+            }
+
+            int left = inventory.available(FLIGHT_ID, CABIN).orElseThrow();
+            boolean consistent = issued.size() == booked.sum() && issued.size() + left == seats
+                    && firstReference.values().stream().distinct().count() == issued.size();
+            System.out.printf("Round %d: %,d bookings in %d ms (%,.0f/s): %,d booked, %,d replayed, %,d sold out, "
+                            + "%,d seats left, %s CAS retries -> %s%n",
+                    round, bookings, elapsed / 1_000_000, bookings / (elapsed / 1e9), booked.sum(), replayed.sum(),
+                    rejected.sum(), left, inventory.metrics().get("casRetries"), consistent ? "consistent" : "OVERSOLD");
+
+            holds(inventory, left);
+        }
+    }
+
+    // Holds every remaining seat, lets them lapse and checks that they all came back
+    private static void holds(SeatInventory inventory, int left) throws InterruptedException {
+        if (left == 0) {
+            return;
+        }
+        List<SeatInventory.Hold> held = IntStream.range(0, left)
+                .mapToObj(i -> inventory.hold(FLIGHT_ID, CABIN, 1))
+                .toList();
+        int whileHeld = inventory.available(FLIGHT_ID, CABIN).orElseThrow();
+        Thread.sleep(500);
+        System.out.printf("         %,d holds: %d seats left while held, %d after expiry%n",
+                held.size(), whileHeld, inventory.available(FLIGHT_ID, CABIN).orElseThrow());
+    }
+
+    private static FlightResponse flight(int seats) {
+        LocalDateTime departure = LocalDateTime.now().plusDays(7);
+        return new FlightResponse(FLIGHT_ID, "BN001", "Bench Air", "EVN", "CDG", departure, departure.plusHours(5),
+                new BigDecimal("199.00"), "USD", CABIN, seats, List.of(), "5h", 0, "Bench");
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
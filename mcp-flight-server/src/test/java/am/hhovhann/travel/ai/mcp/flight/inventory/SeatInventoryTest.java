@@ -0,0 +1,111 @@
+package am.hhovhann.travel.ai.mcp.flight.inventory;
+
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatInventoryTest {
+    private static final String FLIGHT_ID = "TEST1:EVN-CDG:2030-01-01";
+
+    private final SeatInventory inventory = new SeatInventory(Duration.ofMillis(100), Duration.ofDays(1), Duration.ofMinutes(1));
+
+    @AfterEach
+    void close() {
+        inventory.close();
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws InterruptedException {
+        inventory.track(flight(FLIGHT_ID, 100));
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1_000; i++) {
+                threads.execute(() -> {
+                    await(start);
+                    if (inventory.tryReserve(FLIGHT_ID, "economy", 1)) {
+                        reserved.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(100, reserved.get());
+        assertEquals(0, inventory.available(FLIGHT_ID, "economy").orElseThrow());
+        assertFalse(inventory.tryReserve(FLIGHT_ID, "economy", 1));
+    }
+
+    @Test
+    void concurrentReserveAndReleaseKeepTheCount() throws InterruptedException {
+        inventory.track(flight(FLIGHT_ID, 10));
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1_000; i++) {
+                threads.execute(() -> {
+                    await(start);
+                    if (inventory.tryReserve(FLIGHT_ID, "economy", 2)) {
+                        int left = inventory.available(FLIGHT_ID, "economy").orElseThrow();
+                        assertTrue(left >= 0 && left <= 8);
+                        inventory.release(FLIGHT_ID, "economy", 2);
+                    }
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(10, inventory.available(FLIGHT_ID, "economy").orElseThrow());
+    }
+
+    @Test
+    void cabinsAndDatesAreCountedSeparately() {
+        inventory.track(flight(FLIGHT_ID, 1));
+        inventory.track(flight("TEST1:EVN-CDG:2030-01-02", 1));
+
+        assertTrue(inventory.tryReserve(FLIGHT_ID, "economy", 1));
+        assertTrue(inventory.tryReserve("TEST1:EVN-CDG:2030-01-02", "Economy", 1));
+        assertThrows(IllegalArgumentException.class, () -> inventory.tryReserve(FLIGHT_ID, "business", 1));
+    }
+
+    @Test
+    void expiredHoldsGiveTheirSeatsBack() throws InterruptedException {
+        inventory.track(flight(FLIGHT_ID, 3));
+        inventory.hold(FLIGHT_ID, "economy", 2);
+        SeatInventory.Hold claimed = inventory.hold(FLIGHT_ID, "economy", 1);
+        assertEquals(0, inventory.available(FLIGHT_ID, "economy").orElseThrow());
+        assertTrue(inventory.claim(claimed.holdId(), FLIGHT_ID, "economy").isPresent());
+
+        Thread.sleep(300);
+
+        assertEquals(2, inventory.available(FLIGHT_ID, "economy").orElseThrow());
+        assertTrue(inventory.claim(claimed.holdId(), FLIGHT_ID, "economy").isEmpty());
+    }
+
+    private static FlightResponse flight(String flightId, int seats) {
+        LocalDateTime departure = LocalDateTime.now().plusDays(7);
+        return new FlightResponse(flightId, "TS001", "Test Air", "EVN", "CDG", departure, departure.plusHours(5),
+                new BigDecimal("199.00"), "USD", "economy", seats, List.of(), "5h", 0, "Test");
+    }
+
+    private static void await(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package am.hhovhann.travel.ai.mcp.flight.schedule;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures how long a {@link ScheduleFile}, e.g. one written by {@link ScheduleFileGenerator}, takes to open and
+ * how long route-day lookups take. Run {@code main} from the test classpath with
+ * {@code <schedule> [queries=200000] [seed=43]}.
+ */
+public final class ScheduleFileBenchmark {
+
+    private ScheduleFileBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ScheduleFileBenchmark <schedule> [queries] [seed]");
+            System.exit(1);
+        }
+        Path path = Path.of(args[0]);
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 43);
+
+        long start = System.nanoTime();
+        ScheduleFile schedule = ScheduleFile.open(path);
+        System.out.printf("Opened and indexed %,d legs (%,d route-days) in %d ms%n",
+                schedule.legCount(), schedule.routeDayCount(), (System.nanoTime() - start) / 1_000_000);
+        if (schedule.legCount() == 0) {
+            return;
+        }
+
+        // Random existing route-days, plus one miss in four to include the cost of an unsuccessful lookup
+        int[] origins = new int[queries];
+        int[] destinations = new int[queries];
+        int[] days = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            int leg = random.nextInt(schedule.legCount());
+            origins[i] = schedule.origin(leg);
+            destinations[i] = random.nextInt(4) == 0 ? random.nextInt(schedule.airportCount()) : schedule.destination(leg);
+            days[i] = schedule.day(leg);
+        }
+
+        for (int round = 1; round <= 3; round++) {
+            long legsRead = 0;
+            long checksum = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                int slot = schedule.find(origins[i], destinations[i], days[i]);
+                if (slot < 0) {
+                    continue;
+                }
+                for (int leg = schedule.firstLeg(slot); leg < schedule.endLeg(slot); leg++) {
+                    checksum += schedule.fareMinor(leg) + schedule.departureMinute(leg) + schedule.seats(leg);
+                    legsRead++;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Round %d: %,d lookups, %,d legs read, %.2f us per lookup (checksum %d)%n",
+                    round, queries, legsRead, elapsed / 1_000.0 / queries, checksum);
+        }
+    }
+}
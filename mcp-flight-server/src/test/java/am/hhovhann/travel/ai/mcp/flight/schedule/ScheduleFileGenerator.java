@@ -0,0 +1,147 @@
+package am.hhovhann.travel.ai.mcp.flight.schedule;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes a synthetic {@link ScheduleFile}, so the provider can be tried at realistic sizes without real airline
+ * data. Run {@code main} from the test classpath with
+ * {@code <output> [airports=300] [routesPerAirport=30] [days=180] [legsPerRouteDay=2] [seed=42]};
+ * {@link ScheduleFileBenchmark} then measures lookups in the file.
+ * The defaults produce about 3.2 million legs (75 MB) starting today. Airports past the built-in list of
+ * real IATA codes get synthetic codes starting with {@code Q}; carriers are {@code X0}..{@code XZ}.
+ */
+public final class ScheduleFileGenerator {
+    private static final List<String> KNOWN_AIRPORTS = List.of(
+            "JFK", "LAX", "ORD", "ATL", "DFW", "DEN", "SFO", "SEA", "MIA", "BOS",
+            "LHR", "CDG", "FRA", "AMS", "MAD", "FCO", "MUC", "ZRH", "VIE", "IST",
+            "EVN", "DXB", "DOH", "SIN", "HKG", "NRT", "ICN", "SYD", "YYZ", "MEX");
+    private static final int CARRIERS = 36;
+    private static final int MAX_AIRPORTS = KNOWN_AIRPORTS.size() + 26 * 26;
+
+    private ScheduleFileGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ScheduleFileGenerator <output> [airports] [routesPerAirport] [days] [legsPerRouteDay] [seed]");
+            System.exit(1);
+        }
+        Path output = Path.of(args[0]);
+        int airports = intArg(args, 1, 300);
+        int routesPerAirport = Math.min(intArg(args, 2, 30), airports - 1);
+        int days = intArg(args, 3, 180);
+        int legsPerRouteDay = intArg(args, 4, 2);
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+        if (airports < 2 || airports > MAX_AIRPORTS) {
+            throw new IllegalArgumentException("airports must be between 2 and " + MAX_AIRPORTS + ": " + airports);
+        }
+        long legs = (long) airports * routesPerAirport * days * legsPerRouteDay;
+        if (legs > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many legs: " + legs);
+        }
+
+        long start = System.nanoTime();
+        generate(output, airports, routesPerAirport, days, legsPerRouteDay, LocalDate.now(), new Random(seed));
+        System.out.printf("Wrote %,d legs (%,d bytes) to %s in %d ms%n",
+                legs, Files.size(output), output, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public static void generate(Path output, int airportCount, int routesPerAirport, int days, int legsPerRouteDay,
+                         LocalDate firstDay, Random random) throws IOException {
+        ScheduleFile.Layout layout = new ScheduleFile.Layout(
+                airportCount * routesPerAirport * days * legsPerRouteDay, airportCount, CARRIERS);
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.totalBytes());
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(0, ScheduleFile.MAGIC);
+            buffer.putInt(4, ScheduleFile.VERSION);
+            buffer.putInt(8, layout.legCount());
+            buffer.putInt(12, layout.airportCount());
+            buffer.putInt(16, layout.carrierCount());
+            for (int i = 0; i < airportCount; i++) {
+                buffer.put((int) layout.airports() + 3 * i, airportCode(i).getBytes(StandardCharsets.US_ASCII));
+            }
+            for (int i = 0; i < CARRIERS; i++) {
+                String code = "X" + Character.toUpperCase(Character.forDigit(i, CARRIERS));
+                buffer.put((int) layout.carriers() + 2 * i, code.getBytes(StandardCharsets.US_ASCII));
+            }
+
+            int firstEpochDay = (int) firstDay.toEpochDay();
+            int[] departures = new int[legsPerRouteDay];
+            int leg = 0;
+            for (int origin = 0; origin < airportCount; origin++) {
+                // Destinations ascending so legs come out sorted by (origin, destination, day)
+                for (int destination : destinations(origin, airportCount, routesPerAirport, random)) {
+                    int blockMinutes = 45 + Math.floorMod(31 * origin + 17 * destination + origin * destination, 800);
+                    int carrier = random.nextInt(CARRIERS);
+                    int flightNumberBase = 100 + random.nextInt(9000);
+                    for (int day = 0; day < days; day++) {
+                        for (int i = 0; i < legsPerRouteDay; i++) {
+                            departures[i] = 300 + random.nextInt(18 * 60);
+                        }
+                        Arrays.sort(departures);
+                        for (int i = 0; i < legsPerRouteDay; i++) {
+                            int stops = random.nextInt(5) == 0 ? 1 : 0;
+                            int duration = blockMinutes + stops * (60 + random.nextInt(120));
+                            long fare = Math.round((40 + duration * 0.9) * (0.8 + random.nextDouble() * 0.8) * 100);
+
+                            buffer.putShort((int) (layout.origin() + 2L * leg), (short) origin);
+                            buffer.putShort((int) (layout.destination() + 2L * leg), (short) destination);
+                            buffer.putInt((int) (layout.day() + 4L * leg), firstEpochDay + day);
+                            buffer.putShort((int) (layout.departureMinute() + 2L * leg), (short) departures[i]);
+                            buffer.putShort((int) (layout.durationMinutes() + 2L * leg), (short) duration);
+                            buffer.putShort((int) (layout.carrier() + 2L * leg), (short) carrier);
+                            buffer.putShort((int) (layout.flightNumber() + 2L * leg), (short) (flightNumberBase + i));
+                            buffer.putInt((int) (layout.fareMinor() + 4L * leg), (int) fare);
+                            buffer.putShort((int) (layout.seats() + 2L * leg), (short) random.nextInt(250));
+                            buffer.put((int) (layout.stops() + leg), (byte) stops);
+                            leg++;
+                        }
+                    }
+                }
+            }
+            mapped.force();
+        }
+    }
+
+    private static int[] destinations(int origin, int airportCount, int routes, Random random) {
+        Set<Integer> chosen = new LinkedHashSet<>();
+        while (chosen.size() < routes) {
+            int destination = random.nextInt(airportCount);
+            if (destination != origin) {
+                chosen.add(destination);
+            }
+        }
+        return chosen.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private static String airportCode(int index) {
+        if (index < KNOWN_AIRPORTS.size()) {
+            return KNOWN_AIRPORTS.get(index);
+        }
+        int synthetic = index - KNOWN_AIRPORTS.size();
+        return "Q" + (char) ('A' + synthetic / 26 % 26) + (char) ('A' + synthetic % 26);
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
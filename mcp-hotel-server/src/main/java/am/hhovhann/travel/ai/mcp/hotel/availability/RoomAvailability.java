@@ -0,0 +1,224 @@
+package am.hhovhann.travel.ai.mcp.hotel.availability;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import am.hhovhann.travel.ai.core.model.HotelResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Rooms left per hotel, room type and night, for the next {@code hotel.availability.horizon-days} nights.
+ * Every room type has {@code hotel.availability.rooms-per-type} rooms on every night until it is booked.
+ * <p>
+ * Searches drop hotels without enough rooms on every night of the stay, and bookings take the stay's nights
+ * atomically, so two bookings can never both get the last room of a night.
+ * <p>
+ * Only booked room types have a calendar. Every {@code hotel.availability.sweep-interval}, calendars whose
+ * bookings have all passed or been released are dropped, and so are room types searched more than
+ * {@code hotel.availability.search-retention} ago.
+ */
+@Component
+public class RoomAvailability implements MetricsSource, AutoCloseable {
+
+    public record Reservation(String hotelId, String roomType, LocalDate checkIn, LocalDate checkOut, int rooms) {
+    }
+
+    private record RoomKey(String hotelId, String roomType) {
+    }
+
+    private record SearchedType(String roomType, long searchedAtMillis) {
+    }
+
+    private final int roomsPerType;
+    private final int horizonDays;
+    private final Duration searchRetention;
+    // Calendars change only inside the map's compute methods, so a sweep cannot drop one a booking is taking
+    private final ConcurrentHashMap<RoomKey, RoomCalendar> calendars = new ConcurrentHashMap<>();
+    // Room type a hotel was last searched with, for bookings that do not name one
+    private final ConcurrentHashMap<String, SearchedType> searchedRoomTypes = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder filteredOut = new LongAdder();
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public RoomAvailability(@Value("${hotel.availability.rooms-per-type:10}") int roomsPerType,
+                            @Value("${hotel.availability.horizon-days:365}") int horizonDays,
+                            @Value("${hotel.availability.search-retention:1h}") Duration searchRetention,
+                            @Value("${hotel.availability.sweep-interval:10m}") Duration sweepInterval) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("hotel.availability.horizon-days must be positive: " + horizonDays);
+        }
+        if (roomsPerType < 0 || roomsPerType > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("hotel.availability.rooms-per-type must be between 0 and "
+                    + Short.MAX_VALUE + ": " + roomsPerType);
+        }
+        this.roomsPerType = roomsPerType;
+        this.horizonDays = horizonDays;
+        this.searchRetention = searchRetention;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("room-availability").daemon().factory());
+        this.scheduler.scheduleWithFixedDelay(this::sweep,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The hotels with at least {@code rooms} rooms of their room type free on every night in
+     * {@code [checkIn, checkOut)}, in their original order. Stays that cannot be booked at all, such as
+     * ones in the past or beyond the horizon, are left to the booking to reject.
+     */
+    public List<HotelResponse> filterAvailable(List<HotelResponse> hotels, LocalDate checkIn, LocalDate checkOut, int rooms) {
+        long now = System.currentTimeMillis();
+        for (HotelResponse hotel : hotels) {
+            searchedRoomTypes.put(hotel.hotelId(), new SearchedType(normalize(hotel.roomType()), now));
+        }
+        return filter(hotels, HotelResponse::hotelId, hotel -> normalize(hotel.roomType()), checkIn, checkOut, rooms);
+    }
+
+    /**
+     * Like {@link #filterAvailable(List, LocalDate, LocalDate, int)}, for results that carry no room type:
+     * each hotel is checked for the room type it was last searched with, which a booking defaults to.
+     */
+    public <T> List<T> filterAvailable(List<T> hotels, Function<T, String> hotelId, LocalDate checkIn, LocalDate checkOut,
+                                       int rooms) {
+        return filter(hotels, hotelId, hotel -> searchedRoomType(hotelId.apply(hotel)), checkIn, checkOut, rooms);
+    }
+
+    private <T> List<T> filter(List<T> hotels, Function<T, String> hotelId, Function<T, String> roomType,
+                               LocalDate checkIn, LocalDate checkOut, int rooms) {
+        long today = today();
+        List<T> available = new ArrayList<>(hotels.size());
+        for (T hotel : hotels) {
+            int free = available(hotelId.apply(hotel), roomType.apply(hotel), checkIn.toEpochDay(), checkOut.toEpochDay(), today);
+            checked.increment();
+            if (free < 0 || free >= rooms) {
+                available.add(hotel);
+            } else {
+                filteredOut.increment();
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Takes {@code rooms} rooms on every night of the stay. {@code roomType} defaults to the one the hotel was
+     * searched with. Throws {@link IllegalArgumentException} for a stay outside the bookable window and
+     * {@link IllegalStateException} when a night does not have enough rooms left.
+     */
+    public Reservation reserve(String hotelId, String roomType, LocalDate checkIn, LocalDate checkOut, int rooms) {
+        if (rooms <= 0) {
+            throw new IllegalArgumentException("Room count must be positive: " + rooms);
+        }
+        long today = today();
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("checkOut must be after checkIn");
+        }
+        if (checkIn.toEpochDay() < today || checkOut.toEpochDay() > today + horizonDays) {
+            throw new IllegalArgumentException("Stays can be booked from today up to " + horizonDays + " nights ahead");
+        }
+        String type = roomType == null || roomType.isBlank() ? searchedRoomType(hotelId) : normalize(roomType);
+        boolean[] taken = new boolean[1];
+        calendars.compute(new RoomKey(hotelId, type), (key, calendar) -> {
+            RoomCalendar current = calendar == null ? new RoomCalendar(roomsPerType, horizonDays, today) : calendar;
+            taken[0] = current.reserve(checkIn.toEpochDay(), checkOut.toEpochDay(), rooms, today);
+            // A refused first booking leaves no calendar behind
+            return taken[0] || calendar != null ? current : null;
+        });
+        if (!taken[0]) {
+            refused.increment();
+            throw new IllegalStateException("Not enough " + type + " rooms left at " + hotelId + " between "
+                    + checkIn + " and " + checkOut);
+        }
+        reserved.increment();
+        return new Reservation(hotelId, type, checkIn, checkOut, rooms);
+    }
+
+    public void release(Reservation reservation) {
+        long today = today();
+        calendars.computeIfPresent(new RoomKey(reservation.hotelId(), reservation.roomType()), (key, calendar) -> {
+            calendar.release(reservation.checkIn().toEpochDay(), reservation.checkOut().toEpochDay(),
+                    reservation.rooms(), today);
+            released.increment();
+            return calendar;
+        });
+    }
+
+    /**
+     * Rooms free on every night of the stay, or -1 when the stay is outside the bookable window.
+     */
+    public int available(String hotelId, String roomType, LocalDate checkIn, LocalDate checkOut) {
+        return available(hotelId, normalize(roomType), checkIn.toEpochDay(), checkOut.toEpochDay(), today());
+    }
+
+    private int available(String hotelId, String roomType, long from, long to, long today) {
+        RoomCalendar calendar = calendars.get(new RoomKey(hotelId, roomType));
+        if (calendar != null) {
+            return calendar.available(from, to, today);
+        }
+        return from >= today && to > from && to <= today + horizonDays ? roomsPerType : -1;
+    }
+
+    private String searchedRoomType(String hotelId) {
+        SearchedType searched = searchedRoomTypes.get(hotelId);
+        return searched == null ? normalize(null) : searched.roomType();
+    }
+
+    private void sweep() {
+        long today = today();
+        for (RoomKey key : calendars.keySet()) {
+            calendars.computeIfPresent(key, (k, calendar) -> {
+                if (!calendar.isFree(today)) {
+                    return calendar;
+                }
+                evicted.increment();
+                return null;
+            });
+        }
+        long cutoff = System.currentTimeMillis() - searchRetention.toMillis();
+        searchedRoomTypes.values().removeIf(searched -> searched.searchedAtMillis() < cutoff);
+    }
+
+    private long today() {
+        return LocalDate.now().toEpochDay();
+    }
+
+    private static String normalize(String roomType) {
+        return roomType == null || roomType.isBlank() ? "standard" : roomType.trim().toLowerCase();
+    }
+
+    @Override
+    public String metricsName() {
+        return "roomAvailability";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "roomTypes", calendars.size(),
+                "searchedHotels", searchedRoomTypes.size(),
+                "checked", checked.sum(),
+                "filteredOut", filteredOut.sum(),
+                "reserved", reserved.sum(),
+                "released", released.sum(),
+                "refused", refused.sum(),
+                "evicted", evicted.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,161 @@
+package am.hhovhann.travel.ai.mcp.hotel.availability;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Rooms left per night for one room type, over a rolling window of {@code horizon} nights starting today.
+ * Nights live in a ring of slots, and a segment tree of minimums over the slots answers "how many rooms are
+ * free on every night of a stay" in O(log horizon). Counts are shorts, so a year of nights takes about 2 KB.
+ * <p>
+ * Availability checks read optimistically without locking; reservations take the calendar's write lock, so a
+ * stay's nights are taken all together or not at all.
+ */
+final class RoomCalendar {
+    private final int capacity;
+    private final int horizon;
+    private final int size;
+    // tree[size + slot] is a night's free rooms; tree[i] is the minimum of tree[2i] and tree[2i + 1]
+    private final short[] tree;
+    private final StampedLock lock = new StampedLock();
+    // Epoch day of the window's first night; guarded by lock
+    private long firstDay;
+
+    RoomCalendar(int capacity, int horizon, long today) {
+        if (capacity < 0 || capacity > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Rooms per type must be between 0 and " + Short.MAX_VALUE + ": " + capacity);
+        }
+        this.capacity = capacity;
+        this.horizon = horizon;
+        this.size = Integer.highestOneBit(Math.max(1, horizon - 1)) << 1;
+        this.tree = new short[2 * size];
+        Arrays.fill(tree, Short.MAX_VALUE);
+        for (int slot = 0; slot < horizon; slot++) {
+            tree[size + slot] = (short) capacity;
+        }
+        for (int i = size - 1; i >= 1; i--) {
+            tree[i] = (short) Math.min(tree[2 * i], tree[2 * i + 1]);
+        }
+        this.firstDay = today;
+    }
+
+    /**
+     * Rooms free on every night in {@code [from, to)}, or -1 when those nights are outside the window.
+     */
+    int available(long from, long to, long today) {
+        long stamp = lock.tryOptimisticRead();
+        if (firstDay >= today) {
+            int free = inWindow(from, to) ? min(from, to) : -1;
+            if (lock.validate(stamp)) {
+                return free;
+            }
+        }
+        stamp = lock.writeLock();
+        try {
+            roll(today);
+            return inWindow(from, to) ? min(from, to) : -1;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Takes {@code rooms} rooms on every night in {@code [from, to)} if each night has that many free.
+     */
+    boolean reserve(long from, long to, int rooms, long today) {
+        long stamp = lock.writeLock();
+        try {
+            roll(today);
+            if (!inWindow(from, to) || min(from, to) < rooms) {
+                return false;
+            }
+            for (long day = from; day < to; day++) {
+                int slot = slot(day);
+                set(slot, tree[size + slot] - rooms);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void release(long from, long to, int rooms, long today) {
+        long stamp = lock.writeLock();
+        try {
+            roll(today);
+            // Nights that have passed were already given back by the roll
+            for (long day = Math.max(from, firstDay); day < to && day < firstDay + horizon; day++) {
+                int slot = slot(day);
+                set(slot, Math.min(capacity, tree[size + slot] + rooms));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Whether every night from {@code today} on has all of its rooms free, so the calendar holds no bookings.
+     */
+    boolean isFree(long today) {
+        long stamp = lock.writeLock();
+        try {
+            roll(today);
+            return tree[1] >= capacity;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private boolean inWindow(long from, long to) {
+        return from >= firstDay && to > from && to <= firstDay + horizon;
+    }
+
+    // Nights that have passed become the window's new last nights, with every room free
+    private void roll(long today) {
+        if (today <= firstDay) {
+            return;
+        }
+        for (long day = firstDay; day < Math.min(today, firstDay + horizon); day++) {
+            set(slot(day), capacity);
+        }
+        firstDay = today;
+    }
+
+    private int min(long from, long to) {
+        int first = slot(from);
+        int last = slot(to - 1);
+        if (first <= last) {
+            return min(first, last + 1);
+        }
+        return Math.min(min(first, horizon), min(0, last + 1));
+    }
+
+    private int min(int fromSlot, int toSlot) {
+        int min = Short.MAX_VALUE;
+        for (int l = fromSlot + size, r = toSlot + size; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                min = Math.min(min, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                min = Math.min(min, tree[--r]);
+            }
+        }
+        return min;
+    }
+
+    private void set(int slot, int rooms) {
+        int i = size + slot;
+        tree[i] = (short) rooms;
+        for (i >>= 1; i >= 1; i >>= 1) {
+            tree[i] = (short) Math.min(tree[2 * i], tree[2 * i + 1]);
+        }
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) horizon);
+    }
+}
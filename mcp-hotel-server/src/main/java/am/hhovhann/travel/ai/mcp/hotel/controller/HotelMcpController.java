@@ -3,10 +3,15 @@ package am.hhovhann.travel.ai.mcp.hotel.controller;
 import am.hhovhann.travel.ai.core.mcp.model.McpRequest;
 import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
 import am.hhovhann.travel.ai.core.mcp.model.McpError;
+import am.hhovhann.travel.ai.core.mcp.server.McpBatchDispatcher;
+import am.hhovhann.travel.ai.core.mcp.server.McpProgress;
 import am.hhovhann.travel.ai.mcp.hotel.service.HotelMcpService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -16,45 +21,57 @@ import java.util.Map;
 public class HotelMcpController {
 
     private final HotelMcpService hotelMcpService;
+    private final McpBatchDispatcher batchDispatcher;
 
     @Autowired
-    public HotelMcpController(HotelMcpService hotelMcpService) {
+    public HotelMcpController(HotelMcpService hotelMcpService, McpBatchDispatcher batchDispatcher) {
         this.hotelMcpService = hotelMcpService;
+        this.batchDispatcher = batchDispatcher;
     }
 
     @PostMapping
-    public ResponseEntity<McpResponse> handleMcpRequest(@RequestBody McpRequest request) {
+    public ResponseEntity<?> handleMcpRequest(@RequestBody JsonNode body) {
+        return batchDispatcher.dispatch(body, request -> handleRequest(request, McpProgress.NONE));
+    }
+
+    /**
+     * Streamable HTTP: chosen when the client accepts {@code text/event-stream}; searches called with a
+     * progress token send each provider's results before the final response.
+     */
+    @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter handleMcpStream(@RequestBody JsonNode body) {
+        return batchDispatcher.stream(body, this::handleRequest);
+    }
+
+    private McpResponse handleRequest(McpRequest request, McpProgress progress) {
         try {
             Map<String, Object> result = switch (request.method()) {
-                case "tools/call" -> handleToolCall(request);
+                case "tools/call" -> handleToolCall(request, progress);
                 case "initialize" -> handleInitialize(request);
                 case "tools/list" -> handleToolsList(request);
                 default -> throw new IllegalArgumentException("Unknown method: " + request.method());
             };
 
-            McpResponse response = new McpResponse(
+            return new McpResponse(
                     "2.0",
                     request.id(),
                     result,
                     null
             );
-
-            return ResponseEntity.ok(response);
         } catch (Exception e) {
             McpError error = new McpError(-32603, e.getMessage(), null);
-            McpResponse errorResponse = new McpResponse("2.0", request.id(), null, error);
-            return ResponseEntity.badRequest().body(errorResponse);
+            return new McpResponse("2.0", request.id(), null, error);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private Map<String, Object> handleToolCall(McpRequest request) {
+    private Map<String, Object> handleToolCall(McpRequest request, McpProgress progress) {
         Map<String, Object> params = request.params();
         String toolName = (String) params.get("name");
         Map<String, Object> arguments = (Map<String, Object>) params.get("arguments");
 
         return switch (toolName) {
-            case "search_hotels" -> hotelMcpService.searchHotels(arguments);
+            case "search_hotels" -> hotelMcpService.searchHotels(arguments, progress);
             case "book_hotel" -> hotelMcpService.bookHotel(arguments);
             case "get_recommendations" -> hotelMcpService.getRecommendations(arguments);
             case "search_near_airport" -> hotelMcpService.searchNearAirport(arguments);
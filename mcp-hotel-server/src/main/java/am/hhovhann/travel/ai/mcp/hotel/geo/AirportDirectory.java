@@ -0,0 +1,60 @@
+package am.hhovhann.travel.ai.mcp.hotel.geo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Airport coordinates by IATA code, read from {@code hotel.geo.airports}: a CSV of
+ * {@code code,name,city,country,latitude,longitude} where lines starting with {@code #} are comments.
+ */
+@Component
+public class AirportDirectory {
+
+    public record Airport(String code, String name, String city, String country, double latitude, double longitude) {
+    }
+
+    private final Map<String, Airport> airports;
+
+    public AirportDirectory(@Value("${hotel.geo.airports:classpath:geo/airports.csv}") Resource resource) {
+        Map<String, Airport> airports = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != 6) {
+                    throw new IllegalArgumentException("Expected 6 fields at " + resource.getDescription() + ":" + lineNumber);
+                }
+                String code = fields[0].trim().toUpperCase();
+                airports.put(code, new Airport(code, fields[1].trim(), fields[2].trim(), fields[3].trim(),
+                        Double.parseDouble(fields[4].trim()), Double.parseDouble(fields[5].trim())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read airports from " + resource.getDescription(), e);
+        }
+        this.airports = Map.copyOf(airports);
+    }
+
+    public Optional<Airport> find(String code) {
+        return code == null ? Optional.empty() : Optional.ofNullable(airports.get(code.trim().toUpperCase()));
+    }
+
+    public Collection<Airport> all() {
+        return airports.values();
+    }
+}
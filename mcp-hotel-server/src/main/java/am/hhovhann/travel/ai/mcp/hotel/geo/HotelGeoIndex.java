@@ -0,0 +1,305 @@
+package am.hhovhann.travel.ai.mcp.hotel.geo;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import am.hhovhann.travel.ai.core.util.TopK;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory spatial index of the hotel catalog: a uniform latitude/longitude grid of {@code cell-degrees}
+ * cells. Hotels are sorted by cell and their coordinates kept in primitive arrays, so a query binary-searches
+ * the first occupied cell of each grid row it covers and scans hotels contiguously from there.
+ * <p>
+ * {@link #nearest} answers both radius and k-nearest queries: it searches a small radius first and doubles
+ * it until {@code limit} hotels are closer than the radius searched, or the requested radius is reached.
+ * <p>
+ * The catalog is read from {@code hotel.geo.catalog} ({@code hotelId,name,provider,city,country,latitude,
+ * longitude,starRating,pricePerNight,currency,shuttleService}); without one, {@code synthetic-per-airport} hotels
+ * priced in USD, like the providers quote, are generated around every airport in the {@link AirportDirectory},
+ * with ids prefixed by their provider so bookings and details route to it.
+ */
+@Component
+public class HotelGeoIndex implements MetricsSource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotelGeoIndex.class);
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    public record GeoHotel(String hotelId, String name, String provider, String city, String country,
+                           double latitude, double longitude, int starRating, BigDecimal pricePerNight,
+                           String currency, boolean shuttleService) {
+    }
+
+    public record Match(GeoHotel hotel, double distanceKm) {
+    }
+
+    private final double cellDegrees;
+    private final int latitudeCells;
+    private final int longitudeCells;
+
+    // Hotels sorted by cell; cellKeys[c] is the c-th occupied cell and its hotels start at cellStart[c]
+    private final GeoHotel[] hotels;
+    private final double[] latitudeRadians;
+    private final double[] longitudeRadians;
+    private final double[] cosLatitude;
+    private final long[] cellKeys;
+    private final int[] cellStart;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder hotelsExamined = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+
+    public HotelGeoIndex(AirportDirectory airports,
+                         @Value("${hotel.geo.catalog:}") String catalog,
+                         @Value("${hotel.geo.cell-degrees:0.1}") double cellDegrees,
+                         @Value("${hotel.geo.synthetic-per-airport:300}") int syntheticPerAirport,
+                         @Value("${hotel.geo.synthetic-radius-km:30}") double syntheticRadiusKm) {
+        this(catalog.isBlank()
+                        ? synthesize(airports, syntheticPerAirport, syntheticRadiusKm, new Random(7))
+                        : readCatalog(Path.of(catalog)),
+                cellDegrees);
+    }
+
+    HotelGeoIndex(List<GeoHotel> catalog, double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("hotel.geo.cell-degrees must be in (0, 90]: " + cellDegrees);
+        }
+        long start = System.nanoTime();
+        this.cellDegrees = cellDegrees;
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+
+        // Sort by cell through packed (cell, position) longs rather than boxed comparators
+        long[] order = new long[catalog.size()];
+        for (int i = 0; i < order.length; i++) {
+            GeoHotel hotel = catalog.get(i);
+            order[i] = (cellKey(latitudeCell(hotel.latitude()), longitudeCell(hotel.longitude())) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        this.hotels = new GeoHotel[order.length];
+        this.latitudeRadians = new double[order.length];
+        this.longitudeRadians = new double[order.length];
+        this.cosLatitude = new double[order.length];
+        long[] keys = new long[order.length];
+        int[] starts = new int[order.length + 1];
+        int cells = 0;
+        for (int i = 0; i < order.length; i++) {
+            GeoHotel hotel = catalog.get((int) order[i]);
+            hotels[i] = hotel;
+            latitudeRadians[i] = Math.toRadians(hotel.latitude());
+            longitudeRadians[i] = Math.toRadians(hotel.longitude());
+            cosLatitude[i] = Math.cos(latitudeRadians[i]);
+            long key = order[i] >>> 32;
+            if (cells == 0 || keys[cells - 1] != key) {
+                keys[cells] = key;
+                starts[cells++] = i;
+            }
+        }
+        this.cellKeys = Arrays.copyOf(keys, cells);
+        this.cellStart = Arrays.copyOf(starts, cells + 1);
+        this.cellStart[cells] = order.length;
+        LOGGER.info("Indexed {} hotels in {} grid cells of {} degrees in {} ms", order.length, cells, cellDegrees,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Up to {@code limit} hotels within {@code radiusKm} of the point, nearest first.
+     */
+    public List<Match> nearest(double latitude, double longitude, double radiusKm, int limit) {
+        long start = System.nanoTime();
+        if (limit <= 0 || radiusKm <= 0 || hotels.length == 0) {
+            return List.of();
+        }
+        double pointLatitude = Math.toRadians(latitude);
+        double pointLongitude = Math.toRadians(longitude);
+        double pointCos = Math.cos(pointLatitude);
+
+        int capacity = Math.min(limit, hotels.length);
+        long examined = 0;
+        double searchRadius = Math.min(radiusKm, cellDegrees * KM_PER_DEGREE / 2);
+        TopK<Integer> closest;
+        while (true) {
+            closest = new TopK<>(capacity);
+            long radiusMeters = Math.round(searchRadius * 1000);
+            double latitudeSpan = searchRadius / KM_PER_DEGREE;
+            int minRow = Math.max(0, latitudeCell(latitude - latitudeSpan));
+            int maxRow = Math.min(latitudeCells - 1, latitudeCell(latitude + latitudeSpan));
+            double widestCos = Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + latitudeSpan)));
+            double longitudeSpan = widestCos <= 0 ? 180 : searchRadius / (KM_PER_DEGREE * widestCos);
+
+            for (int row = minRow; row <= maxRow; row++) {
+                if (longitudeSpan >= 180) {
+                    examined += scan(row, 0, longitudeCells - 1, pointLatitude, pointLongitude, pointCos, radiusMeters, closest);
+                    continue;
+                }
+                int first = longitudeCell(longitude - longitudeSpan);
+                int last = longitudeCell(longitude + longitudeSpan);
+                if (first <= last) {
+                    examined += scan(row, first, last, pointLatitude, pointLongitude, pointCos, radiusMeters, closest);
+                } else {
+                    // The search box crosses the antimeridian
+                    examined += scan(row, first, longitudeCells - 1, pointLatitude, pointLongitude, pointCos, radiusMeters, closest);
+                    examined += scan(row, 0, last, pointLatitude, pointLongitude, pointCos, radiusMeters, closest);
+                }
+            }
+
+            // Done once nothing outside the searched radius could displace what was found
+            if (searchRadius >= radiusKm || !closest.accepts(radiusMeters)) {
+                break;
+            }
+            searchRadius = Math.min(radiusKm, searchRadius * 2);
+        }
+
+        List<Match> matches = new ArrayList<>(closest.size());
+        for (int index : closest.toSortedList()) {
+            matches.add(new Match(hotels[index], distanceMeters(pointLatitude, pointLongitude, pointCos, index) / 1000.0));
+        }
+        queries.increment();
+        hotelsExamined.add(examined);
+        queryNanos.add(System.nanoTime() - start);
+        return matches;
+    }
+
+    private int scan(int row, int firstColumn, int lastColumn, double latitude, double longitude, double cos,
+                     long radiusMeters, TopK<Integer> closest) {
+        long firstKey = cellKey(row, firstColumn);
+        long lastKey = cellKey(row, lastColumn);
+        int cell = Arrays.binarySearch(cellKeys, firstKey);
+        if (cell < 0) {
+            cell = -cell - 1;
+        }
+        int examined = 0;
+        for (; cell < cellKeys.length && cellKeys[cell] <= lastKey; cell++) {
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                examined++;
+                double meters = distanceMeters(latitude, longitude, cos, i);
+                long key = Math.round(meters);
+                if (meters <= radiusMeters && closest.accepts(key)) {
+                    closest.offer(key, i);
+                }
+            }
+        }
+        return examined;
+    }
+
+    // Haversine distance from the query point to hotel i
+    private double distanceMeters(double latitude, double longitude, double cos, int i) {
+        double sinLatitude = Math.sin((latitudeRadians[i] - latitude) / 2);
+        double sinLongitude = Math.sin((longitudeRadians[i] - longitude) / 2);
+        double a = sinLatitude * sinLatitude + cos * cosLatitude[i] * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_KM * 1000 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int latitudeCell(double latitude) {
+        return Math.min(latitudeCells - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * longitudeCells + column;
+    }
+
+    public int size() {
+        return hotels.length;
+    }
+
+    private static List<GeoHotel> readCatalog(Path file) {
+        List<GeoHotel> hotels = new ArrayList<>();
+        try {
+            int lineNumber = 0;
+            for (String line : Files.readAllLines(file)) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != 11) {
+                    throw new IllegalArgumentException("Expected 11 fields at " + file + ":" + lineNumber);
+                }
+                hotels.add(new GeoHotel(fields[0].trim(), fields[1].trim(), fields[2].trim(), fields[3].trim(),
+                        fields[4].trim(), Double.parseDouble(fields[5].trim()), Double.parseDouble(fields[6].trim()),
+                        Integer.parseInt(fields[7].trim()), new BigDecimal(fields[8].trim()),
+                        fields[9].trim().toUpperCase(), Boolean.parseBoolean(fields[10].trim())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read hotel catalog " + file, e);
+        }
+        return hotels;
+    }
+
+    private static List<GeoHotel> synthesize(AirportDirectory airports, int perAirport, double radiusKm, Random random) {
+        record Brand(String provider, String idPrefix, String... names) {
+        }
+        List<Brand> brands = List.of(
+                new Brand("Marriott", "MAR-GEO-", "Marriott", "Courtyard", "Residence Inn", "Fairfield Inn"),
+                new Brand("Holiday Inn", "HI-GEO-", "Holiday Inn", "Holiday Inn Express", "Crowne Plaza"),
+                new Brand("Accor", "ACC-GEO-", "Novotel", "ibis", "Pullman", "Mercure"));
+
+        List<GeoHotel> hotels = new ArrayList<>();
+        int id = 0;
+        for (AirportDirectory.Airport airport : airports.all().stream().sorted(Comparator.comparing(AirportDirectory.Airport::code)).toList()) {
+            double cos = Math.cos(Math.toRadians(airport.latitude()));
+            for (int i = 0; i < perAirport; i++) {
+                // Uniform over the disc: distance grows with the square root of a uniform sample
+                double distance = radiusKm * Math.sqrt(random.nextDouble());
+                double bearing = random.nextDouble() * 2 * Math.PI;
+                double latitude = airport.latitude() + distance * Math.cos(bearing) / KM_PER_DEGREE;
+                double longitude = airport.longitude() + distance * Math.sin(bearing) / (KM_PER_DEGREE * Math.max(cos, 0.01));
+                longitude = ((longitude + 540) % 360) - 180;
+
+                Brand brand = brands.get(random.nextInt(brands.size()));
+                int stars = 2 + random.nextInt(4);
+                hotels.add(new GeoHotel(
+                        brand.idPrefix() + (++id),
+                        brand.names()[random.nextInt(brand.names().length)] + " " + airport.city() + " " + (distance < 3 ? airport.code() + " Airport" : "#" + id),
+                        brand.provider(),
+                        airport.city(),
+                        airport.country(),
+                        latitude,
+                        longitude,
+                        stars,
+                        BigDecimal.valueOf(40 + stars * 35 + random.nextInt(80)),
+                        "USD",
+                        distance < 10 && random.nextBoolean()
+                ));
+            }
+        }
+        return hotels;
+    }
+
+    @Override
+    public String metricsName() {
+        return "hotelGeoIndex";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long queryCount = queries.sum();
+        return Map.of(
+                "hotels", hotels.length,
+                "cells", cellKeys.length,
+                "cellDegrees", cellDegrees,
+                "queries", queryCount,
+                "hotelsExamined", hotelsExamined.sum(),
+                "averageQueryMicros", queryCount == 0 ? 0.0 : queryNanos.sum() / 1_000.0 / queryCount
+        );
+    }
+}
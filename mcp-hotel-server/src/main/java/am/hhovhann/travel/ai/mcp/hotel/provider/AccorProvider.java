@@ -1,11 +1,14 @@
 package am.hhovhann.travel.ai.mcp.hotel.provider;
 
+import am.hhovhann.travel.ai.core.model.HotelResponse;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -17,33 +20,32 @@ public class AccorProvider implements HotelProvider {
     }
 
     @Override
-    public List<Map<String, Object>> searchHotels(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences) {
-        List<Map<String, Object>> hotels = new ArrayList<>();
+    public List<HotelResponse> searchHotelOffers(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences) {
+        List<HotelResponse> hotels = new ArrayList<>();
         String[] brands = {"Sofitel", "Novotel", "Ibis"};
         double[] basePrices = {350.00, 160.00, 90.00};
         int[] starRatings = {5, 4, 3};
 
         for (int i = 0; i < brands.length; i++) {
-            Map<String, Object> hotel = new HashMap<>();
-            hotel.put("hotelId", "ACC" + (i + 1) + ":" + destination.replaceAll("\\s+", ""));
-            hotel.put("name", brands[i] + " " + destination);
-            hotel.put("address", (300 + i * 40) + " International Ave, " + destination);
-            hotel.put("city", destination);
-            hotel.put("country", "USA");
-            hotel.put("starRating", starRatings[i]);
-            hotel.put("pricePerNight", basePrices[i]);
-            hotel.put("currency", "USD");
-            hotel.put("roomType", i == 0 ? "Luxury Suite" : i == 1 ? "Superior Room" : "Standard Room");
-            hotel.put("amenities", getAmenities(i));
-            hotel.put("rating", 4.0 + (i == 0 ? 0.6 : i == 1 ? 0.3 : 0.0));
-            hotel.put("reviewCount", 600 + (i * 200));
-            hotel.put("description", getDescription(brands[i], destination));
-            hotel.put("hasWifi", true);
-            hotel.put("hasParking", i < 2);
-            hotel.put("hasBreakfast", i == 0);
-            hotel.put("provider", "Accor");
-
-            hotels.add(hotel);
+            hotels.add(new HotelResponse(
+                    "ACC" + (i + 1) + ":" + destination.replaceAll("\\s+", ""),
+                    brands[i] + " " + destination,
+                    (300 + i * 40) + " International Ave, " + destination,
+                    destination,
+                    "USA",
+                    starRatings[i],
+                    BigDecimal.valueOf(basePrices[i]),
+                    "USD",
+                    i == 0 ? "Luxury Suite" : i == 1 ? "Superior Room" : "Standard Room",
+                    getAmenities(i),
+                    4.0 + (i == 0 ? 0.6 : i == 1 ? 0.3 : 0.0),
+                    600 + (i * 200),
+                    getDescription(brands[i], destination),
+                    true,
+                    i < 2,
+                    i == 0,
+                    "Accor"
+            ));
         }
         return hotels;
     }
@@ -125,8 +127,8 @@ public class AccorProvider implements HotelProvider {
     }
 
     @Override
-    public boolean canHandleHotel(String hotelId) {
-        return hotelId != null && hotelId.startsWith("ACC");
+    public Set<String> hotelIdPrefixes() {
+        return Set.of("ACC");
     }
 
     private List<String> getAmenities(int brandIndex) {
@@ -1,11 +1,14 @@
 package am.hhovhann.travel.ai.mcp.hotel.provider;
 
+import am.hhovhann.travel.ai.core.model.HotelResponse;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -17,35 +20,39 @@ public class HolidayInnProvider implements HotelProvider {
     }
 
     @Override
-    public List<Map<String, Object>> searchHotels(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences) {
-        List<Map<String, Object>> hotels = new ArrayList<>();
+    public List<HotelResponse> searchHotelOffers(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences) {
+        List<HotelResponse> hotels = new ArrayList<>();
 
         for (int i = 1; i <= 2; i++) {
-            Map<String, Object> hotel = new HashMap<>();
-            hotel.put("hotelId", "HI" + i + ":" + destination.replaceAll("\\s+", ""));
-            hotel.put("name", "Holiday Inn " + destination + " " + (i == 1 ? "Express" : "& Suites"));
-            hotel.put("address", (200 + i * 30) + " Business Drive, " + destination);
-            hotel.put("city", destination);
-            hotel.put("country", "USA");
-            hotel.put("starRating", 3);
-            hotel.put("pricePerNight", 120.00 + (i * 40));
-            hotel.put("currency", "USD");
-            hotel.put("roomType", i == 1 ? "Standard Queen" : "King Suite");
-            hotel.put("amenities", List.of("Free WiFi", "Free Breakfast", "Fitness Center", "Business Center"));
-            hotel.put("rating", 4.0 + (i * 0.1));
-            hotel.put("reviewCount", 500 + (i * 75));
-            hotel.put("description", "Comfortable stay with great value in " + destination);
-            hotel.put("hasWifi", true);
-            hotel.put("hasParking", true);
-            hotel.put("hasBreakfast", true);
-            hotel.put("provider", "Holiday Inn");
-
-            hotels.add(hotel);
+            hotels.add(new HotelResponse(
+                    "HI" + i + ":" + destination.replaceAll("\\s+", ""),
+                    "Holiday Inn " + destination + " " + (i == 1 ? "Express" : "& Suites"),
+                    (200 + i * 30) + " Business Drive, " + destination,
+                    destination,
+                    "USA",
+                    3,
+                    BigDecimal.valueOf(120.00 + (i * 40)),
+                    "USD",
+                    i == 1 ? "Standard Queen" : "King Suite",
+                    List.of("Free WiFi", "Free Breakfast", "Fitness Center", "Business Center"),
+                    4.0 + (i * 0.1),
+                    500 + (i * 75),
+                    "Comfortable stay with great value in " + destination,
+                    true,
+                    true,
+                    true,
+                    "Holiday Inn"
+            ));
         }
         return hotels;
     }
 
 
+    @Override
+    public boolean returnsSortedByPrice() {
+        return true;
+    }
+
     @Override
     public Map<String, Object> bookHotel(String hotelId, Map<String, Object> guestDetails) {
         if (!canHandleHotel(hotelId)) {
@@ -124,8 +131,8 @@ public class HolidayInnProvider implements HotelProvider {
     }
 
     @Override
-    public boolean canHandleHotel(String hotelId) {
-        return hotelId != null && hotelId.startsWith("HI");
+    public Set<String> hotelIdPrefixes() {
+        return Set.of("HI");
     }
 
     private String getAirportCity(String airportCode) {
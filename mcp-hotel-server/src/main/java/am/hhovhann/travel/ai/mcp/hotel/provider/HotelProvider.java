@@ -1,15 +1,69 @@
 package am.hhovhann.travel.ai.mcp.hotel.provider;
 
+import am.hhovhann.travel.ai.core.model.HotelResponse;
+
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface HotelProvider {
     String getName();
-    List<Map<String, Object>> searchHotels(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences);
+
+    List<HotelResponse> searchHotelOffers(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences);
+
+    /**
+     * Map-shaped view of {@link #searchHotelOffers}, kept for callers that still expect untyped results.
+     */
+    @Deprecated
+    default List<Map<String, Object>> searchHotels(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences) {
+        return searchHotelOffers(destination, checkIn, checkOut, guests, rooms, preferences).stream()
+                .map(HotelProvider::toMap)
+                .toList();
+    }
+
+    /**
+     * Whether {@link #searchHotelOffers} returns hotels cheapest first, which lets aggregation stop reading
+     * a provider's results at the first hotel too expensive to make the first page.
+     */
+    default boolean returnsSortedByPrice() {
+        return false;
+    }
+
     Map<String, Object> bookHotel(String hotelId, Map<String, Object> guestDetails);
     List<Map<String, Object>> getRecommendations(String destination, String preferences);
     List<Map<String, Object>> searchNearAirport(String airportCode, String checkIn, String checkOut);
     Map<String, Object> getHotelDetails(String hotelId);
-    boolean canHandleHotel(String hotelId);
-}
 
+    /**
+     * Prefixes of the hotel ids this provider issues. Bookings and details are routed by these at startup,
+     * so no two providers may declare the same prefix or one starting another's.
+     */
+    Set<String> hotelIdPrefixes();
+
+    default boolean canHandleHotel(String hotelId) {
+        return hotelId != null && hotelIdPrefixes().stream().anyMatch(hotelId::startsWith);
+    }
+
+    private static Map<String, Object> toMap(HotelResponse hotel) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("hotelId", hotel.hotelId());
+        map.put("name", hotel.name());
+        map.put("address", hotel.address());
+        map.put("city", hotel.city());
+        map.put("country", hotel.country());
+        map.put("starRating", hotel.starRating());
+        map.put("pricePerNight", hotel.pricePerNight());
+        map.put("currency", hotel.currency());
+        map.put("roomType", hotel.roomType());
+        map.put("amenities", hotel.amenities());
+        map.put("rating", hotel.rating());
+        map.put("reviewCount", hotel.reviewCount());
+        map.put("description", hotel.description());
+        map.put("hasWifi", hotel.hasWifi());
+        map.put("hasParking", hotel.hasParking());
+        map.put("hasBreakfast", hotel.hasBreakfast());
+        map.put("provider", hotel.provider());
+        return map;
+    }
+}
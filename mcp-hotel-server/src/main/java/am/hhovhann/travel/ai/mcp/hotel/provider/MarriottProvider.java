@@ -1,11 +1,14 @@
 package am.hhovhann.travel.ai.mcp.hotel.provider;
 
+import am.hhovhann.travel.ai.core.model.HotelResponse;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -17,35 +20,39 @@ public class MarriottProvider implements HotelProvider {
     }
 
     @Override
-    public List<Map<String, Object>> searchHotels(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences) {
-        List<Map<String, Object>> hotels = new ArrayList<>();
+    public List<HotelResponse> searchHotelOffers(String destination, String checkIn, String checkOut, Integer guests, Integer rooms, String preferences) {
+        List<HotelResponse> hotels = new ArrayList<>();
 
         for (int i = 1; i <= 3; i++) {
-            Map<String, Object> hotel = new HashMap<>();
-            hotel.put("hotelId", "MAR" + i + ":" + destination.replaceAll("\\s+", ""));
-            hotel.put("name", "Marriott " + destination + " " + getHotelType(i));
-            hotel.put("address", (100 + i * 50) + " Main Street, " + destination);
-            hotel.put("city", destination);
-            hotel.put("country", "USA");
-            hotel.put("starRating", 4 + (i > 2 ? 1 : 0));
-            hotel.put("pricePerNight", 180.00 + (i * 60));
-            hotel.put("currency", "USD");
-            hotel.put("roomType", getRoomType(i));
-            hotel.put("amenities", List.of("WiFi", "Fitness Center", "Business Center", "Room Service", "Concierge"));
-            hotel.put("rating", 4.2 + (i * 0.2));
-            hotel.put("reviewCount", 850 + (i * 100));
-            hotel.put("description", "Luxury accommodation in the heart of " + destination);
-            hotel.put("hasWifi", true);
-            hotel.put("hasParking", true);
-            hotel.put("hasBreakfast", i > 1);
-            hotel.put("provider", "Marriott");
-
-            hotels.add(hotel);
+            hotels.add(new HotelResponse(
+                    "MAR" + i + ":" + destination.replaceAll("\\s+", ""),
+                    "Marriott " + destination + " " + getHotelType(i),
+                    (100 + i * 50) + " Main Street, " + destination,
+                    destination,
+                    "USA",
+                    4 + (i > 2 ? 1 : 0),
+                    BigDecimal.valueOf(180.00 + (i * 60)),
+                    "USD",
+                    getRoomType(i),
+                    List.of("WiFi", "Fitness Center", "Business Center", "Room Service", "Concierge"),
+                    4.2 + (i * 0.2),
+                    850 + (i * 100),
+                    "Luxury accommodation in the heart of " + destination,
+                    true,
+                    true,
+                    i > 1,
+                    "Marriott"
+            ));
         }
         return hotels;
     }
 
 
+    @Override
+    public boolean returnsSortedByPrice() {
+        return true;
+    }
+
     @Override
     public Map<String, Object> bookHotel(String hotelId, Map<String, Object> guestDetails) {
         if (!canHandleHotel(hotelId)) {
@@ -124,8 +131,8 @@ public class MarriottProvider implements HotelProvider {
     }
 
     @Override
-    public boolean canHandleHotel(String hotelId) {
-        return hotelId != null && hotelId.startsWith("MAR");
+    public Set<String> hotelIdPrefixes() {
+        return Set.of("MAR");
     }
 
     private String getHotelType(int index) {
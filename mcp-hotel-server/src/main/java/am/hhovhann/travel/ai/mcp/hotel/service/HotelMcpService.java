@@ -1,57 +1,257 @@
 package am.hhovhann.travel.ai.mcp.hotel.service;
 
+import am.hhovhann.travel.ai.core.concurrent.DeadlineFanOut;
+import am.hhovhann.travel.ai.core.fx.FxRates;
+import am.hhovhann.travel.ai.core.mcp.server.McpProgress;
+import am.hhovhann.travel.ai.core.model.HotelResponse;
+import am.hhovhann.travel.ai.core.search.SearchSnapshot;
+import am.hhovhann.travel.ai.core.search.SearchSnapshots;
+import am.hhovhann.travel.ai.core.util.PrefixRouter;
+import am.hhovhann.travel.ai.core.util.Prices;
+import am.hhovhann.travel.ai.mcp.hotel.availability.RoomAvailability;
+import am.hhovhann.travel.ai.mcp.hotel.geo.AirportDirectory;
+import am.hhovhann.travel.ai.mcp.hotel.geo.HotelGeoIndex;
 import am.hhovhann.travel.ai.mcp.hotel.provider.HotelProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 
 @Service
 public class HotelMcpService {
+    private static final Comparator<HotelResponse> BY_PRICE =
+            Comparator.comparingLong(hotel -> Prices.minorUnits(hotel.normalizedPricePerNight()));
 
     private final List<HotelProvider> hotelProviders;
+    private final DeadlineFanOut fanOut;
+    private final Duration searchDeadline;
+    private final Duration providerTimeout;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final AirportDirectory airports;
+    private final HotelGeoIndex geoIndex;
+    private final double defaultRadiusKm;
+    private final double maxRadiusKm;
+    private final PrefixRouter<HotelProvider> hotelRoutes;
+    private final SearchSnapshots snapshots;
+    private final RoomAvailability availability;
+    private final FxRates fxRates;
 
+    /**
+     * Providers are searched concurrently; each gets {@code hotel.search.provider-timeout} and the search
+     * returns after at most {@code hotel.search.deadline}. The page size comes from the {@code limit}
+     * argument, capped at {@code hotel.search.max-limit}; later pages are served from {@link SearchSnapshots}.
+     * <p>
+     * Hotels near a known airport come from the {@link HotelGeoIndex}, within the {@code radiusKm} argument
+     * (default {@code hotel.geo.default-radius-km}, capped at {@code hotel.geo.max-radius-km}).
+     * <p>
+     * Searches leave out hotels that {@link RoomAvailability} has no rooms for on some night of the stay, and
+     * bookings take their nights from it first.
+     * <p>
+     * Hotels are ranked by their nightly price converted with {@link FxRates}; hotels in a currency it has no
+     * rate for come last.
+     */
     @Autowired
-    public HotelMcpService(List<HotelProvider> hotelProviders) {
+    public HotelMcpService(List<HotelProvider> hotelProviders,
+                           DeadlineFanOut fanOut,
+                           @Value("${hotel.search.deadline:5s}") Duration searchDeadline,
+                           @Value("${hotel.search.provider-timeout:3s}") Duration providerTimeout,
+                           @Value("${hotel.search.default-limit:15}") int defaultLimit,
+                           @Value("${hotel.search.max-limit:100}") int maxLimit,
+                           AirportDirectory airports,
+                           HotelGeoIndex geoIndex,
+                           @Value("${hotel.geo.default-radius-km:25}") double defaultRadiusKm,
+                           @Value("${hotel.geo.max-radius-km:200}") double maxRadiusKm,
+                           SearchSnapshots snapshots,
+                           RoomAvailability availability,
+                           FxRates fxRates) {
         this.hotelProviders = hotelProviders;
+        this.fanOut = fanOut;
+        this.searchDeadline = searchDeadline;
+        this.providerTimeout = providerTimeout;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.airports = airports;
+        this.geoIndex = geoIndex;
+        this.defaultRadiusKm = defaultRadiusKm;
+        this.maxRadiusKm = maxRadiusKm;
+        this.snapshots = snapshots;
+        this.availability = availability;
+        this.fxRates = fxRates;
+
+        // Built once so bookings and details never probe providers one by one
+        PrefixRouter.Builder<HotelProvider> hotelRoutes = PrefixRouter.builder("hotel id prefix");
+        for (HotelProvider provider : hotelProviders) {
+            for (String prefix : provider.hotelIdPrefixes()) {
+                hotelRoutes.add(prefix, provider, provider.getName());
+            }
+        }
+        this.hotelRoutes = hotelRoutes.build();
     }
 
     public Map<String, Object> searchHotels(Map<String, Object> arguments) {
+        return searchHotels(arguments, McpProgress.NONE);
+    }
+
+    /**
+     * Like {@link #searchHotels(Map)}, but reports each provider's cheapest hotels to {@code progress}
+     * as soon as that provider answers.
+     * <p>
+     * Results are paged: {@code limit} hotels per page, cheapest first, and a {@code nextCursor} while more
+     * remain. Passing it back as {@code cursor} returns the next page from the search's snapshot without
+     * asking the providers again.
+     */
+    public Map<String, Object> searchHotels(Map<String, Object> arguments, McpProgress progress) {
+        int limit = Math.max(1, Math.min(maxLimit, ((Number) arguments.getOrDefault("limit", defaultLimit)).intValue()));
+        SearchSnapshots.Page<HotelResponse> page = snapshots.page("search_hotels", arguments, limit,
+                () -> search(arguments, limit, progress));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hotels", page.items());
+        result.put("total", page.items().size());
+        result.put("totalResults", page.totalResults());
+        if (page.nextCursor() != null) {
+            result.put("nextCursor", page.nextCursor());
+        }
+        result.putAll(page.attributes());
+        return result;
+    }
+
+    private SearchSnapshot<HotelResponse> search(Map<String, Object> arguments, int limit, McpProgress progress) {
         String destination = (String) arguments.get("destination");
         String checkIn = (String) arguments.get("checkIn");
         String checkOut = (String) arguments.get("checkOut");
         Integer guests = (Integer) arguments.get("guests");
         Integer rooms = (Integer) arguments.getOrDefault("rooms", 1);
         String preferences = (String) arguments.getOrDefault("preferences", "");
+        LocalDate checkInDate = parseDate(checkIn);
+        LocalDate checkOutDate = parseDate(checkOut);
 
-        List<Map<String, Object>> allHotels = hotelProviders.stream()
-                .flatMap(provider -> provider.searchHotels(destination, checkIn, checkOut, guests, rooms, preferences).stream())
-                .sorted((h1, h2) -> Double.compare(
-                        ((Number) h1.get("pricePerNight")).doubleValue(),
-                        ((Number) h2.get("pricePerNight")).doubleValue()
-                ))
-                .limit(15)
-                .toList();
+        // Providers that return hotels cheapest first have only the head of their list read for the first page
+        SearchSnapshot<HotelResponse> snapshot = new SearchSnapshot<>(
+                hotel -> Prices.minorUnits(hotel.normalizedPricePerNight()), HotelResponse::hotelId);
+        Map<String, HotelProvider> byName = new LinkedHashMap<>();
+        Map<String, Callable<List<HotelResponse>>> searches = new LinkedHashMap<>();
+        for (HotelProvider provider : hotelProviders) {
+            byName.put(provider.getName(), provider);
+            searches.put(provider.getName(),
+                    () -> {
+                        List<HotelResponse> hotels = provider.searchHotelOffers(destination, checkIn, checkOut, guests, rooms, preferences);
+                        // Before ranking, so a full hotel never takes a place on a page
+                        return normalize(checkInDate == null || checkOutDate == null ? hotels
+                                : availability.filterAvailable(hotels, checkInDate, checkOutDate, rooms == null ? 1 : rooms));
+                    });
+        }
+        int[] answered = new int[1];
+        DeadlineFanOut.Outcome<String, List<HotelResponse>> outcome = fanOut.run(searches, name -> providerTimeout,
+                searchDeadline, (name, hotels) -> {
+                    // Conversion keeps the order of prices in one currency, not across currencies
+                    snapshot.add(hotels, byName.get(name).returnsSortedByPrice() && singleCurrency(hotels));
+                    reportProvider(progress, ++answered[0], name, hotels, limit);
+                });
 
-        return Map.of(
-                "hotels", allHotels,
-                "total", allHotels.size(),
-                "providers", hotelProviders.stream().map(HotelProvider::getName).toList()
-        );
+        Map<String, Object> attributes = snapshot.attributes();
+        attributes.put("providers", hotelProviders.stream().map(HotelProvider::getName).toList());
+        attributes.put("partial", outcome.partial());
+        attributes.put("timedOutProviders", outcome.timedOut());
+        if (!outcome.failed().isEmpty()) {
+            attributes.put("failedProviders", List.copyOf(outcome.failed().keySet()));
+        }
+        return snapshot;
+    }
+
+    // One rate table for the whole list, so a reload mid-list cannot rank part of it on other rates
+    private List<HotelResponse> normalize(List<HotelResponse> hotels) {
+        FxRates.Table rates = fxRates.current();
+        List<HotelResponse> normalized = new ArrayList<>(hotels.size());
+        for (HotelResponse hotel : hotels) {
+            normalized.add(hotel.withNormalizedPrice(rates.toBase(hotel.pricePerNight(), hotel.currency()), rates.base()));
+        }
+        return normalized;
+    }
+
+    private static boolean singleCurrency(List<HotelResponse> hotels) {
+        for (HotelResponse hotel : hotels) {
+            if (!Objects.equals(hotel.currency(), hotels.get(0).currency())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reportProvider(McpProgress progress, int answered, String provider, List<HotelResponse> hotels, int limit) {
+        if (progress == McpProgress.NONE) {
+            return;
+        }
+        // Hotels past the page size cannot make it into the first page
+        List<HotelResponse> page = hotels.stream().sorted(BY_PRICE).limit(limit).toList();
+        Map<String, Object> partial = new LinkedHashMap<>();
+        partial.put("provider", provider);
+        partial.put("hotels", page);
+        partial.put("total", page.size());
+        progress.report(answered, hotelProviders.size(), provider + " answered with " + hotels.size() + " hotels", partial);
     }
 
+    /**
+     * Books {@code rooms} rooms (default 1) for the nights from {@code checkIn} up to {@code checkOut}, taking
+     * them from {@link RoomAvailability} first so concurrent bookings cannot oversell a night.
+     * <p>
+     * Callers that send neither date, as older agents do, get the provider's booking alone, with no nights held.
+     */
     public Map<String, Object> bookHotel(Map<String, Object> arguments) {
         String hotelId = (String) arguments.get("hotelId");
         Map<String, Object> guestDetails = (Map<String, Object>) arguments.get("guestDetails");
+        boolean dated = arguments.get("checkIn") != null || arguments.get("checkOut") != null;
+        LocalDate checkIn = parseDate((String) arguments.get("checkIn"));
+        LocalDate checkOut = parseDate((String) arguments.get("checkOut"));
+        int rooms = ((Number) arguments.getOrDefault("rooms", 1)).intValue();
+        if (dated && (checkIn == null || checkOut == null)) {
+            throw new IllegalArgumentException("checkIn and checkOut (YYYY-MM-DD) must be given together to book a hotel");
+        }
 
-        for (HotelProvider provider : hotelProviders) {
-            if (provider.canHandleHotel(hotelId)) {
-                return provider.bookHotel(hotelId, guestDetails);
-            }
+        HotelProvider provider = hotelRoutes.route(hotelId)
+                .orElseThrow(() -> new RuntimeException("No provider found for hotel: " + hotelId));
+        if (!dated) {
+            return provider.bookHotel(hotelId, guestDetails);
+        }
+        RoomAvailability.Reservation reservation =
+                availability.reserve(hotelId, (String) arguments.get("roomType"), checkIn, checkOut, rooms);
+        Map<String, Object> booking;
+        try {
+            booking = provider.bookHotel(hotelId, guestDetails);
+        } catch (RuntimeException e) {
+            availability.release(reservation);
+            throw e;
         }
+        Map<String, Object> result = new LinkedHashMap<>(booking);
+        result.put("roomType", reservation.roomType());
+        result.put("rooms", rooms);
+        result.put("checkIn", checkIn.toString());
+        result.put("checkOut", checkOut.toString());
+        result.put("roomsLeft", availability.available(hotelId, reservation.roomType(), checkIn, checkOut));
+        return result;
+    }
 
-        throw new RuntimeException("No provider found for hotel: " + hotelId);
+    private static LocalDate parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     public Map<String, Object> getRecommendations(Map<String, Object> arguments) {
@@ -72,38 +272,100 @@ public class HotelMcpService {
         String airportCode = (String) arguments.get("airportCode");
         String checkIn = (String) arguments.get("checkIn");
         String checkOut = (String) arguments.get("checkOut");
+        LocalDate checkInDate = parseDate(checkIn);
+        LocalDate checkOutDate = parseDate(checkOut);
+        boolean dated = checkInDate != null && checkOutDate != null;
 
-        List<Map<String, Object>> nearbyHotels = hotelProviders.stream()
-                .flatMap(provider -> provider.searchNearAirport(airportCode, checkIn, checkOut).stream())
+        Optional<AirportDirectory.Airport> airport = airports.find(airportCode);
+        if (airport.isEmpty()) {
+            // Not in the airport table; the providers may still know it
+            List<Map<String, Object>> nearbyHotels = hotelProviders.stream()
+                    .flatMap(provider -> provider.searchNearAirport(airportCode, checkIn, checkOut).stream())
+                    .toList();
+            if (dated) {
+                nearbyHotels = availability.filterAvailable(nearbyHotels, hotel -> (String) hotel.get("hotelId"),
+                        checkInDate, checkOutDate, 1);
+            }
+
+            return Map.of(
+                    "hotels", nearbyHotels,
+                    "total", nearbyHotels.size(),
+                    "airportCode", airportCode
+            );
+        }
+
+        double radiusKm = Math.max(0.1, Math.min(maxRadiusKm,
+                ((Number) arguments.getOrDefault("radiusKm", defaultRadiusKm)).doubleValue()));
+        int limit = Math.max(1, Math.min(maxLimit, ((Number) arguments.getOrDefault("limit", defaultLimit)).intValue()));
+        AirportDirectory.Airport found = airport.get();
+        List<HotelGeoIndex.Match> matches = geoIndex.nearest(found.latitude(), found.longitude(), radiusKm, limit);
+        if (dated) {
+            // Full hotels give up their places, so look further out until the page is full or the radius runs out
+            List<HotelGeoIndex.Match> available = availability.filterAvailable(matches, match -> match.hotel().hotelId(),
+                    checkInDate, checkOutDate, 1);
+            for (int wanted = limit * 2; available.size() < limit && matches.size() == wanted / 2; wanted *= 2) {
+                matches = geoIndex.nearest(found.latitude(), found.longitude(), radiusKm, wanted);
+                available = availability.filterAvailable(matches, match -> match.hotel().hotelId(),
+                        checkInDate, checkOutDate, 1);
+            }
+            matches = available.subList(0, Math.min(limit, available.size()));
+        }
+        List<Map<String, Object>> nearbyHotels = matches.stream()
+                .map(match -> nearAirportHotel(match, found))
                 .toList();
 
-        return Map.of(
-                "hotels", nearbyHotels,
-                "total", nearbyHotels.size(),
-                "airportCode", airportCode
-        );
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hotels", nearbyHotels);
+        result.put("total", nearbyHotels.size());
+        result.put("airportCode", found.code());
+        result.put("airport", Map.of(
+                "name", found.name(),
+                "city", found.city(),
+                "country", found.country(),
+                "latitude", found.latitude(),
+                "longitude", found.longitude()
+        ));
+        result.put("radiusKm", radiusKm);
+        return result;
+    }
+
+    private static Map<String, Object> nearAirportHotel(HotelGeoIndex.Match match, AirportDirectory.Airport airport) {
+        HotelGeoIndex.GeoHotel hotel = match.hotel();
+        double distanceKm = Math.round(match.distanceKm() * 100) / 100.0;
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hotelId", hotel.hotelId());
+        map.put("name", hotel.name());
+        map.put("city", hotel.city());
+        map.put("country", hotel.country());
+        map.put("starRating", hotel.starRating());
+        map.put("pricePerNight", hotel.pricePerNight());
+        map.put("currency", hotel.currency());
+        map.put("latitude", hotel.latitude());
+        map.put("longitude", hotel.longitude());
+        map.put("distanceKm", distanceKm);
+        map.put("distanceFromAirport", String.format("%.1f km from %s", distanceKm, airport.code()));
+        map.put("shuttleService", hotel.shuttleService());
+        map.put("provider", hotel.provider());
+        return map;
     }
 
     public Map<String, Object> getHotelDetails(Map<String, Object> arguments) {
         String hotelId = (String) arguments.get("hotelId");
 
-        for (HotelProvider provider : hotelProviders) {
-            if (provider.canHandleHotel(hotelId)) {
-                return provider.getHotelDetails(hotelId);
-            }
-        }
-
-        return Map.of(
-                "error", "Hotel not found",
-                "hotelId", hotelId
-        );
+        return hotelRoutes.route(hotelId)
+                .map(provider -> provider.getHotelDetails(hotelId))
+                .orElseGet(() -> Map.of(
+                        "error", "Hotel not found",
+                        "hotelId", hotelId
+                ));
     }
 
     public List<Map<String, Object>> getAvailableTools() {
         return List.of(
                 Map.of(
                         "name", "search_hotels",
-                        "description", "Search for hotels based on destination, dates, and preferences",
+                        "description", "Search for hotels based on destination, dates, and preferences. With a progress token, each provider's hotels are sent as progress notifications as they arrive",
                         "inputSchema", Map.of(
                                 "type", "object",
                                 "properties", Map.of(
@@ -112,7 +374,9 @@ public class HotelMcpService {
                                         "checkOut", Map.of("type", "string", "description", "Check-out date (YYYY-MM-DD)"),
                                         "guests", Map.of("type", "integer", "description", "Number of guests"),
                                         "rooms", Map.of("type", "integer", "description", "Number of rooms"),
-                                        "preferences", Map.of("type", "string", "description", "Additional preferences")
+                                        "preferences", Map.of("type", "string", "description", "Additional preferences"),
+                                        "limit", Map.of("type", "integer", "description", "Hotels per page, cheapest first (default " + defaultLimit + ", at most " + maxLimit + ")"),
+                                        "cursor", Map.of("type", "string", "description", "nextCursor of the previous page, to get the page after it; repeat the other arguments unchanged")
                                 ),
                                 "required", List.of("destination", "checkIn", "checkOut", "guests")
                         )
@@ -124,7 +388,11 @@ public class HotelMcpService {
                                 "type", "object",
                                 "properties", Map.of(
                                         "hotelId", Map.of("type", "string", "description", "Hotel identifier"),
-                                        "guestDetails", Map.of("type", "object", "description", "Guest information")
+                                        "guestDetails", Map.of("type", "object", "description", "Guest information"),
+                                        "checkIn", Map.of("type", "string", "description", "Check-in date (YYYY-MM-DD); with checkOut, holds the rooms for those nights"),
+                                        "checkOut", Map.of("type", "string", "description", "Check-out date (YYYY-MM-DD)"),
+                                        "rooms", Map.of("type", "integer", "description", "Number of rooms (default 1)"),
+                                        "roomType", Map.of("type", "string", "description", "Room type from the search result (default: the one searched)")
                                 ),
                                 "required", List.of("hotelId", "guestDetails")
                         )
@@ -143,13 +411,15 @@ public class HotelMcpService {
                 ),
                 Map.of(
                         "name", "search_near_airport",
-                        "description", "Find hotels near a specific airport",
+                        "description", "Find hotels near a specific airport, nearest first, with their distance. With checkIn and checkOut, hotels without a room free on every night are left out",
                         "inputSchema", Map.of(
                                 "type", "object",
                                 "properties", Map.of(
                                         "airportCode", Map.of("type", "string", "description", "Airport code (e.g., JFK, LAX)"),
                                         "checkIn", Map.of("type", "string", "description", "Check-in date (YYYY-MM-DD)"),
-                                        "checkOut", Map.of("type", "string", "description", "Check-out date (YYYY-MM-DD)")
+                                        "checkOut", Map.of("type", "string", "description", "Check-out date (YYYY-MM-DD)"),
+                                        "radiusKm", Map.of("type", "number", "description", "Search radius around the airport in kilometres (default 25)"),
+                                        "limit", Map.of("type", "integer", "description", "Maximum number of hotels to return, nearest first (default 15)")
                                 ),
                                 "required", List.of("airportCode")
                         )
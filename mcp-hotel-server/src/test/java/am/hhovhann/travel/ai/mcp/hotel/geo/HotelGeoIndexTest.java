@@ -0,0 +1,113 @@
+package am.hhovhann.travel.ai.mcp.hotel.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotelGeoIndexTest {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    @Test
+    void nearestMatchesALinearScan() {
+        Random random = new Random(17);
+        List<HotelGeoIndex.GeoHotel> catalog = catalog(random, 3_000);
+        for (double cellDegrees : new double[] {0.1, 1, 7.5}) {
+            HotelGeoIndex index = new HotelGeoIndex(catalog, cellDegrees);
+            for (int query = 0; query < 400; query++) {
+                double[] point = point(random);
+                double radiusKm = Math.exp(random.nextDouble() * Math.log(5_000));
+                int limit = 1 + random.nextInt(40);
+                assertNearest(catalog, index, point[0], point[1], radiusKm, limit,
+                        "cells of " + cellDegrees + " degrees, query " + query);
+            }
+        }
+    }
+
+    @Test
+    void searchesAcrossTheAntimeridianAndOverThePoles() {
+        List<HotelGeoIndex.GeoHotel> catalog = List.of(
+                hotel("EAST", 10, 179.99),
+                hotel("WEST", 10, -179.99),
+                hotel("DATELINE", 10, -180),
+                hotel("NORTH", 89.99, 0),
+                hotel("ACROSS-NORTH", 89.98, 180),
+                hotel("POLE", 90, 45),
+                hotel("SOUTH", -89.95, -90));
+        HotelGeoIndex index = new HotelGeoIndex(catalog, 0.1);
+
+        // Within 2 km of each other, but in cells at opposite ends of the grid
+        assertEquals(List.of("WEST", "DATELINE", "EAST"), ids(index.nearest(10, -179.993, 5, 10)));
+        assertEquals(List.of("POLE", "NORTH", "ACROSS-NORTH"), ids(index.nearest(90, 0, 5, 10)));
+        assertEquals(List.of("SOUTH"), ids(index.nearest(-90, 0, 10, 10)));
+        for (HotelGeoIndex.GeoHotel hotel : catalog) {
+            assertNearest(catalog, index, hotel.latitude(), hotel.longitude(), 50, catalog.size(), hotel.hotelId());
+        }
+    }
+
+    private static void assertNearest(List<HotelGeoIndex.GeoHotel> catalog, HotelGeoIndex index, double latitude,
+                                      double longitude, double radiusKm, int limit, String description) {
+        long radiusMeters = Math.round(radiusKm * 1000);
+        List<Double> expected = catalog.stream()
+                .map(hotel -> distanceMeters(latitude, longitude, hotel))
+                .filter(meters -> meters <= radiusMeters)
+                .sorted()
+                .limit(limit)
+                .toList();
+
+        List<HotelGeoIndex.Match> matches = index.nearest(latitude, longitude, radiusKm, limit);
+        String query = description + ": " + limit + " within " + radiusKm + " km of " + latitude + ", " + longitude;
+        assertEquals(expected.size(), matches.size(), query);
+        for (int i = 0; i < matches.size(); i++) {
+            HotelGeoIndex.Match match = matches.get(i);
+            // Hotels at the same distance may come in either order, so compare distances, not hotels
+            assertTrue(Math.abs(expected.get(i) - match.distanceKm() * 1000) <= 1, query + ", match " + i);
+            assertTrue(Math.abs(distanceMeters(latitude, longitude, match.hotel()) - match.distanceKm() * 1000) <= 1,
+                    query + ", distance of " + match.hotel().hotelId());
+        }
+    }
+
+    // A third spread over the globe, a third near the antimeridian and a third near the poles
+    private static List<HotelGeoIndex.GeoHotel> catalog(Random random, int size) {
+        List<HotelGeoIndex.GeoHotel> catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double[] point = point(random);
+            catalog.add(hotel("H" + i, point[0], point[1]));
+        }
+        return catalog;
+    }
+
+    private static double[] point(Random random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> new double[] {Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)), 360 * random.nextDouble() - 180};
+            case 1 -> new double[] {120 * random.nextDouble() - 60,
+                    random.nextBoolean() ? 180 - 3 * random.nextDouble() : -180 + 3 * random.nextDouble()};
+            default -> new double[] {(random.nextBoolean() ? 1 : -1) * (90 - 4 * random.nextDouble()),
+                    360 * random.nextDouble() - 180};
+        };
+    }
+
+    private static HotelGeoIndex.GeoHotel hotel(String id, double latitude, double longitude) {
+        return new HotelGeoIndex.GeoHotel(id, "Hotel " + id, "Test", "City", "Country", latitude, longitude, 3,
+                BigDecimal.valueOf(100), "USD", false);
+    }
+
+    private static List<String> ids(List<HotelGeoIndex.Match> matches) {
+        return matches.stream().map(match -> match.hotel().hotelId()).toList();
+    }
+
+    private static double distanceMeters(double latitude, double longitude, HotelGeoIndex.GeoHotel hotel) {
+        double fromLatitude = Math.toRadians(latitude);
+        double toLatitude = Math.toRadians(hotel.latitude());
+        double sinLatitude = Math.sin((toLatitude - fromLatitude) / 2);
+        double sinLongitude = Math.sin((Math.toRadians(hotel.longitude()) - Math.toRadians(longitude)) / 2);
+        double a = sinLatitude * sinLatitude
+                + Math.cos(fromLatitude) * Math.cos(toLatitude) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_KM * 1000 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
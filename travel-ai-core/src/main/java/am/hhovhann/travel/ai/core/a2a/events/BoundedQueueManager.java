@@ -0,0 +1,198 @@
+package am.hhovhann.travel.ai.core.a2a.events;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import io.a2a.server.events.EventQueue;
+import io.a2a.server.events.QueueManager;
+import io.a2a.server.events.TaskQueueExistsException;
+import io.a2a.server.tasks.TaskStore;
+import io.a2a.spec.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link QueueManager} for long-running agents.
+ * <ul>
+ *     <li>Each task queue holds at most {@code queueCapacity} events; once full, {@code enqueueEvent}
+ *     blocks the producing {@code AgentExecutor} until the consumer catches up.</li>
+ *     <li>A reaper closes queues nobody has touched for {@code idleTimeout} whose task is finished or
+ *     unknown to the {@link TaskStore}. A queue older than {@code maxAge} is closed once it is either idle
+ *     or its task is finished or unknown, so a running task that is still being read keeps its queue.</li>
+ *     <li>{@link #awaitQueuePollerStart} waits until the consumer is polling, bounded by
+ *     {@code pollerStartTimeout}, so streaming subscribers do not miss the first events.</li>
+ * </ul>
+ */
+public class BoundedQueueManager implements QueueManager, MetricsSource, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundedQueueManager.class);
+
+    private record QueueEntry(EventQueue queue, long createdAtMillis, AtomicLong lastAccessMillis) {
+        EventQueue touch() {
+            lastAccessMillis.set(System.currentTimeMillis());
+            return queue;
+        }
+    }
+
+    private final TaskStore taskStore;
+    private final int queueCapacity;
+    private final long idleTimeoutMillis;
+    private final long maxAgeMillis;
+    private final Duration pollerStartTimeout;
+    private final ConcurrentHashMap<String, QueueEntry> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reaper;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder tapped = new LongAdder();
+    private final LongAdder reapedIdle = new LongAdder();
+    private final LongAdder reapedMaxAge = new LongAdder();
+    private final LongAdder pollerStartTimeouts = new LongAdder();
+
+    public BoundedQueueManager(TaskStore taskStore, int queueCapacity, Duration idleTimeout,
+                               Duration maxAge, Duration pollerStartTimeout) {
+        this.taskStore = taskStore;
+        this.queueCapacity = queueCapacity;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.maxAgeMillis = maxAge.toMillis();
+        this.pollerStartTimeout = pollerStartTimeout;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("a2a-queue-reaper").daemon().factory());
+
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        reaper.scheduleWithFixedDelay(this::reap, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public EventQueue createOrTap(String taskId) {
+        QueueEntry existing = queues.get(taskId);
+        if (existing == null) {
+            QueueEntry entry = newEntry();
+            existing = queues.putIfAbsent(taskId, entry);
+            if (existing == null) {
+                created.increment();
+                return entry.queue();
+            }
+        }
+        tapped.increment();
+        return existing.touch().tap();
+    }
+
+    @Override
+    public EventQueue tap(String taskId) {
+        QueueEntry entry = queues.get(taskId);
+        if (entry == null) {
+            return null;
+        }
+        tapped.increment();
+        return entry.touch().tap();
+    }
+
+    @Override
+    public void add(String taskId, EventQueue queue) throws TaskQueueExistsException {
+        long now = System.currentTimeMillis();
+        if (queues.putIfAbsent(taskId, new QueueEntry(queue, now, new AtomicLong(now))) != null) {
+            throw new TaskQueueExistsException("Queue already exists for task: " + taskId);
+        }
+        created.increment();
+    }
+
+    @Override
+    public EventQueue get(String taskId) {
+        QueueEntry entry = queues.get(taskId);
+        return entry != null ? entry.touch() : null;
+    }
+
+    @Override
+    public void close(String taskId) {
+        QueueEntry entry = queues.remove(taskId);
+        if (entry != null) {
+            entry.queue().close();
+        }
+    }
+
+    @Override
+    public void awaitQueuePollerStart(EventQueue queue) throws InterruptedException {
+        Thread waiter = Thread.ofVirtual().name("a2a-poller-handshake").start(() -> {
+            try {
+                queue.awaitQueuePollerStart();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        if (!waiter.join(pollerStartTimeout)) {
+            waiter.interrupt();
+            pollerStartTimeouts.increment();
+            LOGGER.warn("Queue poller did not start within {} ms", pollerStartTimeout.toMillis());
+        }
+    }
+
+    private QueueEntry newEntry() {
+        long now = System.currentTimeMillis();
+        return new QueueEntry(EventQueue.create(queueCapacity), now, new AtomicLong(now));
+    }
+
+    void reap() {
+        long now = System.currentTimeMillis();
+        queues.forEach((taskId, entry) -> {
+            try {
+                if (entry.queue().isClosed()) {
+                    queues.remove(taskId, entry);
+                    return;
+                }
+                boolean idle = now - entry.lastAccessMillis().get() > idleTimeoutMillis;
+                if (now - entry.createdAtMillis() > maxAgeMillis) {
+                    if (idle || isOrphaned(taskId)) {
+                        closeReaped(taskId, entry, reapedMaxAge);
+                    }
+                } else if (idle && isOrphaned(taskId)) {
+                    closeReaped(taskId, entry, reapedIdle);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to reap event queue for task {}", taskId, e);
+            }
+        });
+    }
+
+    private boolean isOrphaned(String taskId) {
+        Task task = taskStore.get(taskId);
+        return task == null || task.getStatus() == null || task.getStatus().state() == null
+                || task.getStatus().state().isFinal();
+    }
+
+    private void closeReaped(String taskId, QueueEntry entry, LongAdder counter) {
+        if (queues.remove(taskId, entry)) {
+            entry.queue().close();
+            counter.increment();
+            LOGGER.debug("Reaped event queue for task {}", taskId);
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "a2aQueueManager";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "queues", queues.size(),
+                "queueCapacity", queueCapacity,
+                "created", created.sum(),
+                "tapped", tapped.sum(),
+                "reapedIdle", reapedIdle.sum(),
+                "reapedMaxAge", reapedMaxAge.sum(),
+                "pollerStartTimeouts", pollerStartTimeouts.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+    }
+}
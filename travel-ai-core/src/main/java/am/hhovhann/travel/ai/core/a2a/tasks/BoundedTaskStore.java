@@ -0,0 +1,222 @@
+package am.hhovhann.travel.ai.core.a2a.tasks;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import io.a2a.server.tasks.TaskStore;
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TextPart;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory {@link TaskStore} with a cap on task count and on approximate retained bytes.
+ * <p>
+ * Tasks in a final state (completed, failed, canceled, rejected) expire {@code terminalTtl} after
+ * their last save. When a cap is exceeded, the least recently saved final-state task is evicted
+ * first; active tasks are only evicted when no final-state task is left. Reads are lock-free.
+ */
+public class BoundedTaskStore implements TaskStore, MetricsSource {
+    private static final long TASK_OVERHEAD_BYTES = 512;
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+    private static final long PART_OVERHEAD_BYTES = 64;
+    private static final long NON_TEXT_PART_BYTES = 1024;
+
+    private record Entry(Task task, long bytes, boolean terminal, long savedAtMillis) {}
+
+    private final int maxTasks;
+    private final long maxBytes;
+    private final long terminalTtlMillis;
+
+    private final ConcurrentHashMap<String, Entry> tasks = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Save order per class of task; guarded by lock
+    private final LinkedHashSet<String> terminalOrder = new LinkedHashSet<>();
+    private final LinkedHashSet<String> activeOrder = new LinkedHashSet<>();
+    private long totalBytes;
+
+    private final LongAdder saves = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evictedTerminal = new LongAdder();
+    private final LongAdder evictedActive = new LongAdder();
+
+    public BoundedTaskStore(int maxTasks, long maxBytes, Duration terminalTtl) {
+        this.maxTasks = maxTasks;
+        this.maxBytes = maxBytes;
+        this.terminalTtlMillis = terminalTtl.toMillis();
+    }
+
+    @Override
+    public void save(Task task) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(task, estimateBytes(task), isTerminal(task), now);
+
+        lock.lock();
+        try {
+            removeLocked(task.getId());
+            tasks.put(task.getId(), entry);
+            (entry.terminal() ? terminalOrder : activeOrder).add(task.getId());
+            totalBytes += entry.bytes();
+            saves.increment();
+
+            expireLocked(now);
+            evictLocked(task.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        Entry entry = tasks.get(taskId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.terminal() && System.currentTimeMillis() - entry.savedAtMillis() > terminalTtlMillis) {
+            lock.lock();
+            try {
+                if (tasks.get(taskId) == entry) {
+                    removeLocked(taskId);
+                    expired.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        return entry.task();
+    }
+
+    @Override
+    public void delete(String taskId) {
+        lock.lock();
+        try {
+            removeLocked(taskId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry removeLocked(String taskId) {
+        Entry entry = tasks.remove(taskId);
+        if (entry != null) {
+            (entry.terminal() ? terminalOrder : activeOrder).remove(taskId);
+            totalBytes -= entry.bytes();
+        }
+        return entry;
+    }
+
+    // Final-state tasks are kept in save order, so expired ones are always at the head
+    private void expireLocked(long now) {
+        Iterator<String> it = terminalOrder.iterator();
+        while (it.hasNext()) {
+            String taskId = it.next();
+            Entry entry = tasks.get(taskId);
+            if (entry != null && now - entry.savedAtMillis() <= terminalTtlMillis) {
+                return;
+            }
+            it.remove();
+            if (entry != null) {
+                tasks.remove(taskId);
+                totalBytes -= entry.bytes();
+                expired.increment();
+            }
+        }
+    }
+
+    private void evictLocked(String justSaved) {
+        while (tasks.size() > maxTasks || totalBytes > maxBytes) {
+            if (!evictOldest(terminalOrder, justSaved, evictedTerminal)
+                    && !evictOldest(activeOrder, justSaved, evictedActive)) {
+                return;
+            }
+        }
+    }
+
+    private boolean evictOldest(LinkedHashSet<String> order, String justSaved, LongAdder counter) {
+        Iterator<String> it = order.iterator();
+        while (it.hasNext()) {
+            String taskId = it.next();
+            if (taskId.equals(justSaved)) {
+                continue;
+            }
+            it.remove();
+            Entry entry = tasks.remove(taskId);
+            if (entry != null) {
+                totalBytes -= entry.bytes();
+            }
+            counter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isTerminal(Task task) {
+        return task.getStatus() != null && task.getStatus().state() != null && task.getStatus().state().isFinal();
+    }
+
+    static long estimateBytes(Task task) {
+        long bytes = TASK_OVERHEAD_BYTES;
+        if (task.getArtifacts() != null) {
+            for (Artifact artifact : task.getArtifacts()) {
+                bytes += ENTRY_OVERHEAD_BYTES + estimateBytes(artifact.parts());
+            }
+        }
+        if (task.getHistory() != null) {
+            for (Message message : task.getHistory()) {
+                bytes += ENTRY_OVERHEAD_BYTES + estimateBytes(message.getParts());
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateBytes(List<Part<?>> parts) {
+        if (parts == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (Part<?> part : parts) {
+            bytes += PART_OVERHEAD_BYTES;
+            if (part instanceof TextPart textPart) {
+                bytes += textPart.getText() != null ? 2L * textPart.getText().length() : 0;
+            } else {
+                bytes += NON_TEXT_PART_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public String metricsName() {
+        return "a2aTaskStore";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        lock.lock();
+        try {
+            return Map.of(
+                    "tasks", tasks.size(),
+                    "terminalTasks", terminalOrder.size(),
+                    "activeTasks", activeOrder.size(),
+                    "bytes", totalBytes,
+                    "maxTasks", maxTasks,
+                    "maxBytes", maxBytes,
+                    "saves", saves.sum(),
+                    "expired", expired.sum(),
+                    "evictedTerminal", evictedTerminal.sum(),
+                    "evictedActive", evictedActive.sum()
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package am.hhovhann.travel.ai.core.a2a.tasks;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.a2a.server.tasks.TaskStore;
+import io.a2a.spec.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable {@link TaskStore} backed by an append-only log of memory-mapped segment files.
+ * <p>
+ * Every save appends the task as JSON; deletes append a tombstone. An in-memory index maps each task id
+ * to the offset of its latest record, so {@code get} is one map lookup plus one decode. Records carry a
+ * CRC32C checksum and their magic number is written last: on startup the log is replayed up to the first
+ * torn or corrupt record, which is where appending resumes. Final-state tasks older than {@code retention}
+ * are dropped first, so they never count as live; then the oldest sealed segments whose live data falls below
+ * {@code compactionThreshold} are rewritten into the active segment and deleted. Replay skips expired tasks too.
+ *
+ * <pre>
+ * record := magic:int bodyLength:int crc:int body
+ * body   := type:byte savedAt:long idLength:short id:utf8 payload:json
+ * </pre>
+ */
+public class MappedLogTaskStore implements TaskStore, MetricsSource, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedLogTaskStore.class);
+
+    private static final int MAGIC = 0x41324154; // "A2AT"
+    private static final int HEADER_BYTES = 12;
+    private static final int BODY_PREFIX_BYTES = 1 + 8 + 2;
+    private static final byte TYPE_ACTIVE = 1;
+    private static final byte TYPE_TERMINAL = 2;
+    private static final byte TYPE_TOMBSTONE = 3;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        long liveBytes;
+
+        Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private record Location(Segment segment, int offset, int length, long savedAtMillis, boolean terminal) {}
+
+    private final Path directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+    private final long retentionMillis;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Guarded by writeLock
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private boolean dirty;
+
+    private final ScheduledExecutorService maintenance;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder tombstones = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder reclaimedBytes = new LongAdder();
+    private final LongAdder retentionDrops = new LongAdder();
+    private long replayedRecords;
+    private long corruptRecords;
+    private long replayMillis;
+
+    public MappedLogTaskStore(Path directory, int segmentSize, Duration syncInterval, Duration compactionInterval,
+                              double compactionThreshold, Duration retention, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+        this.retentionMillis = retention.toMillis();
+        this.objectMapper = objectMapper;
+
+        try {
+            Files.createDirectories(directory);
+            replay();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open task log in " + directory, e);
+        }
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("a2a-task-log").daemon().factory());
+        maintenance.scheduleWithFixedDelay(this::sync,
+                syncInterval.toMillis(), syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::compact,
+                compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(Task task) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize task " + task.getId(), e);
+        }
+        boolean terminal = task.getStatus() != null && task.getStatus().state() != null
+                && task.getStatus().state().isFinal();
+
+        writeLock.lock();
+        try {
+            append(task.getId(), terminal ? TYPE_TERMINAL : TYPE_ACTIVE, System.currentTimeMillis(), payload);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        Location location = index.get(taskId);
+        // An expired task stays in the index until the next sweep, but is already gone as far as readers go
+        if (location == null || (location.terminal() && expired(location.savedAtMillis(), System.currentTimeMillis()))) {
+            return null;
+        }
+        byte[] payload = readPayload(location);
+        try {
+            return objectMapper.readValue(payload, Task.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode task " + taskId, e);
+        }
+    }
+
+    @Override
+    public void delete(String taskId) {
+        writeLock.lock();
+        try {
+            if (index.containsKey(taskId)) {
+                append(taskId, TYPE_TOMBSTONE, System.currentTimeMillis(), new byte[0]);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ---- log writing (callers hold writeLock) ----
+
+    private void append(String taskId, byte type, long savedAtMillis, byte[] payload) {
+        byte[] id = taskId.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = BODY_PREFIX_BYTES + id.length + payload.length;
+        int recordLength = HEADER_BYTES + bodyLength;
+        if (recordLength > segmentSize) {
+            throw new IllegalArgumentException("Task " + taskId + " needs " + recordLength
+                    + " bytes, more than the segment size " + segmentSize);
+        }
+        if (active.writePosition + recordLength > segmentSize) {
+            active.buffer.force();
+            active = createSegment(active.id + 1);
+        }
+
+        Segment segment = active;
+        int offset = segment.writePosition;
+        MappedByteBuffer buffer = segment.buffer;
+        int bodyOffset = offset + HEADER_BYTES;
+        buffer.put(bodyOffset, type);
+        buffer.putLong(bodyOffset + 1, savedAtMillis);
+        buffer.putShort(bodyOffset + 9, (short) id.length);
+        buffer.put(bodyOffset + BODY_PREFIX_BYTES, id);
+        buffer.put(bodyOffset + BODY_PREFIX_BYTES + id.length, payload);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(bodyOffset, bodyLength));
+        buffer.putInt(offset + 4, bodyLength);
+        buffer.putInt(offset + 8, (int) crc.getValue());
+        // Magic goes last: a record torn by a crash never looks complete on replay
+        buffer.putInt(offset, MAGIC);
+
+        segment.writePosition += recordLength;
+        dirty = true;
+
+        if (type == TYPE_TOMBSTONE) {
+            release(index.remove(taskId));
+            tombstones.increment();
+        } else {
+            segment.liveBytes += recordLength;
+            release(index.put(taskId, new Location(segment, offset, recordLength, savedAtMillis, type == TYPE_TERMINAL)));
+            appends.increment();
+        }
+    }
+
+    private void release(Location previous) {
+        if (previous != null) {
+            previous.segment().liveBytes -= previous.length();
+        }
+    }
+
+    private Segment createSegment(long id) {
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = openSegment(id, path);
+        segments.add(segment);
+        return segment;
+    }
+
+    private Segment openSegment(long id, Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(id, path, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map task log segment " + path, e);
+        }
+    }
+
+    private byte[] readPayload(Location location) {
+        MappedByteBuffer buffer = location.segment().buffer;
+        int bodyOffset = location.offset() + HEADER_BYTES;
+        int idLength = buffer.getShort(bodyOffset + 9);
+        int payloadOffset = bodyOffset + BODY_PREFIX_BYTES + idLength;
+        byte[] payload = new byte[location.offset() + location.length() - payloadOffset];
+        buffer.get(payloadOffset, payload);
+        return payload;
+    }
+
+    // ---- startup replay ----
+
+    private void replay() throws IOException {
+        long started = System.nanoTime();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = openSegment(id, file);
+            segments.add(segment);
+            replaySegment(segment);
+        }
+
+        active = segments.isEmpty() ? createSegment(0) : segments.getLast();
+        replayMillis = (System.nanoTime() - started) / 1_000_000;
+        LOGGER.info("Replayed {} task log records from {} segments in {} ms ({} tasks, {} corrupt records skipped)",
+                replayedRecords, segments.size(), replayMillis, index.size(), corruptRecords);
+    }
+
+    private void replaySegment(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_BYTES <= segmentSize) {
+            if (buffer.getInt(position) != MAGIC) {
+                break;
+            }
+            int bodyLength = buffer.getInt(position + 4);
+            if (bodyLength < BODY_PREFIX_BYTES || position + HEADER_BYTES + bodyLength > segmentSize) {
+                corruptRecords++;
+                break;
+            }
+            int bodyOffset = position + HEADER_BYTES;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(bodyOffset, bodyLength));
+            if ((int) crc.getValue() != buffer.getInt(position + 8)) {
+                corruptRecords++;
+                break;
+            }
+
+            byte type = buffer.get(bodyOffset);
+            long savedAtMillis = buffer.getLong(bodyOffset + 1);
+            byte[] id = new byte[buffer.getShort(bodyOffset + 9)];
+            buffer.get(bodyOffset + BODY_PREFIX_BYTES, id);
+            String taskId = new String(id, StandardCharsets.UTF_8);
+            int recordLength = HEADER_BYTES + bodyLength;
+
+            if (type == TYPE_TOMBSTONE || (type == TYPE_TERMINAL && expired(savedAtMillis, System.currentTimeMillis()))) {
+                release(index.remove(taskId));
+            } else {
+                segment.liveBytes += recordLength;
+                release(index.put(taskId, new Location(segment, position, recordLength, savedAtMillis, type == TYPE_TERMINAL)));
+            }
+            replayedRecords++;
+            position += recordLength;
+        }
+
+        // Zero out a torn tail so later appends never sit next to stale bytes
+        for (int i = position; i < Math.min(segmentSize, position + HEADER_BYTES); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        segment.writePosition = position;
+    }
+
+    // ---- maintenance ----
+
+    private void sync() {
+        writeLock.lock();
+        try {
+            if (dirty) {
+                active.buffer.force();
+                dirty = false;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to sync task log", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void compact() {
+        long now = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            dropExpired(now);
+            // Only a prefix of the log is compacted: a tombstone may be dropped only once every older
+            // segment that could hold a record for the same task is gone
+            for (Segment segment : List.copyOf(segments)) {
+                if (segment == active || segment.liveBytes > compactionThreshold * segment.writePosition) {
+                    break;
+                }
+                for (Map.Entry<String, Location> entry : index.entrySet()) {
+                    Location location = entry.getValue();
+                    if (location.segment() != segment) {
+                        continue;
+                    }
+                    byte type = location.terminal() ? TYPE_TERMINAL : TYPE_ACTIVE;
+                    append(entry.getKey(), type, location.savedAtMillis(), readPayload(location));
+                }
+                active.buffer.force();
+                segments.remove(segment);
+                reclaimedBytes.add(segment.writePosition);
+                closeQuietly(segment);
+                Files.deleteIfExists(segment.path);
+                compactions.increment();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Task log compaction failed", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Expired tasks leave the index without a tombstone; replay skips them by the same rule
+    private void dropExpired(long now) {
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.terminal() && expired(location.savedAtMillis(), now) && index.remove(entry.getKey(), location)) {
+                location.segment().liveBytes -= location.length();
+                retentionDrops.increment();
+            }
+        }
+    }
+
+    private boolean expired(long savedAtMillis, long now) {
+        return now - savedAtMillis > retentionMillis;
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close task log segment {}", segment.path, e);
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "a2aTaskLog";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        writeLock.lock();
+        try {
+            long liveBytes = segments.stream().mapToLong(segment -> segment.liveBytes).sum();
+            long writtenBytes = segments.stream().mapToLong(segment -> segment.writePosition).sum();
+            return Map.of(
+                    "tasks", index.size(),
+                    "segments", segments.size(),
+                    "writtenBytes", writtenBytes,
+                    "liveBytes", liveBytes,
+                    "appends", appends.sum(),
+                    "tombstones", tombstones.sum(),
+                    "compactions", compactions.sum(),
+                    "reclaimedBytes", reclaimedBytes.sum(),
+                    "retentionDrops", retentionDrops.sum(),
+                    "replay", Map.of(
+                            "records", replayedRecords,
+                            "corruptRecords", corruptRecords,
+                            "millis", replayMillis
+                    )
+            );
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        writeLock.lock();
+        try {
+            for (Segment segment : segments) {
+                segment.buffer.force();
+                closeQuietly(segment);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
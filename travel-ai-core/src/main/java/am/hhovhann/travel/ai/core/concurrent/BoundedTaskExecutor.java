@@ -0,0 +1,139 @@
+package am.hhovhann.travel.ai.core.concurrent;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor with a hard cap on concurrently running tasks and on tasks waiting for a slot.
+ * <p>
+ * In {@link Mode#VIRTUAL} mode every task gets its own virtual thread, which parks on a semaphore
+ * until one of {@code maxConcurrency} slots is free; blocking inside a task costs no platform thread.
+ * In {@link Mode#PLATFORM} mode tasks run on a fixed pool of {@code maxConcurrency} platform threads
+ * with a bounded queue. Either way, submissions beyond the waiting limit are rejected instead of
+ * growing the thread count.
+ */
+public class BoundedTaskExecutor implements Executor, MetricsSource, AutoCloseable {
+
+    public enum Mode { VIRTUAL, PLATFORM }
+
+    private final String name;
+    private final Mode mode;
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public BoundedTaskExecutor(String name, Mode mode, int maxConcurrency, int maxQueued) {
+        this.name = name;
+        this.mode = mode;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxConcurrency);
+        this.delegate = switch (mode) {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+            case PLATFORM -> {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                        maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(maxQueued),
+                        Thread.ofPlatform().name(name + "-", 0).factory(),
+                        new ThreadPoolExecutor.AbortPolicy());
+                pool.allowCoreThreadTimeOut(true);
+                yield pool;
+            }
+        };
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (waiting.incrementAndGet() > maxQueued) {
+            reject();
+        }
+        try {
+            delegate.execute(() -> runBounded(task));
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            reject();
+        }
+    }
+
+    private void reject() {
+        waiting.decrementAndGet();
+        rejected.increment();
+        throw new RejectedExecutionException(name + " is saturated: " + active.get() + " running, "
+                + waiting.get() + " waiting (limits " + maxConcurrency + "/" + maxQueued + ")");
+    }
+
+    private void runBounded(Runnable task) {
+        boolean acquired = false;
+        try {
+            if (mode == Mode.VIRTUAL) {
+                permits.acquire();
+                acquired = true;
+            }
+            waiting.decrementAndGet();
+            peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                task.run();
+                completed.increment();
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            } finally {
+                active.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            waiting.decrementAndGet();
+            failed.increment();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return name;
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "mode", mode.name().toLowerCase(),
+                "maxConcurrency", maxConcurrency,
+                "maxQueued", maxQueued,
+                "active", active.get(),
+                "waiting", waiting.get(),
+                "peakActive", peakActive.get(),
+                "submitted", submitted.sum(),
+                "completed", completed.sum(),
+                "failed", failed.sum(),
+                "rejected", rejected.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
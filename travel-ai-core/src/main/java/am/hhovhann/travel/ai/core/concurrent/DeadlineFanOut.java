@@ -0,0 +1,123 @@
+package am.hhovhann.travel.ai.core.concurrent;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs independent tasks concurrently on virtual threads and collects whatever finished in time.
+ * Each task has its own timeout and all of them share one overall deadline; tasks still running when
+ * their time is up are interrupted and reported as timed out instead of failing the whole call.
+ */
+@Component
+public class DeadlineFanOut implements AutoCloseable {
+
+    /**
+     * Results in task order, plus the keys of tasks that timed out or threw.
+     */
+    public record Outcome<K, T>(Map<K, T> results, List<K> timedOut, Map<K, Throwable> failed) {
+        public boolean partial() {
+            return !timedOut.isEmpty() || !failed.isEmpty();
+        }
+    }
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("fan-out-", 0).factory());
+
+    public <K, T> Outcome<K, T> run(Map<K, Callable<T>> tasks, Function<K, Duration> timeouts, Duration deadline) {
+        Map<K, T> finished = new HashMap<>();
+        Outcome<K, T> outcome = run(tasks, timeouts, deadline, finished::put);
+
+        Map<K, T> results = new LinkedHashMap<>();
+        for (K key : tasks.keySet()) {
+            if (finished.containsKey(key)) {
+                results.put(key, finished.get(key));
+            }
+        }
+        return new Outcome<>(results, outcome.timedOut(), outcome.failed());
+    }
+
+    /**
+     * Like {@link #run(Map, Function, Duration)}, but hands every result to {@code onResult} on the calling
+     * thread as soon as its task finishes, so callers can merge results while slower tasks are still running.
+     * The returned outcome carries no results.
+     */
+    public <K, T> Outcome<K, T> run(Map<K, Callable<T>> tasks, Function<K, Duration> timeouts, Duration deadline,
+                                    BiConsumer<K, T> onResult) {
+        long start = System.nanoTime();
+        long overallDeadline = start + deadline.toNanos();
+
+        BlockingQueue<K> completed = new LinkedBlockingQueue<>();
+        Map<K, Future<T>> pending = new LinkedHashMap<>();
+        Map<K, Long> deadlines = new HashMap<>();
+        tasks.forEach((key, task) -> {
+            deadlines.put(key, Math.min(overallDeadline, start + timeouts.apply(key).toNanos()));
+            pending.put(key, executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    completed.add(key);
+                }
+            }));
+        });
+
+        List<K> timedOut = new ArrayList<>();
+        Map<K, Throwable> failed = new LinkedHashMap<>();
+        try {
+            while (!pending.isEmpty()) {
+                long nextDeadline = Long.MAX_VALUE;
+                for (K key : pending.keySet()) {
+                    nextDeadline = Math.min(nextDeadline, deadlines.get(key));
+                }
+
+                K key = completed.poll(Math.max(0, nextDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    Future<T> future = pending.remove(key);
+                    if (future != null) {
+                        try {
+                            onResult.accept(key, future.get());
+                        } catch (ExecutionException e) {
+                            failed.put(key, e.getCause());
+                        }
+                    }
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                pending.entrySet().removeIf(entry -> {
+                    if (deadlines.get(entry.getKey()) > now) {
+                        return false;
+                    }
+                    entry.getValue().cancel(true);
+                    timedOut.add(entry.getKey());
+                    return true;
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.values().forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while waiting for fan-out results", e);
+        }
+        return new Outcome<>(Map.of(), timedOut, failed);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
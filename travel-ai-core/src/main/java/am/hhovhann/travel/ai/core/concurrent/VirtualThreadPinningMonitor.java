@@ -0,0 +1,81 @@
+package am.hhovhann.travel.ai.core.concurrent;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in-process and logs every pin longer than
+ * the threshold with the top of its stack, so carrier-thread pinning (native frames, class
+ * initialisers, long {@code synchronized} sections) shows up in the agent logs.
+ */
+public class VirtualThreadPinningMonitor implements MetricsSource, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final RecordingStream stream;
+    private final Duration threshold;
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final AtomicLong maxPinnedMillis = new AtomicLong();
+
+    public VirtualThreadPinningMonitor(Duration threshold) {
+        this.threshold = threshold;
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        long millis = event.getDuration().toMillis();
+        pinnedEvents.increment();
+        maxPinnedMillis.accumulateAndGet(millis, Math::max);
+
+        String thread = event.getThread() != null ? event.getThread().getJavaName() : "unknown";
+        LOGGER.warn("Virtual thread {} pinned its carrier for {} ms at {}", thread, millis, topFrames(event.getStackTrace()));
+    }
+
+    private static String topFrames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<no stack trace>";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::formatFrame)
+                .collect(Collectors.joining(" <- "));
+    }
+
+    private static String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @Override
+    public String metricsName() {
+        return "virtualThreadPinning";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "thresholdMillis", threshold.toMillis(),
+                "pinnedEvents", pinnedEvents.sum(),
+                "maxPinnedMillis", maxPinnedMillis.get()
+        );
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
@@ -1,5 +1,7 @@
 package am.hhovhann.travel.ai.core.config;
 
+import am.hhovhann.travel.ai.core.json.FlightResponseSerializer;
+import am.hhovhann.travel.ai.core.json.HotelResponseSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -26,6 +28,8 @@ public class CoreConfiguration {
 
         // Create a simple module for any custom serializers/deserializers if needed
         SimpleModule a2aModule = new SimpleModule("A2AModule");
+        a2aModule.addSerializer(new FlightResponseSerializer());
+        a2aModule.addSerializer(new HotelResponseSerializer());
 
         // Register the module
         mapper.registerModule(a2aModule);
@@ -0,0 +1,67 @@
+package am.hhovhann.travel.ai.core.config;
+
+import am.hhovhann.travel.ai.core.mcp.transport.HttpClientMcpTransport;
+import am.hhovhann.travel.ai.core.mcp.transport.McpTransport;
+import am.hhovhann.travel.ai.core.mcp.transport.RestTemplateMcpTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class McpClientConfiguration {
+
+    /**
+     * Executor for MCP client work: blocking calls of the legacy transport and
+     * response handling of the {@link HttpClient} transport.
+     * Supported types: {@code virtual} (default) and {@code fixed}.
+     */
+    @Bean("mcpClientExecutor")
+    public ExecutorService mcpClientExecutor(
+            @Value("${mcp.client.executor.type:virtual}") String type,
+            @Value("${mcp.client.executor.threads:16}") int threads) {
+        return switch (type) {
+            case "virtual" -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mcp-client-", 0).factory());
+            case "fixed" -> Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("mcp-client-", 0).daemon().factory());
+            default -> throw new IllegalArgumentException("Unknown mcp.client.executor.type: " + type);
+        };
+    }
+
+    /**
+     * Selects how {@code McpClient} talks to MCP servers: {@code rest-template} (blocking, default)
+     * or {@code http-client} (non-blocking JDK HttpClient with HTTP/2 and pooled keep-alive connections).
+     * <p>
+     * The JDK connection pool is sized by the JVM-wide {@code jdk.httpclient.connectionPoolSize} and
+     * {@code jdk.httpclient.keepalive.timeout} properties, so they are passed as {@code -D} flags at launch.
+     */
+    @Bean
+    public McpTransport mcpTransport(
+            @Value("${mcp.client.transport:rest-template}") String transport,
+            @Value("${mcp.client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${mcp.client.max-in-flight:256}") int maxInFlight,
+            @Value("${mcp.client.max-queued:1024}") int maxQueued,
+            RestTemplate restTemplate,
+            ObjectMapper objectMapper,
+            @Qualifier("mcpClientExecutor") ExecutorService executor) {
+        return switch (transport) {
+            case "rest-template" -> new RestTemplateMcpTransport(restTemplate, executor);
+            case "http-client" -> {
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(connectTimeout)
+                        .executor(executor)
+                        .build();
+                yield new HttpClientMcpTransport(httpClient, objectMapper, maxInFlight, maxQueued);
+            }
+            default -> throw new IllegalArgumentException("Unknown mcp.client.transport: " + transport);
+        };
+    }
+
+}
@@ -1,31 +1,72 @@
 package am.hhovhann.travel.ai.core.config;
 
+import am.hhovhann.travel.ai.core.a2a.events.BoundedQueueManager;
+import am.hhovhann.travel.ai.core.a2a.tasks.BoundedTaskStore;
+import am.hhovhann.travel.ai.core.a2a.tasks.MappedLogTaskStore;
+import am.hhovhann.travel.ai.core.concurrent.BoundedTaskExecutor;
+import am.hhovhann.travel.ai.core.concurrent.VirtualThreadPinningMonitor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.a2a.server.events.EventQueue;
 import io.a2a.server.events.QueueManager;
 import io.a2a.server.tasks.PushNotificationConfigStore;
 import io.a2a.server.tasks.PushNotificationSender;
 import io.a2a.server.tasks.TaskStore;
 import io.a2a.spec.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 @Configuration
 public class SpringA2AInfrastructureConfig {
 
+    /**
+     * {@code memory} keeps every task until it is deleted; {@code bounded} caps task count and
+     * retained bytes and expires finished tasks after {@code a2a.task-store.terminal-ttl};
+     * {@code durable} persists tasks in a memory-mapped log so they survive a restart.
+     */
     @Bean
-    public TaskStore taskStore() {
-        // Simple in-memory implementation
-        return new SimpleTaskStore();
+    public TaskStore taskStore(
+            @Value("${a2a.task-store.type:memory}") String type,
+            @Value("${a2a.task-store.max-tasks:10000}") int maxTasks,
+            @Value("${a2a.task-store.max-bytes:268435456}") long maxBytes,
+            @Value("${a2a.task-store.terminal-ttl:30m}") Duration terminalTtl,
+            @Value("${a2a.task-store.durable.directory:data/${spring.application.name:a2a}/tasks}") Path directory,
+            @Value("${a2a.task-store.durable.segment-size:67108864}") int segmentSize,
+            @Value("${a2a.task-store.durable.sync-interval:1s}") Duration syncInterval,
+            @Value("${a2a.task-store.durable.compaction-interval:5m}") Duration compactionInterval,
+            @Value("${a2a.task-store.durable.compaction-threshold:0.5}") double compactionThreshold,
+            ObjectMapper objectMapper) {
+        return switch (type) {
+            case "memory" -> new SimpleTaskStore();
+            case "bounded" -> new BoundedTaskStore(maxTasks, maxBytes, terminalTtl);
+            case "durable" -> new MappedLogTaskStore(directory, segmentSize, syncInterval, compactionInterval,
+                    compactionThreshold, terminalTtl, objectMapper);
+            default -> throw new IllegalArgumentException("Unknown a2a.task-store.type: " + type);
+        };
     }
 
+    /**
+     * {@code memory} keeps queues until explicitly closed; {@code bounded} caps per-task buffers,
+     * reaps orphaned queues and waits for the queue poller before events are produced.
+     */
     @Bean
-    public QueueManager queueManager() {
-        // Simple in-memory implementation
-        return new SimpleQueueManager();
+    public QueueManager queueManager(
+            TaskStore taskStore,
+            @Value("${a2a.queue-manager.type:memory}") String type,
+            @Value("${a2a.queue-manager.queue-capacity:256}") int queueCapacity,
+            @Value("${a2a.queue-manager.idle-timeout:5m}") Duration idleTimeout,
+            @Value("${a2a.queue-manager.max-age:1h}") Duration maxAge,
+            @Value("${a2a.queue-manager.poller-start-timeout:5s}") Duration pollerStartTimeout) {
+        return switch (type) {
+            case "memory" -> new SimpleQueueManager();
+            case "bounded" -> new BoundedQueueManager(taskStore, queueCapacity, idleTimeout, maxAge, pollerStartTimeout);
+            default -> throw new IllegalArgumentException("Unknown a2a.queue-manager.type: " + type);
+        };
     }
 
     @Bean
@@ -40,9 +81,25 @@ public class SpringA2AInfrastructureConfig {
         return new NoOpPushNotificationSender();
     }
 
+    /**
+     * Runs {@code DefaultRequestHandler} work and the agent executors. In {@code virtual} mode (default)
+     * each task gets a virtual thread, so blocking MCP and LLM calls do not hold platform threads;
+     * {@code platform} mode uses a fixed pool. Both modes cap running and waiting tasks.
+     */
     @Bean
-    public Executor a2aExecutor() {
-        return Executors.newCachedThreadPool();
+    public BoundedTaskExecutor a2aExecutor(
+            @Value("${a2a.executor.mode:virtual}") String mode,
+            @Value("${a2a.executor.max-concurrency:256}") int maxConcurrency,
+            @Value("${a2a.executor.max-queued:1024}") int maxQueued) {
+        return new BoundedTaskExecutor("a2a-executor",
+                BoundedTaskExecutor.Mode.valueOf(mode.toUpperCase()), maxConcurrency, maxQueued);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "a2a.executor.pinning-diagnostics.enabled", havingValue = "true")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${a2a.executor.pinning-diagnostics.threshold:20ms}") Duration threshold) {
+        return new VirtualThreadPinningMonitor(threshold);
     }
 
     // Simple implementations for the required interfaces
@@ -0,0 +1,227 @@
+package am.hhovhann.travel.ai.core.fx;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exchange rates into {@code fx.base-currency}, read from {@code fx.rates}: a CSV whose first entry is
+ * {@code base,<currency>}, followed by {@code currency,rate} lines where {@code rate} is the value of one unit in
+ * that currency; lines starting with {@code #} are comments. When the file's base differs from
+ * {@code fx.base-currency}, the rates are rebased through the file's rate for the configured base, and a file
+ * without such a rate is rejected.
+ * <p>
+ * Readers take the current {@link Table} without locking. When {@code fx.rates} is a file, it is checked every
+ * {@code fx.reload-interval} and a changed file replaces the table as a whole, so a caller converting a list
+ * with one table never mixes old and new rates. A file that fails to parse leaves the previous table in place.
+ */
+@Component
+public class FxRates implements MetricsSource, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FxRates.class);
+
+    /**
+     * One immutable set of rates.
+     */
+    public static final class Table {
+        private final String base;
+        private final Map<String, BigDecimal> rates;
+        private final Instant loadedAt;
+        private final LongAdder unknown;
+
+        private Table(String base, Map<String, BigDecimal> rates, Instant loadedAt, LongAdder unknown) {
+            this.base = base;
+            this.rates = rates;
+            this.loadedAt = loadedAt;
+            this.unknown = unknown;
+        }
+
+        public String base() {
+            return base;
+        }
+
+        public Instant loadedAt() {
+            return loadedAt;
+        }
+
+        /**
+         * {@code amount} of {@code currency} in the base currency, rounded half-up to hundredths. {@code null} when
+         * there is no amount or no rate for the currency; a missing currency is taken to be the base currency.
+         */
+        public BigDecimal toBase(BigDecimal amount, String currency) {
+            if (amount == null) {
+                return null;
+            }
+            if (currency == null || currency.equalsIgnoreCase(base)) {
+                return amount.setScale(2, RoundingMode.HALF_UP);
+            }
+            BigDecimal rate = rates.get(currency.toUpperCase());
+            if (rate == null) {
+                unknown.increment();
+                return null;
+            }
+            return amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    private final Resource source;
+    private final String base;
+    private final ScheduledExecutorService reloader;
+    private volatile Table table;
+    private long lastModified;
+
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reloadFailures = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+
+    public FxRates(@Value("${fx.base-currency:USD}") String base,
+                   @Value("${fx.rates:classpath:fx/rates.csv}") Resource source,
+                   @Value("${fx.reload-interval:30s}") Duration reloadInterval) {
+        this.source = source;
+        this.base = base.trim().toUpperCase();
+        File file = file(source);
+        this.lastModified = file == null ? 0 : file.lastModified();
+        try {
+            this.table = load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read exchange rates from " + source.getDescription(), e);
+        }
+        LOGGER.info("Loaded {} exchange rates into {} from {}", table.rates.size(), this.base, source.getDescription());
+
+        if (file != null && reloadInterval.isPositive()) {
+            this.reloader = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("fx-rates-reload").daemon().factory());
+            reloader.scheduleWithFixedDelay(() -> reloadIfChanged(file),
+                    reloadInterval.toMillis(), reloadInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.reloader = null;
+        }
+    }
+
+    /**
+     * The rates in effect now. Take it once per batch of conversions.
+     */
+    public Table current() {
+        return table;
+    }
+
+    private void reloadIfChanged(File file) {
+        long modified = file.lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        // Remembered even when parsing fails, so a broken file is reported once rather than every interval
+        lastModified = modified;
+        try {
+            table = load();
+            reloads.increment();
+            LOGGER.info("Reloaded {} exchange rates from {}", table.rates.size(), source.getDescription());
+        } catch (IOException | RuntimeException e) {
+            reloadFailures.increment();
+            LOGGER.warn("Keeping previous exchange rates; cannot read {}", source.getDescription(), e);
+        }
+    }
+
+    private Table load() throws IOException {
+        String fileBase = null;
+        Map<String, BigDecimal> rates = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != 2) {
+                    throw new IllegalArgumentException("Expected currency,rate at " + source.getDescription() + ":" + lineNumber);
+                }
+                if (fileBase == null) {
+                    if (!fields[0].trim().equalsIgnoreCase("base")) {
+                        throw new IllegalArgumentException("Expected base,<currency> as the first entry of " + source.getDescription());
+                    }
+                    fileBase = fields[1].trim().toUpperCase();
+                    continue;
+                }
+                BigDecimal rate = new BigDecimal(fields[1].trim());
+                if (rate.signum() <= 0) {
+                    throw new IllegalArgumentException("Rate must be positive at " + source.getDescription() + ":" + lineNumber);
+                }
+                rates.put(fields[0].trim().toUpperCase(), rate);
+            }
+        }
+        if (fileBase == null) {
+            throw new IllegalArgumentException("No rates in " + source.getDescription());
+        }
+        return new Table(base, Map.copyOf(rebase(rates, fileBase)), Instant.now(), unknown);
+    }
+
+    private Map<String, BigDecimal> rebase(Map<String, BigDecimal> rates, String fileBase) {
+        rates.remove(fileBase);
+        if (fileBase.equals(base)) {
+            return rates;
+        }
+        BigDecimal baseRate = rates.remove(base);
+        if (baseRate == null) {
+            throw new IllegalArgumentException(source.getDescription() + " is in " + fileBase + " and has no rate for " + base);
+        }
+        Map<String, BigDecimal> rebased = new HashMap<>();
+        rates.forEach((currency, rate) -> rebased.put(currency, rate.divide(baseRate, MathContext.DECIMAL64)));
+        rebased.put(fileBase, BigDecimal.ONE.divide(baseRate, MathContext.DECIMAL64));
+        return rebased;
+    }
+
+    private static File file(Resource source) {
+        try {
+            return source.isFile() ? source.getFile() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "fxRates";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Table current = table;
+        return Map.of(
+                "baseCurrency", current.base,
+                "currencies", current.rates.size(),
+                "loadedAt", current.loadedAt.toString(),
+                "reloads", reloads.sum(),
+                "reloadFailures", reloadFailures.sum(),
+                "unknownCurrency", unknown.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+}
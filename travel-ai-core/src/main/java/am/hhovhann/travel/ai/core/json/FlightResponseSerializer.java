@@ -0,0 +1,63 @@
+package am.hhovhann.travel.ai.core.json;
+
+import am.hhovhann.travel.ai.core.model.FlightOffer;
+import am.hhovhann.travel.ai.core.model.FlightResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link FlightResponse} field by field instead of going through bean introspection.
+ * Times use the same {@code yyyy-MM-dd HH:mm} pattern the record declares for reading; null fields are omitted.
+ */
+public class FlightResponseSerializer extends StdSerializer<FlightResponse> {
+
+    public FlightResponseSerializer() {
+        super(FlightResponse.class);
+    }
+
+    @Override
+    public void serialize(FlightResponse flight, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(flight);
+        JsonFields.writeString(gen, "flightId", flight.flightId());
+        JsonFields.writeString(gen, "flightNumber", flight.flightNumber());
+        JsonFields.writeString(gen, "airline", flight.airline());
+        JsonFields.writeString(gen, "from", flight.from());
+        JsonFields.writeString(gen, "to", flight.to());
+        JsonFields.writeDateTime(gen, "departureTime", flight.departureTime());
+        JsonFields.writeDateTime(gen, "arrivalTime", flight.arrivalTime());
+        JsonFields.writeDecimal(gen, "price", flight.price());
+        JsonFields.writeString(gen, "currency", flight.currency());
+        JsonFields.writeString(gen, "cabinClass", flight.cabinClass());
+        JsonFields.writeInt(gen, "availableSeats", flight.availableSeats());
+        JsonFields.writeStrings(gen, "amenities", flight.amenities());
+        JsonFields.writeString(gen, "duration", flight.duration());
+        JsonFields.writeInt(gen, "stops", flight.stops());
+        JsonFields.writeString(gen, "provider", flight.provider());
+        JsonFields.writeDecimal(gen, "normalizedPrice", flight.normalizedPrice());
+        JsonFields.writeString(gen, "normalizedCurrency", flight.normalizedCurrency());
+        JsonFields.writeString(gen, "operatingCarrier", flight.operatingCarrier());
+        JsonFields.writeString(gen, "operatingFlightNumber", flight.operatingFlightNumber());
+        if (flight.otherOffers() != null) {
+            gen.writeArrayFieldStart("otherOffers");
+            for (FlightOffer offer : flight.otherOffers()) {
+                gen.writeStartObject(offer);
+                JsonFields.writeString(gen, "flightId", offer.flightId());
+                JsonFields.writeString(gen, "provider", offer.provider());
+                JsonFields.writeString(gen, "flightNumber", offer.flightNumber());
+                JsonFields.writeString(gen, "airline", offer.airline());
+                JsonFields.writeDecimal(gen, "price", offer.price());
+                JsonFields.writeString(gen, "currency", offer.currency());
+                JsonFields.writeString(gen, "cabinClass", offer.cabinClass());
+                JsonFields.writeInt(gen, "availableSeats", offer.availableSeats());
+                JsonFields.writeDecimal(gen, "normalizedPrice", offer.normalizedPrice());
+                JsonFields.writeString(gen, "normalizedCurrency", offer.normalizedCurrency());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,45 @@
+package am.hhovhann.travel.ai.core.json;
+
+import am.hhovhann.travel.ai.core.model.HotelResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link HotelResponse} field by field instead of going through bean introspection; null fields are omitted.
+ */
+public class HotelResponseSerializer extends StdSerializer<HotelResponse> {
+
+    public HotelResponseSerializer() {
+        super(HotelResponse.class);
+    }
+
+    @Override
+    public void serialize(HotelResponse hotel, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(hotel);
+        JsonFields.writeString(gen, "hotelId", hotel.hotelId());
+        JsonFields.writeString(gen, "name", hotel.name());
+        JsonFields.writeString(gen, "address", hotel.address());
+        JsonFields.writeString(gen, "city", hotel.city());
+        JsonFields.writeString(gen, "country", hotel.country());
+        JsonFields.writeInt(gen, "starRating", hotel.starRating());
+        JsonFields.writeDecimal(gen, "pricePerNight", hotel.pricePerNight());
+        JsonFields.writeString(gen, "currency", hotel.currency());
+        JsonFields.writeString(gen, "roomType", hotel.roomType());
+        JsonFields.writeStrings(gen, "amenities", hotel.amenities());
+        if (hotel.rating() != null) {
+            gen.writeNumberField("rating", hotel.rating());
+        }
+        JsonFields.writeInt(gen, "reviewCount", hotel.reviewCount());
+        JsonFields.writeString(gen, "description", hotel.description());
+        gen.writeBooleanField("hasWifi", hotel.hasWifi());
+        gen.writeBooleanField("hasParking", hotel.hasParking());
+        gen.writeBooleanField("hasBreakfast", hotel.hasBreakfast());
+        JsonFields.writeString(gen, "provider", hotel.provider());
+        JsonFields.writeDecimal(gen, "normalizedPricePerNight", hotel.normalizedPricePerNight());
+        JsonFields.writeString(gen, "normalizedCurrency", hotel.normalizedCurrency());
+        gen.writeEndObject();
+    }
+}
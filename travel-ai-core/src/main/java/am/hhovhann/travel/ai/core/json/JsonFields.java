@@ -0,0 +1,51 @@
+package am.hhovhann.travel.ai.core.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+final class JsonFields {
+    static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private JsonFields() {
+    }
+
+    static void writeString(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    static void writeInt(JsonGenerator gen, String name, Integer value) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value.intValue());
+        }
+    }
+
+    static void writeDecimal(JsonGenerator gen, String name, BigDecimal value) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value);
+        }
+    }
+
+    static void writeDateTime(JsonGenerator gen, String name, LocalDateTime value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, DATE_TIME.format(value));
+        }
+    }
+
+    static void writeStrings(JsonGenerator gen, String name, List<String> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        gen.writeArrayFieldStart(name);
+        for (String value : values) {
+            gen.writeString(value);
+        }
+        gen.writeEndArray();
+    }
+}
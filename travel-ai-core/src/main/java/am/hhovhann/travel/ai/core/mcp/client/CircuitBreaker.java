@@ -0,0 +1,136 @@
+package am.hhovhann.travel.ai.core.mcp.client;
+
+import java.util.Arrays;
+
+/**
+ * Count-based circuit breaker. Opens when the failure rate over the last {@code windowSize} calls
+ * reaches the threshold; after {@code openDuration} it lets {@code halfOpenProbes} calls through and
+ * closes once all of them succeed, or opens again on the first failure.
+ * <p>
+ * Every state change starts a new generation. {@link #tryAcquire} hands out the current generation as the
+ * call's permit, and a result only counts in the generation its call was admitted in, so a call started
+ * before the breaker opened cannot close or reopen it as if it were a probe.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+
+    private final boolean[] failures;
+    private int count;
+    private int next;
+    private int failureCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long timesOpened;
+    private long generation;
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openDurationNanos, int halfOpenProbes) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * The permit to pass to {@link #onResult} when the call may go ahead, or -1 when it must not.
+     */
+    synchronized long tryAcquire(long now) {
+        if (state == State.OPEN && now - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            generation++;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        return switch (state) {
+            case CLOSED -> generation;
+            case OPEN -> -1;
+            case HALF_OPEN -> {
+                if (probesStarted >= halfOpenProbes) {
+                    yield -1;
+                }
+                probesStarted++;
+                yield generation;
+            }
+        };
+    }
+
+    /**
+     * Whether a call admitted with {@code permit} may send an extra request, e.g. a hedge: only while the
+     * breaker is still closed in the same generation.
+     */
+    synchronized boolean allowsExtra(long permit) {
+        return state == State.CLOSED && generation == permit;
+    }
+
+    synchronized void onResult(long permit, boolean success, long now) {
+        if (permit != generation) {
+            // Late result of a call admitted before the last state change
+            return;
+        }
+        switch (state) {
+            case HALF_OPEN -> {
+                if (!success) {
+                    open(now);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (count == failures.length && failures[next]) {
+                    failureCount--;
+                }
+                failures[next] = !success;
+                next = (next + 1) % failures.length;
+                if (count < failures.length) {
+                    count++;
+                }
+                if (!success) {
+                    failureCount++;
+                }
+                if (count >= minimumCalls && (double) failureCount / count >= failureRateThreshold) {
+                    open(now);
+                }
+            }
+            case OPEN -> {
+                // Unreachable: opening starts a new generation and no permits are issued while open
+            }
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized double failureRate() {
+        return count == 0 ? 0.0 : (double) failureCount / count;
+    }
+
+    synchronized long timesOpened() {
+        return timesOpened;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        generation++;
+        openedAt = now;
+        timesOpened++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        generation++;
+        count = 0;
+        next = 0;
+        failureCount = 0;
+        Arrays.fill(failures, false);
+    }
+}
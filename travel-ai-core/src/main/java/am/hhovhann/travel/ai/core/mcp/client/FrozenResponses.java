@@ -0,0 +1,52 @@
+package am.hhovhann.travel.ai.core.mcp.client;
+
+import am.hhovhann.travel.ai.core.mcp.model.McpError;
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deep read-only copies of MCP responses, for results that are handed to more than one caller. Maps and lists
+ * decoded from JSON are copied level by level, keeping entry order and {@code null} values.
+ */
+final class FrozenResponses {
+
+    private FrozenResponses() {
+    }
+
+    static McpResponse freeze(McpResponse response) {
+        if (response == null) {
+            return null;
+        }
+        McpError error = response.error();
+        return new McpResponse(response.jsonrpc(), response.id(),
+                response.result() == null ? null : freezeMap(response.result()),
+                error == null ? null : new McpError(error.code(), error.message(), freezeValue(error.data())));
+    }
+
+    private static Map<String, Object> freezeMap(Map<?, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>(Math.max(4, map.size() * 4 / 3 + 1));
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(String.valueOf(entry.getKey()), freezeValue(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object freezeValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return freezeMap(map);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(freezeValue(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package am.hhovhann.travel.ai.core.mcp.client;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of the most recent successful call latencies with percentile lookup.
+ * The sorted view is rebuilt at most once per {@code RESORT_INTERVAL} new samples.
+ */
+final class LatencyWindow {
+    private static final int RESORT_INTERVAL = 16;
+
+    private final long[] samples;
+    private int count;
+    private int next;
+    private long[] sorted = new long[0];
+    private int sinceSort;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceSort++;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Returns the latency at quantile {@code q} (0..1) in nanoseconds, or -1 without samples.
+     */
+    synchronized long percentile(double q) {
+        if (count == 0) {
+            return -1;
+        }
+        if (sinceSort >= RESORT_INTERVAL || sorted.length != count) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            sinceSort = 0;
+        }
+        int index = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
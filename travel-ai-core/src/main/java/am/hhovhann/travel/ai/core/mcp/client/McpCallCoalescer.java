@@ -0,0 +1,127 @@
+package am.hhovhann.travel.ai.core.mcp.client;
+
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Single-flight coalescing of MCP tool calls: concurrent calls with the same server URL, tool name
+ * and arguments share one outstanding request. Only tools listed in {@code mcp.client.coalescing.tools}
+ * are coalesced, so calls with side effects such as {@code book_flight} always reach the server.
+ * <p>
+ * Calls are matched by {@link McpCallKey}. Nothing is kept once the shared call completes. The shared
+ * result is a deep read-only copy, so no caller can change what the others see.
+ */
+@Component
+public class McpCallCoalescer implements MetricsSource {
+
+    private static final class ToolStats {
+        final LongAdder leaders = new LongAdder();
+        final LongAdder joined = new LongAdder();
+    }
+
+    private final Set<String> tools;
+    private final ObjectMapper canonicalMapper;
+    private final ConcurrentHashMap<McpCallKey, CompletableFuture<McpResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ToolStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder bypassed = new LongAdder();
+
+    public McpCallCoalescer(@Value("${mcp.client.coalescing.tools:}") List<String> tools, ObjectMapper objectMapper) {
+        this.tools = tools.stream().map(String::trim).filter(tool -> !tool.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        this.canonicalMapper = McpCallKey.canonicalMapper(objectMapper);
+    }
+
+    public boolean isCoalesced(String toolName) {
+        return tools.contains(toolName);
+    }
+
+    /**
+     * Returns the outstanding result of an identical call if there is one, otherwise starts {@code call}
+     * and shares its result with every identical call made until it completes.
+     * Each caller gets its own future, so cancelling one does not affect the others.
+     */
+    public CompletableFuture<McpResponse> coalesce(String serverUrl, String toolName, Map<String, Object> arguments,
+                                                   Supplier<CompletableFuture<McpResponse>> call) {
+        // Arguments that cannot be rendered as JSON are sent uncoalesced
+        McpCallKey key = isCoalesced(toolName) ? McpCallKey.of(canonicalMapper, serverUrl, toolName, arguments) : null;
+        if (key == null) {
+            bypassed.increment();
+            return call.get();
+        }
+
+        ToolStats toolStats = stats.computeIfAbsent(toolName, name -> new ToolStats());
+        CompletableFuture<McpResponse> shared = new CompletableFuture<>();
+        CompletableFuture<McpResponse> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            toolStats.joined.increment();
+            return existing.copy();
+        }
+
+        toolStats.leaders.increment();
+        try {
+            call.get().whenComplete((response, error) -> {
+                // Remove before completing so no caller can join a call that has already finished
+                inFlight.remove(key, shared);
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                } else {
+                    shared.complete(FrozenResponses.freeze(response));
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared.copy();
+    }
+
+    @Override
+    public String metricsName() {
+        return "mcpCoalescing";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long leaders = 0;
+        long joined = 0;
+        Map<String, Object> perTool = new LinkedHashMap<>();
+        for (Map.Entry<String, ToolStats> entry : stats.entrySet()) {
+            long toolLeaders = entry.getValue().leaders.sum();
+            long toolJoined = entry.getValue().joined.sum();
+            leaders += toolLeaders;
+            joined += toolJoined;
+            perTool.put(entry.getKey(), Map.of(
+                    "calls", toolLeaders + toolJoined,
+                    "joined", toolJoined,
+                    "hitRate", hitRate(toolJoined, toolLeaders + toolJoined)
+            ));
+        }
+
+        return Map.of(
+                "tools", tools,
+                "calls", leaders + joined,
+                "upstreamCalls", leaders,
+                "joined", joined,
+                "hitRate", hitRate(joined, leaders + joined),
+                "inFlight", inFlight.size(),
+                "bypassed", bypassed.sum(),
+                "perTool", perTool
+        );
+    }
+
+    private static double hitRate(long hits, long calls) {
+        return calls == 0 ? 0.0 : (double) hits / calls;
+    }
+}
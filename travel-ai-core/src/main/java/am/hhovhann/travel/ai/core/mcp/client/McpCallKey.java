@@ -0,0 +1,29 @@
+package am.hhovhann.travel.ai.core.mcp.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.util.Map;
+
+/**
+ * Identity of a tool call: server, tool and the arguments rendered as JSON with map keys sorted,
+ * so two argument maps with the same entries in a different order produce equal keys.
+ */
+record McpCallKey(String serverUrl, String toolName, String arguments) {
+
+    static ObjectMapper canonicalMapper(ObjectMapper objectMapper) {
+        return objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    /**
+     * Returns {@code null} when the arguments cannot be rendered as JSON.
+     */
+    static McpCallKey of(ObjectMapper canonicalMapper, String serverUrl, String toolName, Map<String, Object> arguments) {
+        try {
+            return new McpCallKey(serverUrl, toolName, canonicalMapper.writeValueAsString(arguments));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
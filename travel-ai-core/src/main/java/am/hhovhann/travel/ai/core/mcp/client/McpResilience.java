@@ -0,0 +1,237 @@
+package am.hhovhann.travel.ai.core.mcp.client;
+
+import am.hhovhann.travel.ai.core.mcp.exception.McpException;
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Per-server protection for MCP calls.
+ * <ul>
+ *   <li>Adaptive timeout: {@code timeout-multiplier} times the p99 latency of recent calls, kept between
+ *   {@code min-timeout} and {@code mcp.client.request-timeout}; a timed-out call counts as taking its full
+ *   timeout. Until {@code min-samples} calls have completed the full request timeout applies.</li>
+ *   <li>Circuit breaker: see {@link CircuitBreaker}. Calls to an open server fail immediately.</li>
+ *   <li>Hedging: for tools whose names start with one of {@code hedge.tool-prefixes}, a second attempt is sent
+ *   once the first has been outstanding longer than the server's p95; the first response wins and the other
+ *   attempt is cancelled. Hedges are limited to {@code hedge.max-ratio} of calls so a slow server is not sent
+ *   twice the load, and are not sent once the breaker has left the state the call was admitted in.</li>
+ * </ul>
+ * Only transport failures and timeouts count against a server; a JSON-RPC error response is a success here.
+ */
+@Component
+public class McpResilience implements MetricsSource {
+
+    private final Duration maxTimeout;
+    private final Duration minTimeout;
+    private final double timeoutMultiplier;
+    private final int minSamples;
+    private final int latencyWindowSize;
+    private final int circuitWindowSize;
+    private final int circuitMinimumCalls;
+    private final double circuitFailureRateThreshold;
+    private final Duration circuitOpenDuration;
+    private final int circuitHalfOpenProbes;
+    private final List<String> hedgeToolPrefixes;
+    private final double hedgeMaxRatio;
+
+    private final ConcurrentHashMap<String, ServerState> servers = new ConcurrentHashMap<>();
+
+    public McpResilience(@Value("${mcp.client.request-timeout:10s}") Duration maxTimeout,
+                         @Value("${mcp.client.resilience.min-timeout:500ms}") Duration minTimeout,
+                         @Value("${mcp.client.resilience.timeout-multiplier:2.0}") double timeoutMultiplier,
+                         @Value("${mcp.client.resilience.min-samples:20}") int minSamples,
+                         @Value("${mcp.client.resilience.latency-window:256}") int latencyWindowSize,
+                         @Value("${mcp.client.resilience.circuit.window-size:50}") int circuitWindowSize,
+                         @Value("${mcp.client.resilience.circuit.minimum-calls:20}") int circuitMinimumCalls,
+                         @Value("${mcp.client.resilience.circuit.failure-rate-threshold:0.5}") double circuitFailureRateThreshold,
+                         @Value("${mcp.client.resilience.circuit.open-duration:30s}") Duration circuitOpenDuration,
+                         @Value("${mcp.client.resilience.circuit.half-open-probes:3}") int circuitHalfOpenProbes,
+                         @Value("${mcp.client.resilience.hedge.tool-prefixes:}") List<String> hedgeToolPrefixes,
+                         @Value("${mcp.client.resilience.hedge.max-ratio:0.1}") double hedgeMaxRatio) {
+        this.maxTimeout = maxTimeout;
+        this.minTimeout = minTimeout;
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.minSamples = minSamples;
+        this.latencyWindowSize = latencyWindowSize;
+        this.circuitWindowSize = circuitWindowSize;
+        this.circuitMinimumCalls = circuitMinimumCalls;
+        this.circuitFailureRateThreshold = circuitFailureRateThreshold;
+        this.circuitOpenDuration = circuitOpenDuration;
+        this.circuitHalfOpenProbes = circuitHalfOpenProbes;
+        this.hedgeToolPrefixes = hedgeToolPrefixes.stream().map(String::trim).filter(prefix -> !prefix.isEmpty()).toList();
+        this.hedgeMaxRatio = hedgeMaxRatio;
+    }
+
+    private final class ServerState {
+        final LatencyWindow latencies = new LatencyWindow(latencyWindowSize);
+        final CircuitBreaker breaker = new CircuitBreaker(circuitWindowSize, circuitMinimumCalls,
+                circuitFailureRateThreshold, circuitOpenDuration.toNanos(), circuitHalfOpenProbes);
+        final LongAdder calls = new LongAdder();
+        final LongAdder successes = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder shortCircuited = new LongAdder();
+        final LongAdder hedges = new LongAdder();
+        final LongAdder hedgesWon = new LongAdder();
+
+        Duration timeout() {
+            if (latencies.count() < minSamples) {
+                return maxTimeout;
+            }
+            long nanos = (long) (latencies.percentile(0.99) * timeoutMultiplier);
+            return Duration.ofNanos(Math.max(minTimeout.toNanos(), Math.min(maxTimeout.toNanos(), nanos)));
+        }
+
+        long hedgeDelayNanos() {
+            if (latencies.count() < minSamples || hedges.sum() >= calls.sum() * hedgeMaxRatio) {
+                return -1;
+            }
+            return latencies.percentile(0.95);
+        }
+    }
+
+    /**
+     * Runs one logical call against {@code serverUrl}. {@code attempt} starts a request with the given timeout;
+     * it may be invoked twice when the call is hedged. {@code toolName} is {@code null} for calls that must
+     * never be hedged, such as batches.
+     */
+    public <T> CompletableFuture<T> execute(String serverUrl, String toolName, Function<Duration, CompletableFuture<T>> attempt) {
+        ServerState server = servers.computeIfAbsent(serverUrl, url -> new ServerState());
+        server.calls.increment();
+        long permit = server.breaker.tryAcquire(System.nanoTime());
+        if (permit < 0) {
+            server.shortCircuited.increment();
+            return CompletableFuture.failedFuture(new McpException("Circuit open for MCP server " + serverUrl));
+        }
+
+        Duration timeout = server.timeout();
+        long hedgeDelay = isHedged(toolName) ? server.hedgeDelayNanos() : -1;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+
+        startAttempt(server, attempt, timeout, result, pending, attempts, false);
+        if (hedgeDelay >= 0) {
+            CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS).execute(() -> {
+                // The breaker may have opened while the first attempt was outstanding
+                if (!result.isDone() && server.breaker.allowsExtra(permit)) {
+                    pending.incrementAndGet();
+                    server.hedges.increment();
+                    startAttempt(server, attempt, timeout, result, pending, attempts, true);
+                }
+            });
+        }
+
+        return result.whenComplete((value, error) -> {
+            // The attempt that lost would otherwise hold its request and connection slot until the server answers
+            attempts.forEach(call -> call.cancel(true));
+            boolean success = error == null;
+            server.breaker.onResult(permit, success, System.nanoTime());
+            if (success) {
+                server.successes.increment();
+            } else if (isTimeout(error)) {
+                server.timeouts.increment();
+            } else {
+                server.failures.increment();
+            }
+        });
+    }
+
+    private <T> void startAttempt(ServerState server, Function<Duration, CompletableFuture<T>> attempt, Duration timeout,
+                                  CompletableFuture<T> result, AtomicInteger pending, List<CompletableFuture<T>> attempts,
+                                  boolean hedge) {
+        long start = System.nanoTime();
+        CompletableFuture<T> call;
+        try {
+            call = attempt.apply(timeout);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        attempts.add(call);
+        if (result.isDone()) {
+            // The other attempt won while this one was being started
+            call.cancel(true);
+        }
+        call.whenComplete((value, error) -> {
+            if (error == null) {
+                server.latencies.record(System.nanoTime() - start);
+                if (result.complete(value) && hedge) {
+                    server.hedgesWon.increment();
+                }
+            } else {
+                if (isTimeout(error)) {
+                    // Count the timeout as a sample so the adaptive timeout grows for a server that got slower
+                    server.latencies.record(timeout.toNanos());
+                }
+                if (pending.decrementAndGet() == 0) {
+                    // Fail only once no attempt is left that could still succeed
+                    result.completeExceptionally(error);
+                }
+            }
+        });
+    }
+
+    private boolean isHedged(String toolName) {
+        if (toolName == null) {
+            return false;
+        }
+        for (String prefix : hedgeToolPrefixes) {
+            if (toolName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException || cause instanceof McpException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof TimeoutException || cause instanceof HttpTimeoutException;
+    }
+
+    @Override
+    public String metricsName() {
+        return "mcpResilience";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> perServer = new LinkedHashMap<>();
+        servers.forEach((url, server) -> perServer.put(url, Map.ofEntries(
+                Map.entry("circuit", server.breaker.state().name()),
+                Map.entry("failureRate", server.breaker.failureRate()),
+                Map.entry("timesOpened", server.breaker.timesOpened()),
+                Map.entry("p95Millis", Math.max(0, server.latencies.percentile(0.95)) / 1_000_000.0),
+                Map.entry("p99Millis", Math.max(0, server.latencies.percentile(0.99)) / 1_000_000.0),
+                Map.entry("timeoutMillis", server.timeout().toMillis()),
+                Map.entry("calls", server.calls.sum()),
+                Map.entry("success", server.successes.sum()),
+                Map.entry("failure", server.failures.sum()),
+                Map.entry("timeout", server.timeouts.sum()),
+                Map.entry("shortCircuit", server.shortCircuited.sum()),
+                Map.entry("hedges", server.hedges.sum()),
+                Map.entry("hedgeWon", server.hedgesWon.sum())
+        )));
+        return Map.of("servers", perServer);
+    }
+}
@@ -0,0 +1,328 @@
+package am.hhovhann.travel.ai.core.mcp.client;
+
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Client-side cache of MCP tool results, bounded by the approximate JSON size of the cached results.
+ * <p>
+ * Only tools listed in {@code mcp.client.cache.tools} as {@code tool=ttl} are cached. Results reporting
+ * nothing found are kept for at most {@code negative-ttl}; error responses and results flagged
+ * {@code partial} are never cached. For {@code stale-while-revalidate} after expiry the old result
+ * is still returned while a single background call refreshes it.
+ * <p>
+ * Entries hold a deep read-only copy of the result, so hits can share it and the caller that loaded
+ * it may still change its own copy.
+ * <p>
+ * Admission is TinyLFU-style: every lookup is counted in a {@link FrequencySketch}, and when the cache
+ * is full a new result only replaces least recently used entries that were requested less often.
+ */
+@Component
+public class McpResultCache implements MetricsSource {
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    private static final class Entry {
+        final McpResponse response;
+        final long weight;
+        final long expiresAt;
+        final long staleUntil;
+        final boolean negative;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(McpResponse response, long weight, long expiresAt, long staleUntil, boolean negative) {
+            this.response = response;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+            this.staleUntil = staleUntil;
+            this.negative = negative;
+        }
+    }
+
+    private final Map<String, Duration> ttls;
+    private final long maxWeight;
+    private final long negativeTtlMillis;
+    private final long staleWhileRevalidateMillis;
+    private final ObjectMapper canonicalMapper;
+
+    // Access-ordered, eldest first; guarded by lock together with the sketch and totalWeight
+    private final LinkedHashMap<McpCallKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public McpResultCache(@Value("${mcp.client.cache.tools:}") List<String> tools,
+                          @Value("${mcp.client.cache.max-weight:16777216}") long maxWeight,
+                          @Value("${mcp.client.cache.negative-ttl:30s}") Duration negativeTtl,
+                          @Value("${mcp.client.cache.stale-while-revalidate:1m}") Duration staleWhileRevalidate,
+                          ObjectMapper objectMapper) {
+        this.ttls = parseTtls(tools);
+        this.maxWeight = maxWeight;
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.staleWhileRevalidateMillis = staleWhileRevalidate.toMillis();
+        this.canonicalMapper = McpCallKey.canonicalMapper(objectMapper);
+        // Sized for results of about 1 KiB, the typical search result page
+        this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maxWeight / 1024));
+    }
+
+    public boolean isCached(String toolName) {
+        return ttls.containsKey(toolName);
+    }
+
+    /**
+     * Returns the cached result of an identical call, or calls {@code loader} and caches what it returns.
+     */
+    public CompletableFuture<McpResponse> get(String serverUrl, String toolName, Map<String, Object> arguments,
+                                              Supplier<CompletableFuture<McpResponse>> loader) {
+        Duration ttl = ttls.get(toolName);
+        McpCallKey key = ttl != null ? McpCallKey.of(canonicalMapper, serverUrl, toolName, arguments) : null;
+        if (key == null) {
+            return loader.get();
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry;
+        lock.lock();
+        try {
+            sketch.increment(key.hashCode());
+            entry = entries.get(key);
+            if (entry != null && now >= entry.staleUntil) {
+                removeLocked(key);
+                expirations.increment();
+                entry = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return load(key, ttl, loader);
+        }
+        if (now < entry.expiresAt) {
+            hits.increment();
+            if (entry.negative) {
+                negativeHits.increment();
+            }
+            return CompletableFuture.completedFuture(entry.response);
+        }
+
+        staleHits.increment();
+        if (entry.refreshing.compareAndSet(false, true)) {
+            refresh(key, ttl, loader, entry);
+        }
+        return CompletableFuture.completedFuture(entry.response);
+    }
+
+    private CompletableFuture<McpResponse> load(McpCallKey key, Duration ttl, Supplier<CompletableFuture<McpResponse>> loader) {
+        return loader.get().whenComplete((response, error) -> {
+            if (error == null) {
+                store(key, ttl, response);
+            }
+        });
+    }
+
+    private void refresh(McpCallKey key, Duration ttl, Supplier<CompletableFuture<McpResponse>> loader, Entry stale) {
+        refreshes.increment();
+        try {
+            load(key, ttl, loader).whenComplete((response, error) -> {
+                if (error != null) {
+                    refreshFailures.increment();
+                }
+                // If nothing replaced the stale result, the next lookup retries the refresh
+                stale.refreshing.set(false);
+            });
+        } catch (RuntimeException e) {
+            refreshFailures.increment();
+            stale.refreshing.set(false);
+        }
+    }
+
+    private void store(McpCallKey key, Duration ttl, McpResponse response) {
+        if (response == null || response.error() != null || response.result() == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(response.result().get("partial"))) {
+            // Some providers missed their deadline; the next call may well get the full answer
+            return;
+        }
+
+        long weight;
+        try {
+            weight = canonicalMapper.writeValueAsBytes(response.result()).length
+                    + 2L * key.arguments().length() + ENTRY_OVERHEAD_BYTES;
+        } catch (JsonProcessingException e) {
+            return;
+        }
+        if (weight > maxWeight) {
+            rejected.increment();
+            return;
+        }
+
+        boolean negative = isEmptyResult(response.result());
+        long ttlMillis = negative ? Math.min(ttl.toMillis(), negativeTtlMillis) : ttl.toMillis();
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(FrozenResponses.freeze(response), weight,
+                now + ttlMillis, now + ttlMillis + staleWhileRevalidateMillis, negative);
+
+        lock.lock();
+        try {
+            // A refreshed entry already proved its popularity, so it is always admitted
+            boolean replacing = removeLocked(key) != null;
+            if (!makeRoomLocked(key, weight, now, replacing)) {
+                rejected.increment();
+                return;
+            }
+            entries.put(key, entry);
+            totalWeight += weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Walks from the least recently used end. Entries past their stale window are dropped for free;
+    // live ones only when the candidate is requested more often than each of them.
+    private boolean makeRoomLocked(McpCallKey candidate, long weight, long now, boolean force) {
+        if (totalWeight + weight <= maxWeight) {
+            return true;
+        }
+
+        int candidateFrequency = sketch.frequency(candidate.hashCode());
+        List<McpCallKey> expired = new ArrayList<>();
+        List<McpCallKey> victims = new ArrayList<>();
+        long freed = 0;
+        boolean admitted = false;
+        for (Iterator<Map.Entry<McpCallKey, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<McpCallKey, Entry> eldest = it.next();
+            if (now >= eldest.getValue().staleUntil) {
+                expired.add(eldest.getKey());
+            } else if (force || sketch.frequency(eldest.getKey().hashCode()) < candidateFrequency) {
+                victims.add(eldest.getKey());
+            } else {
+                break;
+            }
+            freed += eldest.getValue().weight;
+            if (totalWeight - freed + weight <= maxWeight) {
+                admitted = true;
+                break;
+            }
+        }
+
+        for (McpCallKey key : expired) {
+            removeLocked(key);
+            expirations.increment();
+        }
+        if (!admitted) {
+            return false;
+        }
+        for (McpCallKey key : victims) {
+            removeLocked(key);
+            evictions.increment();
+        }
+        return true;
+    }
+
+    private Entry removeLocked(McpCallKey key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+        return removed;
+    }
+
+    private static boolean isEmptyResult(Map<String, Object> result) {
+        if (result.get("total") instanceof Number total) {
+            return total.longValue() == 0;
+        }
+        boolean sawCollection = false;
+        for (Object value : result.values()) {
+            if (value instanceof Collection<?> collection) {
+                if (!collection.isEmpty()) {
+                    return false;
+                }
+                sawCollection = true;
+            }
+        }
+        return sawCollection;
+    }
+
+    private static Map<String, Duration> parseTtls(List<String> tools) {
+        Map<String, Duration> ttls = new HashMap<>();
+        for (String tool : tools) {
+            if (tool.isBlank()) {
+                continue;
+            }
+            int separator = tool.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected tool=ttl in mcp.client.cache.tools but got: " + tool);
+            }
+            ttls.put(tool.substring(0, separator).trim(), DurationStyle.detectAndParse(tool.substring(separator + 1).trim()));
+        }
+        return Map.copyOf(ttls);
+    }
+
+    @Override
+    public String metricsName() {
+        return "mcpCache";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long hitCount = hits.sum() + staleHits.sum();
+        long lookups = hitCount + misses.sum();
+        int size;
+        long weight;
+        lock.lock();
+        try {
+            size = entries.size();
+            weight = totalWeight;
+        } finally {
+            lock.unlock();
+        }
+
+        return Map.ofEntries(
+                Map.entry("tools", ttls.keySet()),
+                Map.entry("entries", size),
+                Map.entry("weight", weight),
+                Map.entry("maxWeight", maxWeight),
+                Map.entry("hits", hits.sum()),
+                Map.entry("negativeHits", negativeHits.sum()),
+                Map.entry("staleHits", staleHits.sum()),
+                Map.entry("misses", misses.sum()),
+                Map.entry("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups),
+                Map.entry("refreshes", refreshes.sum()),
+                Map.entry("refreshFailures", refreshFailures.sum()),
+                Map.entry("evictions", evictions.sum()),
+                Map.entry("expirations", expirations.sum()),
+                Map.entry("rejected", rejected.sum())
+        );
+    }
+}
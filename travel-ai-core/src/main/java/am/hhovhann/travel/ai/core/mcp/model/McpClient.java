@@ -1,91 +1,177 @@
 package am.hhovhann.travel.ai.core.mcp.model;
 
+import am.hhovhann.travel.ai.core.mcp.client.McpCallCoalescer;
+import am.hhovhann.travel.ai.core.mcp.client.McpResilience;
+import am.hhovhann.travel.ai.core.mcp.client.McpResultCache;
 import am.hhovhann.travel.ai.core.mcp.exception.McpException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import am.hhovhann.travel.ai.core.mcp.transport.McpTransport;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Component
 public class McpClient {
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final McpTransport transport;
+    private final McpResultCache cache;
+    private final McpCallCoalescer coalescer;
+    private final McpResilience resilience;
+    private final AtomicLong requestSequence = new AtomicLong();
 
-    public McpClient(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+    public McpClient(McpTransport transport,
+                     McpResultCache cache,
+                     McpCallCoalescer coalescer,
+                     McpResilience resilience) {
+        this.transport = transport;
+        this.cache = cache;
+        this.coalescer = coalescer;
+        this.resilience = resilience;
     }
 
+    /**
+     * Calls one tool. Results of tools listed in {@code mcp.client.cache.tools} are served from the
+     * result cache while fresh; identical concurrent calls to tools listed in
+     * {@code mcp.client.coalescing.tools} share a single request to the server. Requests that do go out
+     * are guarded by {@link McpResilience}.
+     */
     public CompletableFuture<McpResponse> callTool(String serverUrl, String toolName, Map<String, Object> arguments) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                McpRequest request = new McpRequest(
-                        "2.0",
-                        "tools/call",
-                        generateRequestId(),
-                        Map.of(
-                                "name", toolName,
-                                "arguments", arguments
-                        )
-                );
-
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("Content-Type", "application/json");
-                HttpEntity<McpRequest> entity = new HttpEntity<>(request, headers);
-
-                ResponseEntity<McpResponse> response = restTemplate.exchange(
-                        serverUrl + "/mcp",
-                        HttpMethod.POST,
-                        entity,
-                        McpResponse.class
-                );
-
-                return response.getBody();
-            } catch (Exception e) {
-                throw new McpException("Failed to call MCP tool: " + toolName, e);
+        return cache.get(serverUrl, toolName, arguments,
+                () -> coalescer.coalesce(serverUrl, toolName, arguments,
+                        () -> sendToolCall(serverUrl, toolName, arguments)));
+    }
+
+    private CompletableFuture<McpResponse> sendToolCall(String serverUrl, String toolName, Map<String, Object> arguments) {
+        McpRequest request = new McpRequest(
+                "2.0",
+                "tools/call",
+                generateRequestId(),
+                Map.of(
+                        "name", toolName,
+                        "arguments", arguments
+                )
+        );
+
+        return resilience.execute(serverUrl, toolName,
+                        timeout -> transport.exchange(serverUrl + "/mcp", request, McpResponse.class, timeout))
+                .exceptionally(e -> {
+                    throw new McpException("Failed to call MCP tool: " + toolName, unwrap(e));
+                });
+    }
+
+    /**
+     * Calls one tool over the streamable HTTP transport and hands every progress update to {@code onProgress}
+     * as it arrives, so callers can start working on the first partial results, e.g. one provider's flights,
+     * while the server is still collecting the rest. The returned response is the complete result.
+     * <p>
+     * Streamed calls skip the result cache and coalescing, since their progress cannot be shared, and are never
+     * hedged, so no update is delivered twice. {@code onProgress} runs on a transport thread and should not block.
+     * The adaptive timeout bounds each gap between chunks of the stream, not its total length. With a transport
+     * that cannot stream the call completes without updates.
+     */
+    public CompletableFuture<McpResponse> callToolStreaming(String serverUrl, String toolName, Map<String, Object> arguments,
+                                                            Consumer<McpProgressUpdate> onProgress) {
+        String requestId = generateRequestId();
+        McpRequest request = new McpRequest(
+                "2.0",
+                "tools/call",
+                requestId,
+                Map.of(
+                        "name", toolName,
+                        "arguments", arguments,
+                        "_meta", Map.of("progressToken", requestId)
+                )
+        );
+
+        Consumer<McpNotification> onNotification = notification -> {
+            if (McpProgressUpdate.METHOD.equals(notification.method())) {
+                onProgress.accept(McpProgressUpdate.from(notification));
             }
-        });
+        };
+        return resilience.execute(serverUrl, null,
+                        timeout -> transport.exchangeStreaming(serverUrl + "/mcp", request, onNotification, timeout))
+                .exceptionally(e -> {
+                    throw new McpException("Failed to call MCP tool: " + toolName, unwrap(e));
+                });
+    }
+
+    /**
+     * Calls several tools on one server in a single JSON-RPC batch round trip.
+     * The returned list is in the order of {@code calls}; a call the server did not answer
+     * gets an error response rather than failing the whole batch.
+     */
+    public CompletableFuture<List<McpResponse>> callTools(String serverUrl, List<McpToolCall> calls) {
+        if (calls.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        List<McpRequest> requests = new ArrayList<>(calls.size());
+        for (McpToolCall call : calls) {
+            requests.add(new McpRequest(
+                    "2.0",
+                    "tools/call",
+                    generateRequestId(),
+                    Map.of(
+                            "name", call.name(),
+                            "arguments", call.arguments()
+                    )
+            ));
+        }
+
+        return resilience.execute(serverUrl, null,
+                        timeout -> transport.exchangeBatch(serverUrl + "/mcp", requests, timeout))
+                .thenApply(responses -> matchById(requests, responses))
+                .exceptionally(e -> {
+                    throw new McpException("Failed to call MCP tools: " + calls.stream().map(McpToolCall::name).toList(), unwrap(e));
+                });
     }
 
     public CompletableFuture<McpCapabilities> getCapabilities(String serverUrl) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                McpRequest request = new McpRequest(
-                        "2.0",
-                        "initialize",
-                        generateRequestId(),
-                        Map.of(
-                                "protocolVersion", "2024-11-05",
-                                "capabilities", Map.of("tools", true)
-                        )
-                );
-
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("Content-Type", "application/json");
-                HttpEntity<McpRequest> entity = new HttpEntity<>(request, headers);
-
-                ResponseEntity<McpCapabilities> response = restTemplate.exchange(
-                        serverUrl + "/mcp/capabilities",
-                        HttpMethod.POST,
-                        entity,
-                        McpCapabilities.class
-                );
-
-                return response.getBody();
-            } catch (Exception e) {
-                throw new McpException("Failed to get MCP capabilities", e);
+        McpRequest request = new McpRequest(
+                "2.0",
+                "initialize",
+                generateRequestId(),
+                Map.of(
+                        "protocolVersion", "2024-11-05",
+                        "capabilities", Map.of("tools", true)
+                )
+        );
+
+        return resilience.execute(serverUrl, null,
+                        timeout -> transport.exchange(serverUrl + "/mcp/capabilities", request, McpCapabilities.class, timeout))
+                .exceptionally(e -> {
+                    throw new McpException("Failed to get MCP capabilities", unwrap(e));
+                });
+    }
+
+    private static List<McpResponse> matchById(List<McpRequest> requests, List<McpResponse> responses) {
+        Map<String, McpResponse> byId = new HashMap<>(responses.size() * 2);
+        for (McpResponse response : responses) {
+            if (response.id() != null) {
+                byId.put(response.id(), response);
             }
-        });
+        }
+
+        List<McpResponse> ordered = new ArrayList<>(requests.size());
+        for (McpRequest request : requests) {
+            McpResponse response = byId.get(request.id());
+            ordered.add(response != null ? response : new McpResponse("2.0", request.id(), null,
+                    new McpError(-32603, "No response in batch for request " + request.id(), null)));
+        }
+        return ordered;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 
     private String generateRequestId() {
-        return "req-" + System.currentTimeMillis() + "-" + Thread.currentThread().getId();
+        // Batch responses are matched by id, so ids must be unique even within one millisecond
+        return "req-" + System.currentTimeMillis() + "-" + requestSequence.incrementAndGet();
     }
 }
-
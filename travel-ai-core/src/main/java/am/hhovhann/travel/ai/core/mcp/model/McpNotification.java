@@ -0,0 +1,12 @@
+package am.hhovhann.travel.ai.core.mcp.model;
+
+import java.util.Map;
+
+/**
+ * A JSON-RPC notification: a message without an id that expects no response.
+ */
+public record McpNotification(
+        String jsonrpc,
+        String method,
+        Map<String, Object> params
+) {}
@@ -0,0 +1,30 @@
+package am.hhovhann.travel.ai.core.mcp.model;
+
+import java.util.Map;
+
+/**
+ * One {@code notifications/progress} message of a streamed tool call. {@code partialResult} holds the
+ * results that became available with this step, e.g. one provider's flights; {@code total} is {@code null}
+ * when the server does not know how many steps there are.
+ */
+public record McpProgressUpdate(
+        Object progressToken,
+        long progress,
+        Long total,
+        String message,
+        Map<String, Object> partialResult
+) {
+    public static final String METHOD = "notifications/progress";
+
+    @SuppressWarnings("unchecked")
+    public static McpProgressUpdate from(McpNotification notification) {
+        Map<String, Object> params = notification.params() != null ? notification.params() : Map.of();
+        return new McpProgressUpdate(
+                params.get("progressToken"),
+                params.get("progress") instanceof Number progress ? progress.longValue() : 0,
+                params.get("total") instanceof Number total ? total.longValue() : null,
+                (String) params.get("message"),
+                params.get("partialResult") instanceof Map<?, ?> partial ? (Map<String, Object>) partial : Map.of()
+        );
+    }
+}
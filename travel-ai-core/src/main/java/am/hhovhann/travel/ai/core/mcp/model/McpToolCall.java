@@ -0,0 +1,8 @@
+package am.hhovhann.travel.ai.core.mcp.model;
+
+import java.util.Map;
+
+public record McpToolCall(
+        String name,
+        Map<String, Object> arguments
+) {}
@@ -0,0 +1,170 @@
+package am.hhovhann.travel.ai.core.mcp.server;
+
+import am.hhovhann.travel.ai.core.mcp.model.McpError;
+import am.hhovhann.travel.ai.core.mcp.model.McpNotification;
+import am.hhovhann.travel.ai.core.mcp.model.McpProgressUpdate;
+import am.hhovhann.travel.ai.core.mcp.model.McpRequest;
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Server side of the MCP JSON-RPC endpoint. Accepts a single request object or a batch array;
+ * batch entries are handled concurrently and answered in one array. Notifications (no id) get no entry.
+ * <p>
+ * Clients that accept {@code text/event-stream} get the streamable HTTP variant instead: the POST is answered
+ * with server-sent events, each carrying one JSON-RPC message. A {@code tools/call} whose
+ * {@code params._meta.progressToken} is set may send {@code notifications/progress} messages before its
+ * response, and batch responses are sent one by one as they complete.
+ */
+@Component
+public class McpBatchDispatcher implements AutoCloseable {
+    public static final int INVALID_REQUEST = -32600;
+    public static final int INTERNAL_ERROR = -32603;
+
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+    private final Duration streamTimeout;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("mcp-batch-", 0).factory());
+
+    public McpBatchDispatcher(ObjectMapper objectMapper,
+                              @Value("${mcp.server.batch.max-size:32}") int maxBatchSize,
+                              @Value("${mcp.server.stream.timeout:60s}") Duration streamTimeout) {
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+        this.streamTimeout = streamTimeout;
+    }
+
+    public ResponseEntity<?> dispatch(JsonNode body, Function<McpRequest, McpResponse> handler) {
+        if (!body.isArray()) {
+            McpResponse response = handleEntry(body, handler);
+            return response.error() == null ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+        }
+        if (body.isEmpty() || body.size() > maxBatchSize) {
+            String message = body.isEmpty() ? "Empty batch" : "Batch exceeds " + maxBatchSize + " requests";
+            return ResponseEntity.badRequest().body(errorResponse(null, INVALID_REQUEST, message));
+        }
+
+        List<CompletableFuture<McpResponse>> futures = new ArrayList<>(body.size());
+        for (JsonNode entry : body) {
+            boolean notification = entry.isObject() && !entry.hasNonNull("id");
+            CompletableFuture<McpResponse> future = CompletableFuture.supplyAsync(() -> handleEntry(entry, handler), executor);
+            futures.add(notification ? null : future);
+        }
+
+        List<McpResponse> responses = new ArrayList<>(futures.size());
+        for (CompletableFuture<McpResponse> future : futures) {
+            if (future != null) {
+                responses.add(future.join());
+            }
+        }
+        return responses.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(responses);
+    }
+
+    /**
+     * Answers {@code body} as an event stream. {@code handler} gets a {@link McpProgress} that reaches the
+     * client when the request carries a progress token and {@link McpProgress#NONE} otherwise.
+     */
+    public SseEmitter stream(JsonNode body, BiFunction<McpRequest, McpProgress, McpResponse> handler) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        if (body.isArray() && (body.isEmpty() || body.size() > maxBatchSize)) {
+            String message = body.isEmpty() ? "Empty batch" : "Batch exceeds " + maxBatchSize + " requests";
+            send(emitter, errorResponse(null, INVALID_REQUEST, message));
+            emitter.complete();
+            return emitter;
+        }
+
+        List<JsonNode> entries = new ArrayList<>(body.size());
+        if (body.isArray()) {
+            body.forEach(entries::add);
+        } else {
+            entries.add(body);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(entries.size());
+        for (JsonNode entry : entries) {
+            boolean notification = entry.isObject() && !entry.hasNonNull("id");
+            futures.add(CompletableFuture.runAsync(() -> {
+                McpResponse response = handleEntry(entry, request -> handler.apply(request, progress(emitter, request)));
+                if (!notification) {
+                    send(emitter, response);
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> emitter.complete());
+        return emitter;
+    }
+
+    private McpProgress progress(SseEmitter emitter, McpRequest request) {
+        Object token = request.params() != null && request.params().get("_meta") instanceof Map<?, ?> meta
+                ? meta.get("progressToken") : null;
+        if (token == null) {
+            return McpProgress.NONE;
+        }
+        return (progress, total, message, partialResult) -> {
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("progressToken", token);
+            params.put("progress", progress);
+            params.put("total", total);
+            if (message != null) {
+                params.put("message", message);
+            }
+            params.put("partialResult", partialResult);
+            send(emitter, new McpNotification("2.0", McpProgressUpdate.METHOD, params));
+        };
+    }
+
+    private static void send(SseEmitter emitter, Object message) {
+        try {
+            emitter.send(SseEmitter.event().data(message, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the remaining work still finishes but its messages are dropped
+            emitter.completeWithError(e);
+        }
+    }
+
+    private McpResponse handleEntry(JsonNode entry, Function<McpRequest, McpResponse> handler) {
+        McpRequest request;
+        try {
+            request = objectMapper.treeToValue(entry, McpRequest.class);
+        } catch (Exception e) {
+            return errorResponse(entry.path("id").asText(null), INVALID_REQUEST, "Invalid request: " + e.getMessage());
+        }
+        if (request == null || request.method() == null) {
+            return errorResponse(request != null ? request.id() : null, INVALID_REQUEST, "Missing method");
+        }
+        try {
+            return handler.apply(request);
+        } catch (Exception e) {
+            return errorResponse(request.id(), INTERNAL_ERROR, e.getMessage());
+        }
+    }
+
+    private static McpResponse errorResponse(String id, int code, String message) {
+        return new McpResponse("2.0", id, null, new McpError(code, message, null));
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
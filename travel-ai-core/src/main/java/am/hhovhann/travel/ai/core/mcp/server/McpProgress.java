@@ -0,0 +1,21 @@
+package am.hhovhann.travel.ai.core.mcp.server;
+
+import java.util.Map;
+
+/**
+ * Reports the progress of one {@code tools/call} to its client as MCP {@code notifications/progress}
+ * messages. Tools that produce results in steps, such as a search across several providers, hand each
+ * step's results over as {@code partialResult} so the client can work on them before the call completes.
+ * Implementations are thread-safe.
+ */
+@FunctionalInterface
+public interface McpProgress {
+
+    /**
+     * Used when the client did not ask for progress; reports go nowhere.
+     */
+    McpProgress NONE = (progress, total, message, partialResult) -> {
+    };
+
+    void report(long progress, long total, String message, Map<String, Object> partialResult);
+}
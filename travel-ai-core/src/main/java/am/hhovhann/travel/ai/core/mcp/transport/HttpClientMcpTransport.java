@@ -0,0 +1,335 @@
+package am.hhovhann.travel.ai.core.mcp.transport;
+
+import am.hhovhann.travel.ai.core.mcp.exception.McpException;
+import am.hhovhann.travel.ai.core.mcp.model.McpNotification;
+import am.hhovhann.travel.ai.core.mcp.model.McpRequest;
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Non-blocking transport on the JDK {@link HttpClient}. Requests are sent with {@code sendAsync}, so no
+ * thread is held while a call is in flight. The number of concurrent requests is capped; calls over
+ * the cap wait in a bounded queue instead of opening more connections, and are rejected once it is full.
+ * A call's timeout starts when it is queued, so time spent waiting for a slot counts against it.
+ * Cancelling a call's future takes it out of the queue, or aborts its request and frees its slot.
+ * <p>
+ * Streamed calls read server-sent events as they arrive, so notifications reach the caller while the
+ * server is still working on the response. Their timeout bounds each silence on the stream rather than the
+ * stream as a whole, so a long search that keeps reporting progress is not cut off.
+ */
+public class HttpClientMcpTransport implements McpTransport, MetricsSource {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final BlockingQueue<Pending<?>> pending;
+    // Work-in-progress counter: only the caller that raises it from zero drains, the others leave a note
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expiredInQueue = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public HttpClientMcpTransport(HttpClient httpClient, ObjectMapper objectMapper, int maxInFlight, int maxQueued) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.pending = new LinkedBlockingQueue<>(maxQueued);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(String endpoint, McpRequest request, Class<T> responseType, Duration timeout) {
+        return send(endpoint, request, objectMapper.constructType(responseType), timeout);
+    }
+
+    @Override
+    public CompletableFuture<List<McpResponse>> exchangeBatch(String endpoint, List<McpRequest> requests, Duration timeout) {
+        CompletableFuture<JsonNode> body = send(endpoint, requests, objectMapper.constructType(JsonNode.class), timeout);
+        return cancelling(body.thenApply(json -> decodeBatch(endpoint, json)), body);
+    }
+
+    @Override
+    public CompletableFuture<McpResponse> exchangeStreaming(String endpoint, McpRequest request,
+                                                            Consumer<McpNotification> onNotification, Duration timeout) {
+        URI uri;
+        byte[] payload;
+        try {
+            uri = URI.create(endpoint);
+            payload = objectMapper.writeValueAsBytes(request);
+        } catch (IOException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new McpException("Failed to encode MCP request for " + endpoint, e));
+        }
+
+        JavaType responseType = objectMapper.constructType(McpResponse.class);
+        AtomicLong lastLineNanos = new AtomicLong();
+        // The server may still answer with plain JSON, e.g. when it does not support streaming
+        HttpResponse.BodyHandler<McpResponse> bodyHandler = info -> isEventStream(info)
+                ? HttpResponse.BodySubscribers.fromLineSubscriber(
+                        new McpEventStreamSubscriber(objectMapper, endpoint, request.id(), onNotification, lastLineNanos),
+                        McpEventStreamSubscriber::response, StandardCharsets.UTF_8, null)
+                : HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(),
+                        body -> decode(endpoint, info.statusCode(), body, responseType));
+
+        return limited(timeout, remaining -> {
+            lastLineNanos.set(System.nanoTime());
+            HttpRequest httpRequest = httpRequest(uri, payload, "text/event-stream, application/json", remaining);
+            CompletableFuture<HttpResponse<McpResponse>> exchange = httpClient.sendAsync(httpRequest, bodyHandler);
+            // The request timeout only bounds the wait for the headers; the watch bounds each silence after them
+            AtomicBoolean expired = new AtomicBoolean();
+            watchSilence(exchange, lastLineNanos, timeout.toNanos(), expired, remaining.toNanos());
+            return cancelling(exchange.handle((response, error) -> {
+                if (error == null) {
+                    return response.body();
+                }
+                if (expired.get()) {
+                    throw new CompletionException(new HttpTimeoutException("Event stream from " + endpoint + " was silent for " + timeout));
+                }
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            }), exchange);
+        });
+    }
+
+    private static void watchSilence(CompletableFuture<?> exchange, AtomicLong lastLineNanos, long maxSilenceNanos,
+                                     AtomicBoolean expired, long delayNanos) {
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            if (exchange.isDone()) {
+                return;
+            }
+            long silence = System.nanoTime() - lastLineNanos.get();
+            if (silence >= maxSilenceNanos) {
+                expired.set(true);
+                exchange.cancel(true);
+            } else {
+                watchSilence(exchange, lastLineNanos, maxSilenceNanos, expired, maxSilenceNanos - silence);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> send(String endpoint, Object request, JavaType responseType, Duration timeout) {
+        URI uri;
+        byte[] payload;
+        try {
+            uri = URI.create(endpoint);
+            payload = objectMapper.writeValueAsBytes(request);
+        } catch (IOException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new McpException("Failed to encode MCP request for " + endpoint, e));
+        }
+
+        return limited(timeout, remaining -> {
+            CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(
+                    httpRequest(uri, payload, "application/json", remaining), HttpResponse.BodyHandlers.ofByteArray());
+            return cancelling(exchange.thenApply(response -> decode(endpoint, response.statusCode(), response.body(), responseType)),
+                    exchange);
+        });
+    }
+
+    /**
+     * Returns {@code dependent}, cancelling {@code source} when it is cancelled. A dependent stage does not pass
+     * cancellation back to the stage it was created from, and only cancelling the {@code sendAsync} future
+     * aborts the HTTP exchange.
+     */
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<T> dependent, CompletableFuture<?> source) {
+        dependent.whenComplete((value, error) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    private HttpRequest httpRequest(URI uri, byte[] payload, String accept, Duration timeout) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", accept)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+    }
+
+    private static boolean isEventStream(HttpResponse.ResponseInfo info) {
+        return info.headers().firstValue("Content-Type")
+                .map(type -> type.toLowerCase().startsWith("text/event-stream"))
+                .orElse(false);
+    }
+
+    @Override
+    public String metricsName() {
+        return "mcpTransport";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "inFlight", inFlight.get(),
+                "maxInFlight", maxInFlight,
+                "queued", pending.size(),
+                "maxQueued", maxQueued,
+                "rejected", rejected.sum(),
+                "expiredInQueue", expiredInQueue.sum(),
+                "cancelled", cancelled.sum()
+        );
+    }
+
+    private <T> T decode(String endpoint, int statusCode, byte[] body, JavaType responseType) {
+        if (body == null || body.length == 0) {
+            throw new McpException("Empty response from " + endpoint + " (HTTP " + statusCode + ")");
+        }
+        try {
+            // MCP servers report JSON-RPC errors with a 4xx status and a regular response body
+            return objectMapper.readValue(body, responseType);
+        } catch (IOException e) {
+            throw new McpException("Unreadable response from " + endpoint + " (HTTP " + statusCode + ")", e);
+        }
+    }
+
+    private List<McpResponse> decodeBatch(String endpoint, JsonNode body) {
+        if (body.isArray()) {
+            return objectMapper.convertValue(body, objectMapper.getTypeFactory().constructCollectionType(List.class, McpResponse.class));
+        }
+        // A single object answers a batch only when the batch as a whole was rejected
+        McpResponse rejection = objectMapper.convertValue(body, McpResponse.class);
+        String reason = rejection.error() != null ? rejection.error().message() : "unexpected response";
+        throw new McpException("MCP batch rejected by " + endpoint + ": " + reason);
+    }
+
+    private <T> CompletableFuture<T> limited(Duration timeout, Function<Duration, CompletableFuture<T>> call) {
+        Pending<T> entry = new Pending<>(call, System.nanoTime() + timeout.toNanos(), timeout);
+        if (!pending.offer(entry)) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new McpException("MCP client queue is full (" + maxQueued + " calls waiting)"));
+        }
+        entry.result.whenComplete((value, error) -> {
+            if (entry.result.isCancelled()) {
+                entry.cancel();
+            }
+        });
+        drain();
+        if (!entry.claimed.get()) {
+            CompletableFuture.delayedExecutor(entry.remainingNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                if (entry.claimed.compareAndSet(false, true)) {
+                    pending.remove(entry);
+                    entry.expire();
+                }
+            });
+        }
+        return entry.result;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (inFlight.get() < maxInFlight) {
+                Pending<?> next = pending.poll();
+                if (next == null) {
+                    break;
+                }
+                // An entry whose timeout already fired is skipped without taking a slot
+                if (!next.claimed.compareAndSet(false, true)) {
+                    continue;
+                }
+                if (next.remainingNanos() <= 0) {
+                    next.expire();
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                next.start();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private final class Pending<T> {
+        final Function<Duration, CompletableFuture<T>> call;
+        final long deadlineNanos;
+        final Duration timeout;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        // Set once the call has a connection slot
+        volatile CompletableFuture<T> started;
+
+        Pending(Function<Duration, CompletableFuture<T>> call, long deadlineNanos, Duration timeout) {
+            this.call = call;
+            this.deadlineNanos = deadlineNanos;
+            this.timeout = timeout;
+        }
+
+        long remainingNanos() {
+            return deadlineNanos - System.nanoTime();
+        }
+
+        void start() {
+            CompletableFuture<T> future;
+            try {
+                future = call.apply(Duration.ofNanos(remainingNanos()));
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            started = future;
+            if (result.isCancelled()) {
+                // Cancelled between being claimed and started
+                future.cancel(true);
+            }
+            future.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        void cancel() {
+            cancelled.increment();
+            if (claimed.compareAndSet(false, true)) {
+                // Still queued: no slot was taken
+                pending.remove(this);
+                return;
+            }
+            CompletableFuture<T> future = started;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        void expire() {
+            expiredInQueue.increment();
+            result.completeExceptionally(new HttpTimeoutException("MCP call waited " + timeout + " for a free connection slot"));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package am.hhovhann.travel.ai.core.mcp.transport;
+
+import am.hhovhann.travel.ai.core.mcp.exception.McpException;
+import am.hhovhann.travel.ai.core.mcp.model.McpNotification;
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Reads a streamable HTTP response line by line: server-sent events whose data is one JSON-RPC message each.
+ * Notifications are handed to a callback as soon as their event is complete; the response to the request
+ * is kept for {@link #response()}. Requests from the server are ignored, since this client cannot answer them.
+ * Every line read is stamped into {@code lastLineNanos}, so the caller can tell a slow stream from a silent one.
+ */
+final class McpEventStreamSubscriber implements Flow.Subscriber<String> {
+    private final ObjectMapper objectMapper;
+    private final String endpoint;
+    private final String requestId;
+    private final Consumer<McpNotification> onNotification;
+    private final AtomicLong lastLineNanos;
+    private final StringBuilder data = new StringBuilder();
+    private Flow.Subscription subscription;
+    private McpResponse response;
+    private RuntimeException failure;
+
+    McpEventStreamSubscriber(ObjectMapper objectMapper, String endpoint, String requestId,
+                             Consumer<McpNotification> onNotification, AtomicLong lastLineNanos) {
+        this.objectMapper = objectMapper;
+        this.endpoint = endpoint;
+        this.requestId = requestId;
+        this.onNotification = onNotification;
+        this.lastLineNanos = lastLineNanos;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+        lastLineNanos.set(System.nanoTime());
+        if (failure != null) {
+            return;
+        }
+        if (line.isEmpty()) {
+            dispatch();
+        } else if (line.startsWith("data:")) {
+            // Event names, ids, retry hints and comments carry nothing for JSON-RPC
+            if (!data.isEmpty()) {
+                data.append('\n');
+            }
+            data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        // The body future fails with the same error
+    }
+
+    @Override
+    public void onComplete() {
+        if (failure == null) {
+            dispatch();
+        }
+    }
+
+    McpResponse response() {
+        if (failure != null) {
+            throw failure;
+        }
+        if (response == null) {
+            throw new McpException("Event stream from " + endpoint + " ended without a response to " + requestId);
+        }
+        return response;
+    }
+
+    private void dispatch() {
+        if (data.isEmpty()) {
+            return;
+        }
+        try {
+            JsonNode message = objectMapper.readTree(data.toString());
+            if (message.hasNonNull("method")) {
+                if (!message.hasNonNull("id")) {
+                    onNotification.accept(objectMapper.treeToValue(message, McpNotification.class));
+                }
+            } else if (Objects.equals(message.path("id").asText(null), requestId)) {
+                response = objectMapper.treeToValue(message, McpResponse.class);
+            }
+        } catch (Exception e) {
+            // Covers unreadable events and failing callbacks alike; the rest of the stream is not read
+            failure = new McpException("Failed to process event stream from " + endpoint, e);
+            subscription.cancel();
+        } finally {
+            data.setLength(0);
+        }
+    }
+}
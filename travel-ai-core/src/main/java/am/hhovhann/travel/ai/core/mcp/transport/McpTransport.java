@@ -0,0 +1,34 @@
+package am.hhovhann.travel.ai.core.mcp.transport;
+
+import am.hhovhann.travel.ai.core.mcp.model.McpNotification;
+import am.hhovhann.travel.ai.core.mcp.model.McpRequest;
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Carries a single JSON-RPC request to an MCP endpoint and decodes the reply.
+ * Implementations must never block the calling thread.
+ */
+public interface McpTransport {
+
+    <T> CompletableFuture<T> exchange(String endpoint, McpRequest request, Class<T> responseType, Duration timeout);
+
+    /**
+     * Sends the requests as one JSON-RPC batch array. Responses may arrive in any order.
+     */
+    CompletableFuture<List<McpResponse>> exchangeBatch(String endpoint, List<McpRequest> requests, Duration timeout);
+
+    /**
+     * Sends one request over the streamable HTTP transport, handing every notification the server sends
+     * before its response to {@code onNotification} as it arrives. Transports that cannot stream fall back
+     * to a plain exchange, so the call still completes but without notifications.
+     */
+    default CompletableFuture<McpResponse> exchangeStreaming(String endpoint, McpRequest request,
+                                                             Consumer<McpNotification> onNotification, Duration timeout) {
+        return exchange(endpoint, request, McpResponse.class, timeout);
+    }
+}
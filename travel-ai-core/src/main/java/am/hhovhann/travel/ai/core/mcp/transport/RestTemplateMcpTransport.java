@@ -0,0 +1,53 @@
+package am.hhovhann.travel.ai.core.mcp.transport;
+
+import am.hhovhann.travel.ai.core.mcp.model.McpRequest;
+import am.hhovhann.travel.ai.core.mcp.model.McpResponse;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legacy transport: a blocking {@link RestTemplate} call offloaded to the configured executor.
+ */
+public class RestTemplateMcpTransport implements McpTransport {
+    private final RestTemplate restTemplate;
+    private final Executor executor;
+
+    public RestTemplateMcpTransport(RestTemplate restTemplate, Executor executor) {
+        this.restTemplate = restTemplate;
+        this.executor = executor;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(String endpoint, McpRequest request, Class<T> responseType, Duration timeout) {
+        return CompletableFuture.supplyAsync(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Content-Type", "application/json");
+            HttpEntity<McpRequest> entity = new HttpEntity<>(request, headers);
+
+            ResponseEntity<T> response = restTemplate.exchange(endpoint, HttpMethod.POST, entity, responseType);
+            return response.getBody();
+        }, executor).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<List<McpResponse>> exchangeBatch(String endpoint, List<McpRequest> requests, Duration timeout) {
+        return CompletableFuture.supplyAsync(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Content-Type", "application/json");
+            HttpEntity<List<McpRequest>> entity = new HttpEntity<>(requests, headers);
+
+            McpResponse[] body = restTemplate.exchange(endpoint, HttpMethod.POST, entity, McpResponse[].class).getBody();
+            return body != null ? Arrays.asList(body) : List.<McpResponse>of();
+        }, executor).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
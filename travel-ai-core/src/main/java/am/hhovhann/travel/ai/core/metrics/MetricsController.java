@@ -0,0 +1,29 @@
+package am.hhovhann.travel.ai.core.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal/metrics")
+public class MetricsController {
+
+    private final ObjectProvider<MetricsSource> metricsSources;
+
+    public MetricsController(ObjectProvider<MetricsSource> metricsSources) {
+        this.metricsSources = metricsSources;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metricsSources.orderedStream().forEach(source -> metrics.put(source.metricsName(), source.metrics()));
+        metrics.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(metrics);
+    }
+}
@@ -0,0 +1,13 @@
+package am.hhovhann.travel.ai.core.metrics;
+
+import java.util.Map;
+
+/**
+ * A component that publishes counters and gauges on the {@code /internal/metrics} endpoint.
+ */
+public interface MetricsSource {
+
+    String metricsName();
+
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,26 @@
+package am.hhovhann.travel.ai.core.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Another provider's offer for the same physical flight as the {@link FlightResponse} it is attached to.
+ */
+public record FlightOffer(
+        String flightId,
+        String provider,
+        String flightNumber,
+        String airline,
+        BigDecimal price,
+        String currency,
+        String cabinClass,
+        Integer availableSeats,
+        BigDecimal normalizedPrice,
+        String normalizedCurrency
+) {
+
+    public static FlightOffer of(FlightResponse flight) {
+        return new FlightOffer(flight.flightId(), flight.provider(), flight.flightNumber(), flight.airline(),
+                flight.price(), flight.currency(), flight.cabinClass(), flight.availableSeats(), flight.normalizedPrice(),
+                flight.normalizedCurrency());
+    }
+}
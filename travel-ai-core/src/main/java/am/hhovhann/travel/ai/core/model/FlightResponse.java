@@ -6,7 +6,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * @param operatingCarrier      carrier that operates a codeshare flight, when it is not {@code airline}
+ * @param operatingFlightNumber the operating carrier's number for a codeshare flight
+ * @param otherOffers           offers for the same flight from other providers, cheapest first
+ * @param normalizedPrice       {@code price} in {@code normalizedCurrency}, the currency results are ranked in
+ */
 public record FlightResponse(
+        String flightId,
         String flightNumber,
         String airline,
         String from,
@@ -21,6 +28,38 @@ public record FlightResponse(
         Integer availableSeats,
         List<String> amenities,
         String duration,
-        Integer stops
+        Integer stops,
+        String provider,
+        String operatingCarrier,
+        String operatingFlightNumber,
+        List<FlightOffer> otherOffers,
+        BigDecimal normalizedPrice,
+        String normalizedCurrency
 ) {
+
+    public FlightResponse(String flightId, String flightNumber, String airline, String from, String to,
+                          LocalDateTime departureTime, LocalDateTime arrivalTime, BigDecimal price, String currency,
+                          String cabinClass, Integer availableSeats, List<String> amenities, String duration,
+                          Integer stops, String provider) {
+        this(flightId, flightNumber, airline, from, to, departureTime, arrivalTime, price, currency, cabinClass,
+                availableSeats, amenities, duration, stops, provider, null, null, null, null, null);
+    }
+
+    public FlightResponse withAvailableSeats(Integer seats) {
+        return new FlightResponse(flightId, flightNumber, airline, from, to, departureTime, arrivalTime, price, currency,
+                cabinClass, seats, amenities, duration, stops, provider, operatingCarrier, operatingFlightNumber, otherOffers,
+                normalizedPrice, normalizedCurrency);
+    }
+
+    public FlightResponse withOtherOffers(List<FlightOffer> offers) {
+        return new FlightResponse(flightId, flightNumber, airline, from, to, departureTime, arrivalTime, price, currency,
+                cabinClass, availableSeats, amenities, duration, stops, provider, operatingCarrier, operatingFlightNumber, offers,
+                normalizedPrice, normalizedCurrency);
+    }
+
+    public FlightResponse withNormalizedPrice(BigDecimal amount, String baseCurrency) {
+        return new FlightResponse(flightId, flightNumber, airline, from, to, departureTime, arrivalTime, price, currency,
+                cabinClass, availableSeats, amenities, duration, stops, provider, operatingCarrier, operatingFlightNumber,
+                otherOffers, amount, amount == null ? null : baseCurrency);
+    }
 }
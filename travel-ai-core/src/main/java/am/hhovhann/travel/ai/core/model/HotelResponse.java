@@ -3,6 +3,9 @@ package am.hhovhann.travel.ai.core.model;
 import java.math.BigDecimal;
 import java.util.List;
 
+/**
+ * @param normalizedPricePerNight {@code pricePerNight} in {@code normalizedCurrency}, the currency results are ranked in
+ */
 public record HotelResponse(
         String hotelId,
         String name,
@@ -19,5 +22,23 @@ public record HotelResponse(
         String description,
         boolean hasWifi,
         boolean hasParking,
-        boolean hasBreakfast
-) {}
+        boolean hasBreakfast,
+        String provider,
+        BigDecimal normalizedPricePerNight,
+        String normalizedCurrency
+) {
+
+    public HotelResponse(String hotelId, String name, String address, String city, String country, Integer starRating,
+                         BigDecimal pricePerNight, String currency, String roomType, List<String> amenities, Double rating,
+                         Integer reviewCount, String description, boolean hasWifi, boolean hasParking,
+                         boolean hasBreakfast, String provider) {
+        this(hotelId, name, address, city, country, starRating, pricePerNight, currency, roomType, amenities, rating,
+                reviewCount, description, hasWifi, hasParking, hasBreakfast, provider, null, null);
+    }
+
+    public HotelResponse withNormalizedPrice(BigDecimal amount, String baseCurrency) {
+        return new HotelResponse(hotelId, name, address, city, country, starRating, pricePerNight, currency, roomType,
+                amenities, rating, reviewCount, description, hasWifi, hasParking, hasBreakfast, provider,
+                amount, amount == null ? null : baseCurrency);
+    }
+}
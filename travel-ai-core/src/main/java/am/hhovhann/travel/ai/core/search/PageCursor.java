@@ -0,0 +1,40 @@
+package am.hhovhann.travel.ai.core.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a paged search result, handed to clients as an opaque string. Besides the snapshot and offset
+ * it carries the sort key and id of the last item returned, so a search whose snapshot has expired can be
+ * resumed after that item, and a fingerprint of the search arguments, so a cursor is not applied to a
+ * different search.
+ */
+public record PageCursor(String snapshotId, int offset, long lastKey, String lastId, int fingerprint) {
+    private static final String VERSION = "c1";
+
+    public String encode() {
+        String plain = String.join("|", VERSION, snapshotId, Integer.toString(offset), Long.toString(lastKey),
+                Integer.toString(fingerprint), lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Throws {@link IllegalArgumentException} for anything that is not a cursor issued by {@link #encode()}.
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String[] fields = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 6);
+            if (fields.length != 6 || !fields[0].equals(VERSION)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            int offset = Integer.parseInt(fields[2]);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PageCursor(fields[1], offset, Long.parseLong(fields[3]), fields[5], Integer.parseInt(fields[4]));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed Base64 and numbers
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
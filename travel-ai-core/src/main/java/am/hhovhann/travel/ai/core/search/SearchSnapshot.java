@@ -0,0 +1,162 @@
+package am.hhovhann.travel.ai.core.search;
+
+import am.hhovhann.travel.ai.core.util.TopK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The complete result of one search, ordered by a {@code long} sort key with ties in the order items were added.
+ * Results are added as runs, typically one per provider. The first page is picked with a bounded heap, reading
+ * runs known to be sorted only up to the first item too expensive for the page; everything is sorted only when
+ * a later page is asked for, and then only once. Sorting benefits from sorted runs as well.
+ * <p>
+ * Runs are added by one thread; once published through {@link SearchSnapshots} the snapshot is read-only and
+ * may be paged concurrently.
+ */
+public final class SearchSnapshot<T> {
+    private final ToLongFunction<T> sortKey;
+    private final Function<T, String> idOf;
+    private final List<T> items = new ArrayList<>();
+    private final List<int[]> runs = new ArrayList<>();
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private long[] keys = new long[16];
+
+    // Filled on the first request for a page after the first
+    private Object[] sortedItems;
+    private long[] sortedKeys;
+
+    public SearchSnapshot(ToLongFunction<T> sortKey, Function<T, String> idOf) {
+        this.sortKey = sortKey;
+        this.idOf = idOf;
+    }
+
+    /**
+     * @param sortedByKey whether {@code run} is already ordered by the sort key
+     */
+    public SearchSnapshot<T> add(List<T> run, boolean sortedByKey) {
+        int start = items.size();
+        if (start + run.size() > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(keys.length * 2, start + run.size()));
+        }
+        for (T item : run) {
+            keys[items.size()] = sortKey.applyAsLong(item);
+            items.add(item);
+        }
+        runs.add(new int[]{start, items.size(), sortedByKey ? 1 : 0});
+        return this;
+    }
+
+    /**
+     * Search-level facts returned with every page, e.g. which providers timed out.
+     */
+    public Map<String, Object> attributes() {
+        return attributes;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public long key(T item) {
+        return sortKey.applyAsLong(item);
+    }
+
+    public String id(T item) {
+        return idOf.apply(item);
+    }
+
+    public List<T> page(int offset, int limit) {
+        if (offset == 0 && !isSorted()) {
+            return firstPage(limit);
+        }
+        sort();
+        int from = Math.min(offset, sortedItems.length);
+        int to = (int) Math.min((long) from + limit, sortedItems.length);
+        List<T> page = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            page.add(item(i));
+        }
+        return page;
+    }
+
+    /**
+     * Offset of the first item after the one with {@code lastKey} and {@code lastId}. If that item is gone,
+     * the page resumes at the first item with a larger key.
+     */
+    public int seek(long lastKey, String lastId) {
+        sort();
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedKeys[middle] < lastKey) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int firstLarger = low;
+        while (firstLarger < sortedKeys.length && sortedKeys[firstLarger] == lastKey) {
+            firstLarger++;
+        }
+        for (int i = low; i < firstLarger; i++) {
+            if (idOf.apply(item(i)).equals(lastId)) {
+                return i + 1;
+            }
+        }
+        return firstLarger;
+    }
+
+    private List<T> firstPage(int limit) {
+        TopK<T> cheapest = new TopK<>(Math.min(limit, items.size()));
+        for (int[] run : runs) {
+            for (int i = run[0]; i < run[1]; i++) {
+                if (!cheapest.accepts(keys[i])) {
+                    if (run[2] == 1) {
+                        // Everything after this item costs at least as much
+                        break;
+                    }
+                    continue;
+                }
+                cheapest.offer(keys[i], items.get(i));
+            }
+        }
+        return cheapest.toSortedList();
+    }
+
+    private synchronized boolean isSorted() {
+        return sortedItems != null;
+    }
+
+    private synchronized void sort() {
+        if (sortedItems != null) {
+            return;
+        }
+        // A stable sort keeps ties in insertion order, matching the first page
+        Integer[] order = new Integer[items.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        Object[] sorted = new Object[order.length];
+        long[] sortedKeys = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = items.get(order[i]);
+            sortedKeys[i] = keys[order[i]];
+        }
+        this.sortedKeys = sortedKeys;
+        this.sortedItems = sorted;
+    }
+
+    // Only called after sort(), whose lock makes the sorted arrays visible
+    @SuppressWarnings("unchecked")
+    private T item(int index) {
+        return (T) sortedItems[index];
+    }
+}
@@ -0,0 +1,165 @@
+package am.hhovhann.travel.ai.core.search;
+
+import am.hhovhann.travel.ai.core.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cursor-based paging for search tools. The first page of a search keeps its complete result as a
+ * {@link SearchSnapshot} for {@code search.snapshot.ttl}, so later pages are slices of it rather than new
+ * provider fan-outs. At most {@code search.snapshot.max-entries} snapshots are kept; the oldest go first.
+ * <p>
+ * A cursor is only accepted with the arguments of the search that issued it, so a client cannot page through
+ * one search's results while asking for another. When its snapshot is gone, the search runs again and the page
+ * resumes after the last item the client saw.
+ */
+@Component
+public class SearchSnapshots implements MetricsSource {
+
+    /**
+     * One page of results. {@code nextCursor} is {@code null} on the last page.
+     */
+    public record Page<T>(List<T> items, String nextCursor, int totalResults, Map<String, Object> attributes) {
+    }
+
+    private record Stored(String tool, SearchSnapshot<?> snapshot, long expiresAt) {
+    }
+
+    // Arguments that select a page rather than a search
+    private static final Set<String> PAGING_ARGUMENTS = Set.of("cursor", "limit");
+
+    private final long ttlNanos;
+    private final Map<String, Stored> snapshots;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder sliced = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public SearchSnapshots(@Value("${search.snapshot.ttl:2m}") Duration ttl,
+                           @Value("${search.snapshot.max-entries:1000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.snapshots = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                evicted.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the page of {@code tool}'s results selected by the {@code cursor} and {@code limit} arguments.
+     * {@code search} runs only for a first page or when the cursor's snapshot has expired.
+     */
+    public <T> Page<T> page(String tool, Map<String, Object> arguments, int limit, Supplier<SearchSnapshot<T>> search) {
+        int fingerprint = fingerprint(arguments);
+        String cursorValue = (String) arguments.get("cursor");
+        if (cursorValue == null || cursorValue.isBlank()) {
+            searches.increment();
+            return slice(tool, fingerprint, null, search.get(), 0, limit);
+        }
+
+        PageCursor cursor = PageCursor.decode(cursorValue);
+        if (cursor.fingerprint() != fingerprint) {
+            throw new IllegalArgumentException("Cursor belongs to a search with other arguments; repeat them unchanged with the cursor");
+        }
+        SearchSnapshot<T> snapshot = find(tool, cursor.snapshotId());
+        if (snapshot != null) {
+            sliced.increment();
+            return slice(tool, fingerprint, cursor.snapshotId(), snapshot, cursor.offset(), limit);
+        }
+        resumed.increment();
+        SearchSnapshot<T> fresh = search.get();
+        return slice(tool, fingerprint, null, fresh, fresh.seek(cursor.lastKey(), cursor.lastId()), limit);
+    }
+
+    private <T> Page<T> slice(String tool, int fingerprint, String snapshotId, SearchSnapshot<T> snapshot, int offset, int limit) {
+        List<T> items = snapshot.page(offset, limit);
+        int next = offset + items.size();
+        String nextCursor = null;
+        if (!items.isEmpty() && next < snapshot.size()) {
+            if (snapshotId == null) {
+                snapshotId = save(tool, snapshot);
+            }
+            T last = items.get(items.size() - 1);
+            nextCursor = new PageCursor(snapshotId, next, snapshot.key(last), snapshot.id(last), fingerprint).encode();
+        }
+        return new Page<>(items, nextCursor, snapshot.size(), snapshot.attributes());
+    }
+
+    private String save(String tool, SearchSnapshot<?> snapshot) {
+        String id = UUID.randomUUID().toString();
+        long now = System.nanoTime();
+        synchronized (snapshots) {
+            // Every snapshot lives equally long, so the expired ones are the oldest
+            Iterator<Stored> oldest = snapshots.values().iterator();
+            while (oldest.hasNext() && now - oldest.next().expiresAt() > 0) {
+                oldest.remove();
+            }
+            snapshots.put(id, new Stored(tool, snapshot, now + ttlNanos));
+        }
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> SearchSnapshot<T> find(String tool, String id) {
+        synchronized (snapshots) {
+            Stored stored = snapshots.get(id);
+            if (stored == null) {
+                return null;
+            }
+            if (System.nanoTime() - stored.expiresAt() > 0) {
+                snapshots.remove(id);
+                return null;
+            }
+            return stored.tool().equals(tool) ? (SearchSnapshot<T>) stored.snapshot() : null;
+        }
+    }
+
+    private static int fingerprint(Map<String, Object> arguments) {
+        Map<String, Object> search = new TreeMap<>();
+        arguments.forEach((name, value) -> {
+            if (!PAGING_ARGUMENTS.contains(name) && value != null) {
+                search.put(name, value);
+            }
+        });
+        return search.toString().hashCode();
+    }
+
+    @Override
+    public String metricsName() {
+        return "searchSnapshots";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        int live;
+        synchronized (snapshots) {
+            long now = System.nanoTime();
+            snapshots.values().removeIf(stored -> now - stored.expiresAt() > 0);
+            live = snapshots.size();
+        }
+        return Map.of(
+                "snapshots", live,
+                "searches", searches.sum(),
+                "slicedPages", sliced.sum(),
+                "resumedPages", resumed.sum(),
+                "evicted", evicted.sum()
+        );
+    }
+}
@@ -0,0 +1,68 @@
+package am.hhovhann.travel.ai.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Enumerates combinations of one item from each of several key-sorted lists, smallest total key first,
+ * without building the cross product. A heap holds the frontier of combinations: taking the cheapest one
+ * adds the few combinations that differ from it in one list by the next item, each generated exactly once.
+ * Finding the best {@code k} of n lists costs O(k n log(k n)) when all combinations are acceptable.
+ * <p>
+ * Rejected combinations are skipped but still expanded, so at most {@code maxExplored} combinations are
+ * looked at before giving up on finding {@code k} acceptable ones. Equal totals come out in the order they were reached.
+ */
+public final class KBestJoin {
+
+    private record Combination(long total, int[] indexes, int pivot, long sequence) {
+    }
+
+    private KBestJoin() {
+    }
+
+    /**
+     * @param keys  per list, the keys of its items in ascending order
+     * @param valid whether a combination, given as one index per list, is acceptable
+     * @return up to {@code k} acceptable combinations, smallest total first
+     */
+    public static List<int[]> best(long[][] keys, int k, Predicate<int[]> valid, int maxExplored) {
+        List<int[]> best = new ArrayList<>(Math.max(0, k));
+        if (k <= 0 || keys.length == 0) {
+            return best;
+        }
+        long total = 0;
+        for (long[] list : keys) {
+            if (list.length == 0) {
+                return best;
+            }
+            total += list[0];
+        }
+
+        long sequence = 0;
+        PriorityQueue<Combination> frontier = new PriorityQueue<>((a, b) -> a.total() != b.total()
+                ? Long.compare(a.total(), b.total())
+                : Long.compare(a.sequence(), b.sequence()));
+        frontier.add(new Combination(total, new int[keys.length], 0, sequence++));
+        int explored = 0;
+        while (!frontier.isEmpty() && best.size() < k && explored < maxExplored) {
+            Combination cheapest = frontier.poll();
+            explored++;
+            if (valid.test(cheapest.indexes())) {
+                best.add(cheapest.indexes());
+            }
+            // Only lists at or after the pivot advance, so every combination has exactly one parent
+            for (int list = cheapest.pivot(); list < keys.length; list++) {
+                int next = cheapest.indexes()[list] + 1;
+                if (next < keys[list].length) {
+                    int[] indexes = cheapest.indexes().clone();
+                    indexes[list] = next;
+                    long nextTotal = cheapest.total() - keys[list][next - 1] + keys[list][next];
+                    frontier.add(new Combination(nextTotal, indexes, list, sequence++));
+                }
+            }
+        }
+        return best;
+    }
+}
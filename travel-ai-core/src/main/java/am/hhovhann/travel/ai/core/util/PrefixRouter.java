@@ -0,0 +1,195 @@
+package am.hhovhann.travel.ai.core.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Routes string keys to targets by declared prefixes, using an ASCII trie built once at startup. A lookup
+ * walks at most as many characters as the longest declared prefix, however many targets are registered.
+ * <p>
+ * Building fails when two different targets declare the same prefix or one's prefix starts another's,
+ * since a key could then belong to either. A target may declare overlapping prefixes of its own. A router
+ * built with {@link Builder#exactKeys()} is only asked for whole keys through {@link #exact}, so nested
+ * keys of different targets are allowed there; the same key twice still is not.
+ * Immutable and thread-safe once built.
+ */
+public final class PrefixRouter<T> {
+    private static final int ALPHABET = 128;
+
+    private static final class Node<T> {
+        Node<T>[] children;
+        T target;
+        String owner;
+    }
+
+    private final Node<T> root;
+    private final boolean ignoreCase;
+    private final int size;
+
+    private PrefixRouter(Node<T> root, boolean ignoreCase, int size) {
+        this.root = root;
+        this.ignoreCase = ignoreCase;
+        this.size = size;
+    }
+
+    /**
+     * @param kind what the keys are, for error messages, e.g. "flight id prefix"
+     */
+    public static <T> Builder<T> builder(String kind) {
+        return new Builder<>(kind);
+    }
+
+    /**
+     * The target whose declared prefix {@code key} starts with.
+     */
+    public Optional<T> route(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        Node<T> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = child(node, key.charAt(i));
+            if (node == null) {
+                return Optional.empty();
+            }
+            if (node.target != null) {
+                return Optional.of(node.target);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The target that declared exactly {@code key}.
+     */
+    public Optional<T> exact(String key) {
+        if (key == null || key.isEmpty()) {
+            return Optional.empty();
+        }
+        Node<T> node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = child(node, key.charAt(i));
+        }
+        return node == null ? Optional.empty() : Optional.ofNullable(node.target);
+    }
+
+    /**
+     * Number of declared prefixes.
+     */
+    public int size() {
+        return size;
+    }
+
+    private Node<T> child(Node<T> node, char c) {
+        if (ignoreCase) {
+            c = Character.toUpperCase(c);
+        }
+        return c < ALPHABET && node.children != null ? node.children[c] : null;
+    }
+
+    public static final class Builder<T> {
+        private record Entry<T>(String prefix, T target, String owner) {
+        }
+
+        private final String kind;
+        private final List<Entry<T>> entries = new ArrayList<>();
+        private boolean ignoreCase;
+        private boolean exactKeys;
+
+        private Builder(String kind) {
+            this.kind = kind;
+        }
+
+        public Builder<T> ignoreCase() {
+            this.ignoreCase = true;
+            return this;
+        }
+
+        /**
+         * The keys are matched whole with {@link PrefixRouter#exact}, never as prefixes.
+         */
+        public Builder<T> exactKeys() {
+            this.exactKeys = true;
+            return this;
+        }
+
+        /**
+         * @param owner name of the target, for error messages
+         */
+        public Builder<T> add(String prefix, T target, String owner) {
+            if (prefix == null || prefix.isEmpty()) {
+                throw new IllegalArgumentException(owner + " declares an empty " + kind);
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (prefix.charAt(i) >= ALPHABET) {
+                    throw new IllegalArgumentException(owner + " declares a non-ASCII " + kind + ": " + prefix);
+                }
+            }
+            entries.add(new Entry<>(prefix, target, owner));
+            return this;
+        }
+
+        public PrefixRouter<T> build() {
+            Node<T> root = new Node<>();
+            Set<String> conflicts = new LinkedHashSet<>();
+            for (Entry<T> entry : entries) {
+                String prefix = ignoreCase ? entry.prefix().toUpperCase() : entry.prefix();
+                Node<T> node = root;
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = childFor(node, prefix.charAt(i));
+                }
+                if (node.target == null) {
+                    node.target = entry.target();
+                    node.owner = entry.owner();
+                } else if (node.target != entry.target()) {
+                    conflicts.add(conflict(node.owner, prefix, entry.owner(), prefix));
+                }
+            }
+            if (!exactKeys) {
+                checkNested(root, null, null, "", conflicts);
+            }
+            if (!conflicts.isEmpty()) {
+                throw new IllegalStateException("Ambiguous " + kind + " declarations: " + String.join("; ", conflicts));
+            }
+            return new PrefixRouter<>(root, ignoreCase, entries.size());
+        }
+
+        // Every prefix below another one must belong to the same target
+        private void checkNested(Node<T> node, Node<T> ancestor, String ancestorPath, String path, Set<String> conflicts) {
+            if (node.target != null) {
+                if (ancestor == null) {
+                    ancestor = node;
+                    ancestorPath = path;
+                } else if (ancestor.target != node.target) {
+                    conflicts.add(conflict(ancestor.owner, ancestorPath, node.owner, path));
+                }
+            }
+            if (node.children == null) {
+                return;
+            }
+            for (int c = 0; c < ALPHABET; c++) {
+                if (node.children[c] != null) {
+                    checkNested(node.children[c], ancestor, ancestorPath, path + (char) c, conflicts);
+                }
+            }
+        }
+
+        private String conflict(String firstOwner, String firstPrefix, String secondOwner, String secondPrefix) {
+            return firstOwner + " '" + firstPrefix + "' and " + secondOwner + " '" + secondPrefix + "'";
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T> childFor(Node<T> node, char c) {
+            if (node.children == null) {
+                node.children = new Node[ALPHABET];
+            }
+            if (node.children[c] == null) {
+                node.children[c] = new Node<>();
+            }
+            return node.children[c];
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package am.hhovhann.travel.ai.core.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Primitive price keys for ranking, so hot comparison loops never touch {@link BigDecimal}.
+ */
+public final class Prices {
+
+    private Prices() {
+    }
+
+    /**
+     * Amount in hundredths (cents for USD), rounded half-up; {@code null} sorts last.
+     */
+    public static long minorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return Long.MAX_VALUE;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+}
@@ -0,0 +1,129 @@
+package am.hhovhann.travel.ai.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the {@code k} items with the smallest {@code long} keys seen so far, using a binary max-heap over
+ * parallel primitive arrays. Offering an item costs O(log k) and memory stays O(k) however many items are
+ * offered. Ties keep the item offered first, so results are stable. Not thread-safe.
+ */
+public class TopK<T> {
+    private final int capacity;
+    private final long[] keys;
+    private final long[] order;
+    private final Object[] items;
+    private int size;
+    private long offered;
+
+    public TopK(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.order = new long[capacity];
+        this.items = new Object[capacity];
+    }
+
+    /**
+     * Returns whether an item with this key would be kept right now. Once this is {@code false} for a
+     * key, it stays false for every larger key, which lets callers stop reading a sorted source early.
+     */
+    public boolean accepts(long key) {
+        return size < capacity || (capacity > 0 && key < keys[0]);
+    }
+
+    public boolean offer(long key, T item) {
+        long sequence = offered++;
+        if (size < capacity) {
+            keys[size] = key;
+            order[size] = sequence;
+            items[size] = item;
+            siftUp(size++);
+            return true;
+        }
+        if (!accepts(key)) {
+            return false;
+        }
+        keys[0] = key;
+        order[0] = sequence;
+        items[0] = item;
+        siftDown(0);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Items offered so far, kept or not.
+     */
+    public long offered() {
+        return offered;
+    }
+
+    /**
+     * The kept items, smallest key first.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> toSortedList() {
+        Integer[] indexes = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, this::compare);
+        List<T> sorted = new ArrayList<>(size);
+        for (int index : indexes) {
+            sorted.add((T) items[index]);
+        }
+        return sorted;
+    }
+
+    // Heap order: the root is the worst kept item, i.e. largest key, latest offered on ties
+    private int compare(int a, int b) {
+        int byKey = Long.compare(keys[a], keys[b]);
+        return byKey != 0 ? byKey : Long.compare(order[a], order[b]);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(index, parent) <= 0) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int larger = right < size && compare(right, left) > 0 ? right : left;
+            if (compare(larger, index) <= 0) {
+                return;
+            }
+            swap(index, larger);
+            index = larger;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long sequence = order[a];
+        order[a] = order[b];
+        order[b] = sequence;
+        Object item = items[a];
+        items[a] = items[b];
+        items[b] = item;
+    }
+}